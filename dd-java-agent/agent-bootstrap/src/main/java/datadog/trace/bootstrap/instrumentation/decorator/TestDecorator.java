@@ -3,13 +3,17 @@ package datadog.trace.bootstrap.instrumentation.decorator;
 import datadog.trace.api.DDSpanTypes;
 import datadog.trace.api.sampling.PrioritySampling;
 import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
+import datadog.trace.bootstrap.instrumentation.api.AgentTracer;
 import datadog.trace.bootstrap.instrumentation.api.Tags;
 import datadog.trace.bootstrap.instrumentation.ci.CIProviderInfo;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
@@ -24,6 +28,12 @@ public abstract class TestDecorator extends BaseDecorator {
   @Getter private final boolean isCI;
   @Getter private final Map<String, String> ciTags;
 
+  // the CI tags don't change during the test session, share them between all test spans
+  private volatile SharedCiTags sharedCiTags;
+
+  private final ConcurrentMap<Class<? extends Annotation>, TestNames> testNamesByAnnotation =
+      new ConcurrentHashMap<>();
+
   public TestDecorator() {
     this(CIProviderInfo.selectCI());
   }
@@ -55,23 +65,67 @@ public abstract class TestDecorator extends BaseDecorator {
     span.setTag(Tags.TEST_TYPE, testType());
     span.setSamplingPriority(PrioritySampling.SAMPLER_KEEP);
 
-    for (final Map.Entry<String, String> ciTag : ciTags.entrySet()) {
-      span.setTag(ciTag.getKey(), ciTag.getValue());
+    if (!ciTags.isEmpty()) {
+      span.addSharedTags(sharedCiTags());
     }
 
     return super.afterStart(span);
   }
 
+  private AgentSpan.SharedTagLayer sharedCiTags() {
+    final AgentTracer.TracerAPI tracer = AgentTracer.get();
+    SharedCiTags shared = sharedCiTags;
+    // the tags are prepared by the tracer, which is only replaced in tests
+    if (null == shared || shared.tracer != tracer) {
+      shared = new SharedCiTags(tracer, tracer.shareTags(ciTags));
+      sharedCiTags = shared;
+    }
+    return shared.tags;
+  }
+
+  /** @return the unmodifiable names of the methods of the test class carrying the annotation */
   public List<String> testNames(
       final Class<?> testClass, final Class<? extends Annotation> testAnnotation) {
-    final List<String> testNames = new ArrayList<>();
+    TestNames testNames = testNamesByAnnotation.get(testAnnotation);
+    if (null == testNames) {
+      testNames = new TestNames(testAnnotation);
+      final TestNames existing = testNamesByAnnotation.putIfAbsent(testAnnotation, testNames);
+      if (null != existing) {
+        testNames = existing;
+      }
+    }
+    return testNames.get(testClass);
+  }
+
+  private static final class SharedCiTags {
+    private final AgentTracer.TracerAPI tracer;
+    private final AgentSpan.SharedTagLayer tags;
+
+    private SharedCiTags(final AgentTracer.TracerAPI tracer, final AgentSpan.SharedTagLayer tags) {
+      this.tracer = tracer;
+      this.tags = tags;
+    }
+  }
+
+  /** Caches the test methods of each test class, which are otherwise looked up reflectively. */
+  private static final class TestNames extends ClassValue<List<String>> {
+    private final Class<? extends Annotation> testAnnotation;
+
+    private TestNames(final Class<? extends Annotation> testAnnotation) {
+      this.testAnnotation = testAnnotation;
+    }
+
+    @Override
+    protected List<String> computeValue(final Class<?> testClass) {
+      final List<String> testNames = new ArrayList<>();
 
-    final Method[] methods = testClass.getMethods();
-    for (final Method method : methods) {
-      if (method.getAnnotation(testAnnotation) != null) {
-        testNames.add(method.getName());
+      final Method[] methods = testClass.getMethods();
+      for (final Method method : methods) {
+        if (method.getAnnotation(testAnnotation) != null) {
+          testNames.add(method.getName());
+        }
       }
+      return Collections.unmodifiableList(testNames);
     }
-    return testNames;
   }
 }
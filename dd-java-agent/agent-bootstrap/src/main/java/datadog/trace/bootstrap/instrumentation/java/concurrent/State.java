@@ -1,6 +1,7 @@
 package datadog.trace.bootstrap.instrumentation.java.concurrent;
 
 import datadog.trace.bootstrap.ContextStore;
+import datadog.trace.bootstrap.instrumentation.api.AgentScope;
 import datadog.trace.context.TraceScope;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import lombok.extern.slf4j.Slf4j;
@@ -47,7 +48,9 @@ public final class State {
       // "double instruments" calls to ScheduledExecutorService.submit/schedule
       //
       // lazy write is guaranteed to be seen by getAndSet
-      CONTINUATION.lazySet(this, scope.capture());
+      CONTINUATION.lazySet(
+          this,
+          scope instanceof AgentScope ? ((AgentScope) scope).captureShared() : scope.capture());
       return true;
     }
     return false;
@@ -76,7 +79,7 @@ public final class State {
     if (null == continuation || CLAIMED == continuation) {
       return null;
     }
-    CONTINUATION.compareAndSet(this, continuation, null);
-    return continuation;
+    // only the thread resetting the state may activate or cancel the continuation
+    return CONTINUATION.compareAndSet(this, continuation, null) ? continuation : null;
   }
 }
@@ -1,9 +1,14 @@
 package datadog.trace.bootstrap.instrumentation.exceptions;
 
 import datadog.trace.api.Config;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Stream;
 import jdk.jfr.EventType;
 import jdk.jfr.FlightRecorder;
@@ -15,6 +20,10 @@ import lombok.extern.slf4j.Slf4j;
  * created since the last {@linkplain ExceptionHistogram#emit()} call (or creating a new {@linkplain
  * ExceptionHistogram} instance if {@linkplain ExceptionHistogram#emit()} hasn't been called yet).
  * <br>
+ * The per-type counters are attached to the exception classes via a {@linkplain ClassValue} so
+ * recording an exception does not require any lookup by type name. Only the types seen since the
+ * last emit are kept in the set of active counters which is bounded by the configured maximum
+ * collection size.<br>
  * An {@linkplain ExceptionHistogram} instance is registered with JFR to call {@linkplain
  * ExceptionHistogram#emit()} method at chunk end, as specified in {@linkplain ExceptionCountEvent}
  * class. This callback will then emit a number of {@linkplain ExceptionCountEvent} events.
@@ -24,7 +33,18 @@ public class ExceptionHistogram {
 
   static final String CLIPPED_ENTRY_TYPE_NAME = "TOO-MANY-EXCEPTIONS";
 
-  private final Map<String, AtomicLong> histogram = new ConcurrentHashMap<>();
+  private static final Comparator<Pair<String, Long>> BY_COUNT =
+      Comparator.comparingLong(Pair::getValue);
+
+  private final ClassValue<TypeCounter> counters =
+      new ClassValue<TypeCounter>() {
+        @Override
+        protected TypeCounter computeValue(final Class<?> type) {
+          return new TypeCounter(type.getName());
+        }
+      };
+  private final TypeCounter clippedCounter = new TypeCounter(CLIPPED_ENTRY_TYPE_NAME);
+  private final Set<TypeCounter> activeCounters = ConcurrentHashMap.newKeySet();
   private final int maxTopItems;
   private final int maxSize;
   private final EventType exceptionCountEventType;
@@ -54,27 +74,30 @@ public class ExceptionHistogram {
     if (exception == null) {
       return false;
     }
-    return record(exception.getClass().getName());
+    return record(exception.getClass());
   }
 
-  private boolean record(String typeName) {
+  private boolean record(final Class<?> type) {
     if (!exceptionCountEventType.isEnabled()) {
       return false;
     }
-    if (!histogram.containsKey(typeName) && histogram.size() >= maxSize) {
-      log.debug("Histogram is too big, skipping adding new entry: {}", typeName);
-      // Overwrite type name to limit total number of entries in the histogram
-      typeName = CLIPPED_ENTRY_TYPE_NAME;
+    TypeCounter counter = counters.get(type);
+    if (!counter.isActive() && activeCounters.size() >= maxSize) {
+      log.debug("Histogram is too big, skipping adding new entry: {}", counter.typeName);
+      // Use the shared counter to limit total number of entries in the histogram
+      counter = clippedCounter;
+    }
+    counter.increment();
+    if (counter.activate()) {
+      activeCounters.add(counter);
     }
-
-    long count = histogram.computeIfAbsent(typeName, k -> new AtomicLong()).getAndIncrement();
 
     /*
      * This is supposed to signal that a particular exception type was seen the first time in a particular time span.
      * !ATTENTION! This will work on best-effort basis - namely all overflowing exception which are recorded
      * as 'TOO-MANY-EXCEPTIONS' will receive only one common 'first hit'.
      */
-    return count == 0;
+    return counter.hit();
   }
 
   private void emit() {
@@ -86,23 +109,46 @@ public class ExceptionHistogram {
   }
 
   void doEmit() {
-    Stream<Pair<String, Long>> items =
-        histogram.entrySet().stream()
-            .map(e -> Pair.of(e.getKey(), e.getValue().getAndSet(0)))
-            .filter(p -> p.getValue() != 0)
-            .sorted((l1, l2) -> Long.compare(l2.getValue(), l1.getValue()));
-
-    if (maxTopItems > 0) {
-      items = items.limit(maxTopItems);
+    // keep only the top items in a min-heap instead of sorting all the collected types
+    final PriorityQueue<Pair<String, Long>> top =
+        new PriorityQueue<>(maxTopItems > 0 ? maxTopItems + 1 : 16, BY_COUNT);
+    for (final TypeCounter counter : activeCounters) {
+      final long count = counter.reset();
+      if (count == 0) {
+        // nothing recorded since the counter was activated and reset by the previous emit
+        continue;
+      }
+      if (maxTopItems <= 0 || top.size() < maxTopItems) {
+        top.offer(Pair.of(counter.typeName, count));
+      } else if (top.peek().getValue() < count) {
+        top.poll();
+        top.offer(Pair.of(counter.typeName, count));
+      }
     }
 
-    emitEvents(items);
+    final List<Pair<String, Long>> items = new ArrayList<>(top);
+    items.sort(BY_COUNT.reversed());
+    emitEvents(items.stream());
 
-    // Stream is 'materialized' by `forEach` call above so we have to do clean up after that
+    // Do the clean up only after the events were emitted
     // Otherwise we would keep entries for one extra iteration
-    histogram.entrySet().removeIf(e -> e.getValue().get() == 0L);
+    for (final TypeCounter counter : activeCounters) {
+      if (!counter.hasCounts()) {
+        // remove before deactivating, a record in between finds the counter still active
+        activeCounters.remove(counter);
+        counterRemoved(counter.typeName);
+        counter.deactivate();
+        // an exception could have been recorded while the counter was being removed
+        if (counter.hasCounts() && counter.activate()) {
+          activeCounters.add(counter);
+        }
+      }
+    }
   }
 
+  // important that this is non-final and package private; allows concurrency tests
+  void counterRemoved(final String typeName) {}
+
   // important that this is non-final and package private; allows concurrency tests
   void emitEvents(Stream<Pair<String, Long>> items) {
     items.forEach(e -> createAndCommitEvent(e.getKey(), e.getValue()));
@@ -115,6 +161,53 @@ public class ExceptionHistogram {
     }
   }
 
+  private static final class TypeCounter {
+    private static final AtomicIntegerFieldUpdater<TypeCounter> ACTIVE =
+        AtomicIntegerFieldUpdater.newUpdater(TypeCounter.class, "active");
+    private static final AtomicIntegerFieldUpdater<TypeCounter> HIT =
+        AtomicIntegerFieldUpdater.newUpdater(TypeCounter.class, "hit");
+
+    private final String typeName;
+    private final LongAdder count = new LongAdder();
+    private volatile int active = 0;
+    private volatile int hit = 0;
+
+    private TypeCounter(final String typeName) {
+      this.typeName = typeName;
+    }
+
+    void increment() {
+      count.increment();
+    }
+
+    boolean isActive() {
+      return active != 0;
+    }
+
+    /** @return {@literal true} if the caller is responsible for registering this counter */
+    boolean activate() {
+      return active == 0 && ACTIVE.compareAndSet(this, 0, 1);
+    }
+
+    /** @return {@literal true} only for the first hit since the last reset */
+    boolean hit() {
+      return hit == 0 && HIT.compareAndSet(this, 0, 1);
+    }
+
+    long reset() {
+      hit = 0;
+      return count.sumThenReset();
+    }
+
+    boolean hasCounts() {
+      return count.sum() != 0;
+    }
+
+    void deactivate() {
+      active = 0;
+    }
+  }
+
   static class Pair<K, V> {
 
     final K key;
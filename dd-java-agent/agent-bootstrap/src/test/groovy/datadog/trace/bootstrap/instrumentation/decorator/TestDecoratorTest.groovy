@@ -23,9 +23,7 @@ class TestDecoratorTest extends BaseDecoratorTest {
     1 * span.setTag(Tags.TEST_FRAMEWORK, decorator.testFramework())
     1 * span.setTag(Tags.TEST_TYPE, decorator.testType())
     1 * span.setSamplingPriority(PrioritySampling.SAMPLER_KEEP)
-    decorator.ciTags.each {
-      1 * span.setTag(it.key, it.value)
-    }
+    1 * span.addSharedTags(_)
     _ * span.setTag(_, _) // Want to allow other calls from child implementations.
     _ * span.setServiceName(_)
     _ * span.setOperationName(_)
@@ -35,6 +33,26 @@ class TestDecoratorTest extends BaseDecoratorTest {
     serviceName << ["test-service", "other-service", null]
   }
 
+  def "the ci tags are shared between test spans instead of set on each"() {
+    setup:
+    def decorator = newDecorator()
+    def otherSpan = Mock(AgentSpan)
+    def shared = []
+
+    when:
+    decorator.afterStart(span)
+    decorator.afterStart(otherSpan)
+
+    then:
+    1 * span.addSharedTags(_) >> { AgentSpan.SharedTagLayer tags -> shared << tags; span }
+    1 * otherSpan.addSharedTags(_) >> { AgentSpan.SharedTagLayer tags -> shared << tags; otherSpan }
+    0 * span.setTag("sample-ci-key", _)
+    0 * otherSpan.setTag("sample-ci-key", _)
+    shared.size() == 2
+    shared[0] != null
+    shared[0].is(shared[1])
+  }
+
   def "test beforeFinish"() {
     when:
     newDecorator().beforeFinish(span)
@@ -43,6 +61,26 @@ class TestDecoratorTest extends BaseDecoratorTest {
     0 * _
   }
 
+  def "test names are looked up once per class"() {
+    setup:
+    def decorator = newDecorator()
+
+    when:
+    def testNames = decorator.testNames(SampleTests, Deprecated)
+
+    then:
+    testNames == ["annotated"]
+    decorator.testNames(SampleTests, Deprecated).is(testNames)
+    decorator.testNames(SampleTests, Override).isEmpty()
+  }
+
+  static class SampleTests {
+    @Deprecated
+    void annotated() {}
+
+    void notAnnotated() {}
+  }
+
   @Override
   def newDecorator() {
     return new TestDecorator(newMockCiInfo()) {
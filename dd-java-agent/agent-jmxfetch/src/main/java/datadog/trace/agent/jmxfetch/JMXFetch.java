@@ -26,6 +26,11 @@ public class JMXFetch {
 
   public static final List<String> DEFAULT_CONFIGS =
       Collections.singletonList("jmxfetch-config.yaml");
+  /** Used when the default JVM metrics are collected by {@link RuntimeMetrics}. */
+  public static final List<String> CUSTOM_ONLY_CONFIGS =
+      Collections.singletonList("jmxfetch-custom-config.yaml");
+
+  private static final int DEFAULT_CHECK_PERIOD = 15000;
 
   private static final int SLEEP_AFTER_JMXFETCH_EXITS = 5000;
 
@@ -56,6 +61,16 @@ public class JMXFetch {
     final Integer refreshBeansPeriod = config.getJmxFetchRefreshBeansPeriod();
     final Map<String, String> globalTags = config.getMergedJmxTags();
     final String reporter = getReporter(config);
+    final boolean runtimeMetricsInProcess = startRuntimeMetrics(config, globalTags);
+
+    if (runtimeMetricsInProcess
+        && jmxFetchConfigDir == null
+        && isEmpty(jmxFetchConfigs)
+        && internalMetricsConfigs.isEmpty()
+        && isEmpty(metricsConfigs)) {
+      log.debug("No custom JMX metrics configured, not starting JMXFetch");
+      return;
+    }
 
     if (log.isDebugEnabled()) {
       log.debug(
@@ -79,7 +94,8 @@ public class JMXFetch {
             .confdDirectory(jmxFetchConfigDir)
             .yamlFileList(jmxFetchConfigs)
             .targetDirectInstances(true)
-            .instanceConfigResources(DEFAULT_CONFIGS)
+            .instanceConfigResources(
+                runtimeMetricsInProcess ? CUSTOM_ONLY_CONFIGS : DEFAULT_CONFIGS)
             .metricConfigResources(internalMetricsConfigs)
             .metricConfigFiles(metricsConfigs)
             .refreshBeansPeriod(refreshBeansPeriod)
@@ -124,10 +140,7 @@ public class JMXFetch {
       return "console";
     }
 
-    String host =
-        config.getJmxFetchStatsdHost() == null
-            ? config.getAgentHost()
-            : config.getJmxFetchStatsdHost();
+    String host = getStatsdHost(config);
     int port = config.getJmxFetchStatsdPort();
 
     if (host.startsWith(UNIX_DOMAIN_SOCKET_PREFIX)) {
@@ -138,6 +151,36 @@ public class JMXFetch {
     return "statsd:" + host + ":" + port;
   }
 
+  private static String getStatsdHost(final Config config) {
+    return config.getJmxFetchStatsdHost() == null
+        ? config.getAgentHost()
+        : config.getJmxFetchStatsdHost();
+  }
+
+  /** @return true if the default JVM metrics are collected in-process rather than by JMXFetch */
+  private static boolean startRuntimeMetrics(
+      final Config config, final Map<String, String> globalTags) {
+    if (!config.isRuntimeMetricsNativeEnabled()) {
+      return false;
+    }
+    final String host = getStatsdHost(config);
+    if (WriterConstants.LOGGING_WRITER_TYPE.equals(config.getWriterType())
+        || host.startsWith(UNIX_DOMAIN_SOCKET_PREFIX)) {
+      log.debug("Runtime metrics can only be sent over UDP, using JMXFetch instead");
+      return false;
+    }
+    final Integer checkPeriod = config.getJmxFetchCheckPeriod();
+    return RuntimeMetrics.start(
+        host,
+        config.getJmxFetchStatsdPort(),
+        globalTags,
+        checkPeriod != null ? checkPeriod : DEFAULT_CHECK_PERIOD);
+  }
+
+  private static boolean isEmpty(final List<String> list) {
+    return list == null || list.isEmpty();
+  }
+
   private static List<String> getInternalMetricFiles() {
     try (final InputStream metricConfigsStream =
         JMXFetch.class.getResourceAsStream("metricconfigs.txt")) {
@@ -0,0 +1,246 @@
+package datadog.trace.agent.jmxfetch;
+
+import static datadog.trace.agent.jmxfetch.StatsDDatagramWriter.metricName;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import datadog.trace.util.AgentTaskScheduler;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Collects the default JVM metrics directly from the platform MXBeans, instead of having JMXFetch
+ * poll their attributes through the MBeanServer. The metric names are those of the default JMXFetch
+ * JVM metrics, with the GC counters reported as per second rates like JMXFetch does. The aliases
+ * {@code jvm.gc.cms.count} and {@code jvm.gc.parnew.time} of single collectors are not reported,
+ * the major and minor collection metrics cover all the collectors.
+ */
+@Slf4j
+final class RuntimeMetrics implements Runnable {
+
+  private static final byte[] HEAP_USED = metricName("jvm.heap_memory");
+  private static final byte[] HEAP_COMMITTED = metricName("jvm.heap_memory_committed");
+  private static final byte[] HEAP_INIT = metricName("jvm.heap_memory_init");
+  private static final byte[] HEAP_MAX = metricName("jvm.heap_memory_max");
+  private static final byte[] NON_HEAP_USED = metricName("jvm.non_heap_memory");
+  private static final byte[] NON_HEAP_COMMITTED = metricName("jvm.non_heap_memory_committed");
+  private static final byte[] NON_HEAP_INIT = metricName("jvm.non_heap_memory_init");
+  private static final byte[] NON_HEAP_MAX = metricName("jvm.non_heap_memory_max");
+  private static final byte[] THREAD_COUNT = metricName("jvm.thread_count");
+  private static final byte[] MINOR_GC_COUNT = metricName("jvm.gc.minor_collection_count");
+  private static final byte[] MINOR_GC_TIME = metricName("jvm.gc.minor_collection_time");
+  private static final byte[] MAJOR_GC_COUNT = metricName("jvm.gc.major_collection_count");
+  private static final byte[] MAJOR_GC_TIME = metricName("jvm.gc.major_collection_time");
+  private static final byte[] OPEN_FILE_DESCRIPTORS = metricName("jvm.os.open_file_descriptors");
+  private static final byte[] SYSTEM_CPU_LOAD = metricName("jvm.cpu_load.system");
+  private static final byte[] PROCESS_CPU_LOAD = metricName("jvm.cpu_load.process");
+
+  private final StatsDDatagramWriter writer;
+  private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+  private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+  private final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+  private final List<GarbageCollectorMXBean> minorCollectors = new ArrayList<>();
+  private final List<GarbageCollectorMXBean> majorCollectors = new ArrayList<>();
+  private final List<MemoryPoolMXBean> pools = new ArrayList<>();
+  private final List<byte[]> poolNames = new ArrayList<>();
+  private final List<BufferPoolMXBean> bufferPools;
+  private final byte[][] bufferPoolNames;
+
+  private long lastCollection;
+  private long minorCount;
+  private long minorTime;
+  private long majorCount;
+  private long majorTime;
+
+  /**
+   * Starts collecting the runtime metrics every {@code periodMillis}.
+   *
+   * @return false if the metrics could not be set up, so JMXFetch should collect them instead
+   */
+  static boolean start(
+      final String host, final int port, final Map<String, String> tags, final long periodMillis) {
+    try {
+      final RuntimeMetrics runtimeMetrics =
+          new RuntimeMetrics(new StatsDDatagramWriter(new InetSocketAddress(host, port), tags));
+      AgentTaskScheduler.INSTANCE.scheduleAtFixedRate(
+          AgentTaskScheduler.RunnableTask.INSTANCE,
+          runtimeMetrics,
+          periodMillis,
+          periodMillis,
+          MILLISECONDS);
+      return true;
+    } catch (final Throwable e) {
+      log.debug("Failed to set up runtime metrics, falling back to JMXFetch", e);
+      return false;
+    }
+  }
+
+  RuntimeMetrics(final StatsDDatagramWriter writer) {
+    this.writer = writer;
+    for (final GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+      if (isMinorCollector(collector.getName())) {
+        minorCollectors.add(collector);
+      } else {
+        majorCollectors.add(collector);
+      }
+    }
+    for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      final String metric = poolMetric(pool.getName());
+      if (null != metric) {
+        pools.add(pool);
+        poolNames.add(metricName(metric));
+      }
+    }
+    bufferPools = new ArrayList<>();
+    for (final BufferPoolMXBean bufferPool :
+        ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+      if ("direct".equals(bufferPool.getName()) || "mapped".equals(bufferPool.getName())) {
+        bufferPools.add(bufferPool);
+      }
+    }
+    bufferPoolNames = new byte[bufferPools.size() * 3][];
+    for (int i = 0; i < bufferPools.size(); i++) {
+      final String prefix = "jvm.buffer_pool." + bufferPools.get(i).getName() + '.';
+      bufferPoolNames[i * 3] = metricName(prefix + "count");
+      bufferPoolNames[i * 3 + 1] = metricName(prefix + "used");
+      bufferPoolNames[i * 3 + 2] = metricName(prefix + "capacity");
+    }
+    lastCollection = System.currentTimeMillis();
+    minorCount = totalCount(minorCollectors);
+    minorTime = totalTime(minorCollectors);
+    majorCount = totalCount(majorCollectors);
+    majorTime = totalTime(majorCollectors);
+  }
+
+  @Override
+  public void run() {
+    try {
+      collect();
+    } catch (final Throwable e) {
+      log.debug("Failed to collect runtime metrics", e);
+    }
+  }
+
+  void collect() {
+    final MemoryUsage heap = memory.getHeapMemoryUsage();
+    writer.gauge(HEAP_USED, heap.getUsed());
+    writer.gauge(HEAP_COMMITTED, heap.getCommitted());
+    writer.gauge(HEAP_INIT, heap.getInit());
+    writer.gauge(HEAP_MAX, heap.getMax());
+    final MemoryUsage nonHeap = memory.getNonHeapMemoryUsage();
+    writer.gauge(NON_HEAP_USED, nonHeap.getUsed());
+    writer.gauge(NON_HEAP_COMMITTED, nonHeap.getCommitted());
+    writer.gauge(NON_HEAP_INIT, nonHeap.getInit());
+    writer.gauge(NON_HEAP_MAX, nonHeap.getMax());
+    writer.gauge(THREAD_COUNT, threads.getThreadCount());
+    collectOperatingSystem();
+
+    for (int i = 0; i < pools.size(); i++) {
+      final MemoryUsage usage = pools.get(i).getUsage();
+      if (null != usage) {
+        writer.gauge(poolNames.get(i), usage.getUsed());
+      }
+    }
+    for (int i = 0; i < bufferPools.size(); i++) {
+      final BufferPoolMXBean bufferPool = bufferPools.get(i);
+      writer.gauge(bufferPoolNames[i * 3], bufferPool.getCount());
+      writer.gauge(bufferPoolNames[i * 3 + 1], bufferPool.getMemoryUsed());
+      writer.gauge(bufferPoolNames[i * 3 + 2], bufferPool.getTotalCapacity());
+    }
+
+    final long now = System.currentTimeMillis();
+    final double elapsedSeconds = Math.max(1, now - lastCollection) / 1000D;
+    lastCollection = now;
+    final long minorCount = totalCount(minorCollectors);
+    final long minorTime = totalTime(minorCollectors);
+    final long majorCount = totalCount(majorCollectors);
+    final long majorTime = totalTime(majorCollectors);
+    writer.gauge(MINOR_GC_COUNT, (minorCount - this.minorCount) / elapsedSeconds);
+    writer.gauge(MINOR_GC_TIME, (minorTime - this.minorTime) / elapsedSeconds);
+    writer.gauge(MAJOR_GC_COUNT, (majorCount - this.majorCount) / elapsedSeconds);
+    writer.gauge(MAJOR_GC_TIME, (majorTime - this.majorTime) / elapsedSeconds);
+    this.minorCount = minorCount;
+    this.minorTime = minorTime;
+    this.majorCount = majorCount;
+    this.majorTime = majorTime;
+
+    writer.flush();
+  }
+
+  private void collectOperatingSystem() {
+    // these attributes are only available from the HotSpot and OpenJ9 extensions
+    if (os instanceof com.sun.management.UnixOperatingSystemMXBean) {
+      writer.gauge(
+          OPEN_FILE_DESCRIPTORS,
+          ((com.sun.management.UnixOperatingSystemMXBean) os).getOpenFileDescriptorCount());
+    }
+    if (os instanceof com.sun.management.OperatingSystemMXBean) {
+      final com.sun.management.OperatingSystemMXBean sunOs =
+          (com.sun.management.OperatingSystemMXBean) os;
+      // negative until the load has been sampled
+      final double systemCpuLoad = sunOs.getSystemCpuLoad();
+      if (systemCpuLoad >= 0) {
+        writer.gauge(SYSTEM_CPU_LOAD, systemCpuLoad);
+      }
+      final double processCpuLoad = sunOs.getProcessCpuLoad();
+      if (processCpuLoad >= 0) {
+        writer.gauge(PROCESS_CPU_LOAD, processCpuLoad);
+      }
+    }
+  }
+
+  private static long totalCount(final List<GarbageCollectorMXBean> collectors) {
+    long total = 0;
+    for (final GarbageCollectorMXBean collector : collectors) {
+      total += Math.max(0, collector.getCollectionCount());
+    }
+    return total;
+  }
+
+  private static long totalTime(final List<GarbageCollectorMXBean> collectors) {
+    long total = 0;
+    for (final GarbageCollectorMXBean collector : collectors) {
+      total += Math.max(0, collector.getCollectionTime());
+    }
+    return total;
+  }
+
+  static boolean isMinorCollector(final String name) {
+    switch (name) {
+      case "Copy":
+      case "PS Scavenge":
+      case "ParNew":
+      case "G1 Young Generation":
+      case "Shenandoah Pauses":
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  static String poolMetric(final String poolName) {
+    if (poolName.contains("Eden")) {
+      return "jvm.gc.eden_size";
+    }
+    if (poolName.contains("Survivor")) {
+      return "jvm.gc.survivor_size";
+    }
+    if (poolName.contains("Old Gen") || poolName.contains("Tenured")) {
+      return "jvm.gc.old_gen_size";
+    }
+    if (poolName.equals("Metaspace")) {
+      return "jvm.gc.metaspace_size";
+    }
+    return null;
+  }
+}
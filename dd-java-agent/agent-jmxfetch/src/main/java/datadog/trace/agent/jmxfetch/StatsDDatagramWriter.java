@@ -0,0 +1,102 @@
+package datadog.trace.agent.jmxfetch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes StatsD gauges made of a pre-encoded metric name and a shared pre-encoded tag suffix,
+ * packing as many lines as fit into each datagram. Nothing is sent until a datagram is full or
+ * {@link #flush()} is called.
+ */
+@Slf4j
+final class StatsDDatagramWriter implements Closeable {
+  // the default packet size of the DogStatsD client for UDP
+  static final int MAX_PACKET_SIZE = 1432;
+
+  private final DatagramChannel channel;
+  private final ByteBuffer packet = ByteBuffer.allocate(MAX_PACKET_SIZE);
+  private final byte[] gaugeSuffix;
+  private final byte[] digits = new byte[20];
+
+  StatsDDatagramWriter(final InetSocketAddress address, final Map<String, String> tags)
+      throws IOException {
+    this.channel = DatagramChannel.open();
+    this.channel.connect(address);
+    this.gaugeSuffix = gaugeSuffix(tags);
+  }
+
+  /** @return the pre-encoded {@code name:} prefix of a metric line */
+  static byte[] metricName(final String name) {
+    return (name + ':').getBytes(StandardCharsets.UTF_8);
+  }
+
+  void gauge(final byte[] metricName, final long value) {
+    int pos = digits.length;
+    // negative values are formatted without negating them, which would overflow Long.MIN_VALUE
+    long remaining = value;
+    do {
+      digits[--pos] = (byte) ('0' + Math.abs(remaining % 10));
+      remaining /= 10;
+    } while (remaining != 0);
+    if (value < 0) {
+      digits[--pos] = '-';
+    }
+    reserve(metricName.length + digits.length - pos + gaugeSuffix.length);
+    packet.put(metricName).put(digits, pos, digits.length - pos).put(gaugeSuffix);
+  }
+
+  void gauge(final byte[] metricName, final double value) {
+    final byte[] formatted = Double.toString(value).getBytes(StandardCharsets.US_ASCII);
+    reserve(metricName.length + formatted.length + gaugeSuffix.length);
+    packet.put(metricName).put(formatted).put(gaugeSuffix);
+  }
+
+  void flush() {
+    if (packet.position() == 0) {
+      return;
+    }
+    packet.flip();
+    try {
+      channel.write(packet);
+    } catch (final IOException e) {
+      // the agent might not be listening yet, metrics are only best effort
+      log.debug("Failed to send runtime metrics", e);
+    }
+    packet.clear();
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  private void reserve(final int lineLength) {
+    if (packet.remaining() < lineLength) {
+      flush();
+    }
+  }
+
+  private static byte[] gaugeSuffix(final Map<String, String> tags) {
+    final StringBuilder suffix = new StringBuilder("|g");
+    final Iterator<Map.Entry<String, String>> it = tags.entrySet().iterator();
+    if (it.hasNext()) {
+      suffix.append("|#");
+      while (it.hasNext()) {
+        final Map.Entry<String, String> tag = it.next();
+        suffix.append(tag.getKey()).append(':').append(tag.getValue());
+        if (it.hasNext()) {
+          suffix.append(',');
+        }
+      }
+    }
+    suffix.append('\n');
+    return suffix.toString().getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,107 @@
+package datadog.trace.agent.jmxfetch
+
+import spock.lang.Specification
+
+class RuntimeMetricsTest extends Specification {
+
+  def agent = new DatagramSocket(0, InetAddress.getLoopbackAddress())
+
+  def setup() {
+    agent.setSoTimeout(5000)
+  }
+
+  def cleanup() {
+    agent.close()
+  }
+
+  def "collects the default JVM metrics"() {
+    setup:
+    def writer = new StatsDDatagramWriter(new InetSocketAddress(agent.getLocalAddress(), agent.getLocalPort()), ["env": "test"])
+    def runtimeMetrics = new RuntimeMetrics(writer)
+
+    when:
+    runtimeMetrics.collect()
+    def lines = receiveLines()
+
+    then:
+    lines.every { it.endsWith("|g|#env:test") }
+    def names = lines.collect { it.substring(0, it.indexOf(':')) }
+    names.containsAll([
+      "jvm.heap_memory",
+      "jvm.heap_memory_committed",
+      "jvm.heap_memory_init",
+      "jvm.heap_memory_max",
+      "jvm.non_heap_memory",
+      "jvm.non_heap_memory_committed",
+      "jvm.non_heap_memory_init",
+      "jvm.non_heap_memory_max",
+      "jvm.thread_count",
+      "jvm.gc.minor_collection_count",
+      "jvm.gc.minor_collection_time",
+      "jvm.gc.major_collection_count",
+      "jvm.gc.major_collection_time",
+      "jvm.buffer_pool.direct.count",
+      "jvm.buffer_pool.direct.used",
+      "jvm.buffer_pool.direct.capacity",
+      "jvm.buffer_pool.mapped.count",
+      "jvm.buffer_pool.mapped.used",
+      "jvm.buffer_pool.mapped.capacity"
+    ])
+    if (System.getProperty("os.name").toLowerCase().contains("linux")) {
+      assert names.contains("jvm.os.open_file_descriptors")
+    }
+    names.toSet().size() == names.size()
+
+    cleanup:
+    writer.close()
+  }
+
+  def "#collector is a minor collector: #minor"() {
+    expect:
+    RuntimeMetrics.isMinorCollector(collector) == minor
+
+    where:
+    collector                | minor
+    "Copy"                   | true
+    "PS Scavenge"            | true
+    "ParNew"                 | true
+    "G1 Young Generation"    | true
+    "Shenandoah Pauses"      | true
+    "MarkSweepCompact"       | false
+    "PS MarkSweep"           | false
+    "ConcurrentMarkSweep"    | false
+    "G1 Old Generation"      | false
+    "Shenandoah Cycles"      | false
+  }
+
+  def "memory pool #pool is reported as #metric"() {
+    expect:
+    RuntimeMetrics.poolMetric(pool) == metric
+
+    where:
+    pool                     | metric
+    "PS Eden Space"          | "jvm.gc.eden_size"
+    "G1 Eden Space"          | "jvm.gc.eden_size"
+    "PS Survivor Space"      | "jvm.gc.survivor_size"
+    "PS Old Gen"             | "jvm.gc.old_gen_size"
+    "Tenured Gen"            | "jvm.gc.old_gen_size"
+    "Metaspace"              | "jvm.gc.metaspace_size"
+    "Code Cache"             | null
+    "Compressed Class Space" | null
+  }
+
+  def receiveLines() {
+    def lines = []
+    agent.setSoTimeout(500)
+    try {
+      while (true) {
+        def packet = new DatagramPacket(new byte[StatsDDatagramWriter.MAX_PACKET_SIZE], StatsDDatagramWriter.MAX_PACKET_SIZE)
+        agent.receive(packet)
+        lines.addAll(new String(packet.getData(), 0, packet.getLength(), "UTF-8").readLines())
+      }
+    } catch (SocketTimeoutException ignored) {
+      // all the datagrams of the collection were received
+    }
+    return lines
+  }
+}
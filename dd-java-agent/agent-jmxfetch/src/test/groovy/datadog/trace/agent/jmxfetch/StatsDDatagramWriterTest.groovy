@@ -0,0 +1,100 @@
+package datadog.trace.agent.jmxfetch
+
+import spock.lang.Specification
+
+import static datadog.trace.agent.jmxfetch.StatsDDatagramWriter.MAX_PACKET_SIZE
+import static datadog.trace.agent.jmxfetch.StatsDDatagramWriter.metricName
+
+class StatsDDatagramWriterTest extends Specification {
+
+  def agent = new DatagramSocket(0, InetAddress.getLoopbackAddress())
+
+  def setup() {
+    agent.setSoTimeout(5000)
+  }
+
+  def cleanup() {
+    agent.close()
+  }
+
+  def "writes gauges with the constant tags"() {
+    setup:
+    def writer = newWriter(["service": "foo", "env": "bar"])
+
+    when:
+    writer.gauge(metricName("jvm.long"), 42L)
+    writer.gauge(metricName("jvm.double"), 0.5D)
+    writer.flush()
+
+    then:
+    receive() == "jvm.long:42|g|#service:foo,env:bar\njvm.double:0.5|g|#service:foo,env:bar\n"
+
+    cleanup:
+    writer.close()
+  }
+
+  def "formats #value"() {
+    setup:
+    def writer = newWriter([:])
+
+    when:
+    writer.gauge(metricName("value"), value)
+    writer.flush()
+
+    then:
+    receive() == "value:" + Long.toString(value) + "|g\n"
+
+    cleanup:
+    writer.close()
+
+    where:
+    value << [0L, 7L, -1L, -120L, 1234567890L, Long.MAX_VALUE, Long.MIN_VALUE]
+  }
+
+  def "sends a datagram when the next line does not fit"() {
+    setup:
+    def writer = newWriter(["service": "foo"])
+    def name = metricName("jvm.metric_with_a_long_name")
+    def line = "jvm.metric_with_a_long_name:1234567890|g|#service:foo\n"
+    int linesPerPacket = MAX_PACKET_SIZE.intdiv(line.length())
+
+    when:
+    (linesPerPacket + 1).times { writer.gauge(name, 1234567890L) }
+    def first = receive()
+    writer.flush()
+    def second = receive()
+
+    then:
+    first == line * linesPerPacket
+    second == line
+
+    cleanup:
+    writer.close()
+  }
+
+  def "does not send empty datagrams"() {
+    setup:
+    def writer = newWriter([:])
+
+    when:
+    writer.flush()
+    writer.gauge(metricName("value"), 1L)
+    writer.flush()
+
+    then:
+    receive() == "value:1|g\n"
+
+    cleanup:
+    writer.close()
+  }
+
+  def newWriter(Map<String, String> tags) {
+    return new StatsDDatagramWriter(new InetSocketAddress(agent.getLocalAddress(), agent.getLocalPort()), new LinkedHashMap<>(tags))
+  }
+
+  def receive() {
+    def packet = new DatagramPacket(new byte[MAX_PACKET_SIZE], MAX_PACKET_SIZE)
+    agent.receive(packet)
+    return new String(packet.getData(), 0, packet.getLength(), "UTF-8")
+  }
+}
@@ -0,0 +1,175 @@
+package datadog.trace.logging.simplelogger;
+
+import static datadog.trace.util.AgentThreadFactory.AgentThread.LOG_WRITER;
+import static datadog.trace.util.AgentThreadFactory.newAgentThread;
+
+import datadog.trace.logging.LogLevel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves the formatting and writing of log messages off the logging threads.
+ *
+ * <p>Messages are handed to a dedicated writer thread through a bounded queue. When the queue is
+ * full the message is dropped rather than blocking the logging thread, and the number of dropped
+ * messages is reported once the writer catches up. Identical messages logged in a row within the
+ * suppression interval are only counted and reported as a single line.
+ */
+final class AsyncLogWriter implements Runnable {
+
+  private final BlockingQueue<Entry> queue;
+  private final long suppressionIntervalMillis;
+  private final AtomicLong dropped = new AtomicLong();
+
+  // only accessed while holding the lock on this writer
+  private Entry lastWritten;
+  private int suppressed;
+
+  AsyncLogWriter(int queueSize, long suppressionIntervalMillis) {
+    this.queue = new ArrayBlockingQueue<>(Math.max(1, queueSize));
+    this.suppressionIntervalMillis = suppressionIntervalMillis;
+  }
+
+  AsyncLogWriter start() {
+    newAgentThread(LOG_WRITER, this).start();
+    try {
+      Runtime.getRuntime()
+          .addShutdownHook(
+              new Thread() {
+                @Override
+                public void run() {
+                  flush();
+                }
+              });
+    } catch (IllegalStateException | SecurityException e) {
+      // the remaining messages might get lost on shutdown
+    }
+    return this;
+  }
+
+  void enqueue(
+      SLCompatHelper helper,
+      LogLevel level,
+      long startTimeMillis,
+      long timeMillis,
+      String threadName,
+      String message,
+      Throwable t) {
+    if (!queue.offer(
+        new Entry(helper, level, startTimeMillis, timeMillis, threadName, message, t))) {
+      dropped.incrementAndGet();
+    }
+  }
+
+  @Override
+  public void run() {
+    while (!Thread.currentThread().isInterrupted()) {
+      try {
+        Entry entry = queue.take();
+        synchronized (this) {
+          write(entry);
+          drain();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (Throwable t) {
+        // never let a failing write kill the writer thread
+      }
+    }
+  }
+
+  /** Writes all the pending messages on the calling thread. */
+  synchronized void flush() {
+    drain();
+    if (null != lastWritten) {
+      writeSuppressed(lastWritten);
+    }
+  }
+
+  private void drain() {
+    Entry entry;
+    while ((entry = queue.poll()) != null) {
+      write(entry);
+    }
+  }
+
+  private void write(Entry entry) {
+    long dropped = this.dropped.getAndSet(0);
+    if (null != lastWritten) {
+      if (lastWritten.isRepeatedBy(entry)
+          && entry.timeMillis - lastWritten.timeMillis < suppressionIntervalMillis) {
+        suppressed++;
+        reportDropped(entry, dropped);
+        return;
+      }
+      writeSuppressed(lastWritten);
+    }
+    reportDropped(entry, dropped);
+    entry.write();
+    lastWritten = entry;
+  }
+
+  private void writeSuppressed(Entry last) {
+    if (suppressed > 0) {
+      last.helper.print(
+          last.level,
+          last.startTimeMillis,
+          last.timeMillis,
+          last.threadName,
+          "Previous message repeated " + suppressed + " times",
+          null);
+      suppressed = 0;
+    }
+  }
+
+  private static void reportDropped(Entry entry, long dropped) {
+    if (dropped > 0) {
+      entry.helper.print(
+          LogLevel.WARN,
+          entry.startTimeMillis,
+          entry.timeMillis,
+          entry.threadName,
+          dropped + " log messages were dropped because the log queue was full",
+          null);
+    }
+  }
+
+  private static final class Entry {
+    final SLCompatHelper helper;
+    final LogLevel level;
+    final long startTimeMillis;
+    final long timeMillis;
+    final String threadName;
+    final String message;
+    final Throwable t;
+
+    Entry(
+        SLCompatHelper helper,
+        LogLevel level,
+        long startTimeMillis,
+        long timeMillis,
+        String threadName,
+        String message,
+        Throwable t) {
+      this.helper = helper;
+      this.level = level;
+      this.startTimeMillis = startTimeMillis;
+      this.timeMillis = timeMillis;
+      this.threadName = threadName;
+      this.message = message;
+      this.t = t;
+    }
+
+    boolean isRepeatedBy(Entry next) {
+      return helper == next.helper
+          && level == next.level
+          && (null == t) == (null == next.t)
+          && (null == message ? null == next.message : message.equals(next.message));
+    }
+
+    void write() {
+      helper.print(level, startTimeMillis, timeMillis, threadName, message, t);
+    }
+  }
+}
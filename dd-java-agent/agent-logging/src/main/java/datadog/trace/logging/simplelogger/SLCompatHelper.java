@@ -31,7 +31,8 @@ class SLCompatHelper extends LoggerHelper {
   @Override
   public void log(LogLevel level, String message, Throwable t) {
     long timeMillis = Integer.MIN_VALUE;
-    if (settings.showDateTime) {
+    // the async writer also needs the time to suppress repeated messages
+    if (settings.showDateTime || settings.asyncWriter != null) {
       timeMillis = System.currentTimeMillis();
     }
     log(level, SLCompatFactory.START_TIME, timeMillis, message, t);
@@ -52,6 +53,21 @@ class SLCompatHelper extends LoggerHelper {
       String threadName,
       String message,
       Throwable t) {
+    if (settings.asyncWriter != null) {
+      settings.asyncWriter.enqueue(
+          this, level, startTimeMillis, timeMillis, threadName, message, t);
+    } else {
+      print(level, startTimeMillis, timeMillis, threadName, message, t);
+    }
+  }
+
+  void print(
+      LogLevel level,
+      long startTimeMillis,
+      long timeMillis,
+      String threadName,
+      String message,
+      Throwable t) {
     StringBuilder buf = new StringBuilder(32);
 
     if (timeMillis >= 0 && settings.showDateTime) {
@@ -32,6 +32,9 @@ public class SLCompatSettings {
     public static final String DEFAULT_LOG_LEVEL = "defaultLogLevel";
     public static final String EMBED_EXCEPTION = "embedException";
     public static final String CONFIGURATION_FILE = "configurationFile";
+    public static final String ASYNC = "async";
+    public static final String ASYNC_QUEUE_SIZE = "asyncQueueSize";
+    public static final String DUPLICATE_SUPPRESSION_MILLIS = "duplicateSuppressionMillis";
   }
 
   public static final class Keys {
@@ -51,6 +54,11 @@ public class SLCompatSettings {
     public static final String SHOW_DATE_TIME = PREFIX + Names.SHOW_DATE_TIME;
     public static final String DEFAULT_LOG_LEVEL = PREFIX + Names.DEFAULT_LOG_LEVEL;
     public static final String EMBED_EXCEPTION = PREFIX + Names.EMBED_EXCEPTION;
+    // These are not available in SimpleLogger
+    public static final String ASYNC = PREFIX + Names.ASYNC;
+    public static final String ASYNC_QUEUE_SIZE = PREFIX + Names.ASYNC_QUEUE_SIZE;
+    public static final String DUPLICATE_SUPPRESSION_MILLIS =
+        PREFIX + Names.DUPLICATE_SUPPRESSION_MILLIS;
 
     // This is not available in SimpleLogger, but added here to simplify testing.
     static final String CONFIGURATION_FILE = PREFIX + Names.CONFIGURATION_FILE;
@@ -68,6 +76,9 @@ public class SLCompatSettings {
     public static final boolean SHOW_DATE_TIME = false;
     public static final String DEFAULT_LOG_LEVEL = "INFO";
     public static final boolean EMBED_EXCEPTION = false;
+    public static final boolean ASYNC = false;
+    public static final int ASYNC_QUEUE_SIZE = 1024;
+    public static final long DUPLICATE_SUPPRESSION_MILLIS = 1000;
 
     public static final String CONFIGURATION_FILE = "simplelogger.properties";
   }
@@ -100,20 +111,23 @@ public class SLCompatSettings {
   }
 
   public static class LegacyDTFormatter extends DTFormatter {
-    private final DateFormat dateFormat;
+    // SimpleDateFormat is not thread safe, so every thread formats with its own copy
+    private final ThreadLocal<DateFormat> dateFormat;
 
     public LegacyDTFormatter(String dateTimeFormat) {
-      this.dateFormat = new SimpleDateFormat(dateTimeFormat);
+      final DateFormat prototype = new SimpleDateFormat(dateTimeFormat);
+      this.dateFormat =
+          new ThreadLocal<DateFormat>() {
+            @Override
+            protected DateFormat initialValue() {
+              return (DateFormat) prototype.clone();
+            }
+          };
     }
 
     @Override
     public void appendFormattedDate(StringBuilder builder, long timeMillis, long startTimeMillis) {
-      Date date = new Date(timeMillis);
-      String dateString;
-      synchronized (dateFormat) {
-        dateString = dateFormat.format(date);
-      }
-      builder.append(dateString);
+      builder.append(dateFormat.get().format(new Date(timeMillis)));
     }
   }
 
@@ -244,6 +258,31 @@ public class SLCompatSettings {
     return property == null ? defaultValue : Boolean.parseBoolean(property);
   }
 
+  static long getLong(
+      Properties properties, Properties fallbackProperties, String name, long defaultValue) {
+    String property = getString(properties, fallbackProperties, name);
+    try {
+      return property == null ? defaultValue : Long.parseLong(property.trim());
+    } catch (NumberFormatException e) {
+      return defaultValue;
+    }
+  }
+
+  static AsyncLogWriter createAsyncWriter(Properties properties, Properties fileProperties) {
+    if (!getBoolean(properties, fileProperties, Keys.ASYNC, Defaults.ASYNC)) {
+      return null;
+    }
+    int queueSize =
+        (int) getLong(properties, fileProperties, Keys.ASYNC_QUEUE_SIZE, Defaults.ASYNC_QUEUE_SIZE);
+    long suppressionMillis =
+        getLong(
+            properties,
+            fileProperties,
+            Keys.DUPLICATE_SUPPRESSION_MILLIS,
+            Defaults.DUPLICATE_SUPPRESSION_MILLIS);
+    return new AsyncLogWriter(queueSize, suppressionMillis).start();
+  }
+
   private final Properties properties;
   private final Properties fileProperties;
 
@@ -258,6 +297,7 @@ public class SLCompatSettings {
   final boolean showDateTime;
   final LogLevel defaultLogLevel;
   final boolean embedException;
+  final AsyncLogWriter asyncWriter;
 
   public SLCompatSettings(Properties properties) {
     this(
@@ -292,7 +332,8 @@ public class SLCompatSettings {
         LogLevel.fromString(
             getString(
                 properties, fileProperties, Keys.DEFAULT_LOG_LEVEL, Defaults.DEFAULT_LOG_LEVEL)),
-        getBoolean(properties, fileProperties, Keys.EMBED_EXCEPTION, Defaults.EMBED_EXCEPTION));
+        getBoolean(properties, fileProperties, Keys.EMBED_EXCEPTION, Defaults.EMBED_EXCEPTION),
+        createAsyncWriter(properties, fileProperties));
   }
 
   public SLCompatSettings(
@@ -308,6 +349,36 @@ public class SLCompatSettings {
       boolean showDateTime,
       LogLevel defaultLogLevel,
       boolean embedException) {
+    this(
+        properties,
+        fileProperties,
+        warnLevelString,
+        levelInBrackets,
+        printStream,
+        showShortLogName,
+        showLogName,
+        showThreadName,
+        dateTimeFormatter,
+        showDateTime,
+        defaultLogLevel,
+        embedException,
+        null);
+  }
+
+  public SLCompatSettings(
+      Properties properties,
+      Properties fileProperties,
+      String warnLevelString,
+      boolean levelInBrackets,
+      PrintStream printStream,
+      boolean showShortLogName,
+      boolean showLogName,
+      boolean showThreadName,
+      DTFormatter dateTimeFormatter,
+      boolean showDateTime,
+      LogLevel defaultLogLevel,
+      boolean embedException,
+      AsyncLogWriter asyncWriter) {
     this.properties = properties;
     this.fileProperties = fileProperties;
     this.warnLevelString = warnLevelString;
@@ -320,6 +391,7 @@ public class SLCompatSettings {
     this.showDateTime = showDateTime;
     this.defaultLogLevel = defaultLogLevel;
     this.embedException = embedException;
+    this.asyncWriter = asyncWriter;
   }
 
   String getString(String name) {
@@ -366,6 +438,7 @@ public class SLCompatSettings {
         Names.DATE_TIME_FORMAT, dateTimeFormat != null ? dateTimeFormat : "relative");
     settingsDescription.put(Names.DEFAULT_LOG_LEVEL, defaultLogLevel.toString());
     settingsDescription.put(Names.EMBED_EXCEPTION, embedException);
+    settingsDescription.put(Names.ASYNC, asyncWriter != null);
     settingsDescription.put(
         Names.CONFIGURATION_FILE,
         properties.getProperty(Keys.CONFIGURATION_FILE, Defaults.CONFIGURATION_FILE));
@@ -364,6 +364,7 @@ class DDLoggerTest extends LogValidatingSpecification {
       (Names.DATE_TIME_FORMAT): "relative",
       (Names.DEFAULT_LOG_LEVEL): expectedLevel,
       (Names.EMBED_EXCEPTION): Defaults.EMBED_EXCEPTION,
+      (Names.ASYNC): Defaults.ASYNC,
       (Names.CONFIGURATION_FILE): Defaults.CONFIGURATION_FILE,
     ]
 
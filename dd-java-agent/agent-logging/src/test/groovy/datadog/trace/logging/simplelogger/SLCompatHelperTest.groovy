@@ -160,4 +160,40 @@ class SLCompatHelperTest extends Specification {
     LogLevel.INFO | null     | false | false | false | true  | "yyyy-MM-dd HH:mm:ss z" | false  | "[thread] INFO log\n"
     LogLevel.INFO | null     | false | false | false | true  | "yyyy-MM-dd HH:mm:ss z" | true   | "${new SimpleDateFormat("yyyy-MM-dd HH:mm:ss z").format(new Date(4711))} [thread] INFO log\n"
   }
+
+  def "test async logging suppresses repeated messages and counts dropped ones"() {
+    setup:
+    def outputStream = new ByteArrayOutputStream()
+    def printStream = new PrintStream(outputStream, true)
+    def props = new Properties()
+    def writer = new AsyncLogWriter(3, 1000)
+    def settings = new SLCompatSettings(props, props, null, false, printStream, false, true, false, SLCompatSettings.DTFormatter.create(null), false, LogLevel.INFO, false, writer)
+    def helper = new SLCompatHelper("foo", settings)
+
+    when:
+    helper.log(LogLevel.INFO, 0, 1, "thread", "same", null)
+    helper.log(LogLevel.INFO, 0, 2, "thread", "same", null)
+    helper.log(LogLevel.INFO, 0, 3, "thread", "same", null)
+    helper.log(LogLevel.INFO, 0, 4, "thread", "queue is full", null)
+
+    then:
+    outputStream.toString() == ""
+
+    when:
+    writer.flush()
+
+    then:
+    outputStream.toString() == "WARN foo - 1 log messages were dropped because the log queue was full\n" +
+      "INFO foo - same\n" +
+      "INFO foo - Previous message repeated 2 times\n"
+
+    when:
+    outputStream.reset()
+    helper.log(LogLevel.INFO, 0, 1001, "thread", "same", null)
+    helper.log(LogLevel.INFO, 0, 1002, "thread", "other", null)
+    writer.flush()
+
+    then:
+    outputStream.toString() == "INFO foo - same\nINFO foo - other\n"
+  }
 }
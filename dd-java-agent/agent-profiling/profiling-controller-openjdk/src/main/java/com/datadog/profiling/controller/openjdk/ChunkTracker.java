@@ -0,0 +1,130 @@
+package com.datadog.profiling.controller.openjdk;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps track of the JFR chunk files in the disk repository which have already been handed out as
+ * part of a snapshot.
+ *
+ * <p>JFR rotates the current chunk whenever a snapshot is taken, so every completed chunk in the
+ * repository which has not been shipped yet holds exactly the data recorded since the previous
+ * snapshot. The chunk which is currently being written to is always the newest file in the
+ * repository and is never reported.
+ */
+@Slf4j
+final class ChunkTracker {
+  static final String REPOSITORY_PROPERTY = "jdk.jfr.repository";
+  private static final String CHUNK_EXTENSION = ".jfr";
+  private static final int TIMESTAMP_LENGTH = "yyyy_MM_dd_HH_mm_ss".length();
+
+  /**
+   * Chunk files are named {@code yyyy_MM_dd_HH_mm_ss[_N].jfr}, with the optional suffix used to
+   * disambiguate chunks started within the same second.
+   */
+  static final Comparator<Path> CHUNK_ORDER =
+      new Comparator<Path>() {
+        @Override
+        public int compare(final Path p1, final Path p2) {
+          final String n1 = baseName(p1);
+          final String n2 = baseName(p2);
+          final int l1 = n1.length();
+          final int l2 = n2.length();
+          final int timestampLength = Math.min(Math.min(l1, l2), TIMESTAMP_LENGTH);
+          final int result =
+              n1.substring(0, timestampLength).compareTo(n2.substring(0, timestampLength));
+          if (result != 0) {
+            return result;
+          }
+          return Integer.compare(sequence(n1), sequence(n2));
+        }
+      };
+
+  private final Set<String> shippedChunks = new HashSet<>();
+
+  /**
+   * Resolves the JFR disk repository of the running recorder.
+   *
+   * @return the repository path or {@code null} if it could not be determined
+   */
+  static Path repository() {
+    final String location = System.getProperty(REPOSITORY_PROPERTY);
+    if (location == null || location.isEmpty()) {
+      return null;
+    }
+    final Path path = Paths.get(location);
+    return path.toFile().isDirectory() ? path : null;
+  }
+
+  /**
+   * Returns the completed chunks in the repository which were not returned by a previous call, in
+   * chronological order. Must be called right after the current chunk was rotated and while the
+   * chunks are retained by an open snapshot recording.
+   *
+   * @param repository the JFR disk repository
+   * @return the newly completed chunk files, possibly empty
+   */
+  synchronized List<Path> newChunks(final Path repository) {
+    final File[] files = repository.toFile().listFiles();
+    if (files == null || files.length == 0) {
+      shippedChunks.clear();
+      return Collections.emptyList();
+    }
+    final List<Path> chunks = new ArrayList<>(files.length);
+    for (final File file : files) {
+      if (file.isFile() && file.getName().endsWith(CHUNK_EXTENSION)) {
+        chunks.add(file.toPath());
+      }
+    }
+    if (chunks.isEmpty()) {
+      shippedChunks.clear();
+      return Collections.emptyList();
+    }
+    Collections.sort(chunks, CHUNK_ORDER);
+    // the newest chunk is the one JFR is currently writing to
+    chunks.remove(chunks.size() - 1);
+
+    final Set<String> present = new HashSet<>(chunks.size() * 2);
+    final List<Path> result = new ArrayList<>();
+    for (final Path chunk : chunks) {
+      final String name = chunk.getFileName().toString();
+      present.add(name);
+      if (!shippedChunks.contains(name)) {
+        result.add(chunk);
+      }
+    }
+    // forget about the chunks JFR has already evicted from the repository to stay bounded
+    shippedChunks.retainAll(present);
+    for (final Path chunk : result) {
+      shippedChunks.add(chunk.getFileName().toString());
+    }
+    log.debug("New JFR chunks: {}", result);
+    return result;
+  }
+
+  private static String baseName(final Path path) {
+    final String name = path.getFileName().toString();
+    return name.endsWith(CHUNK_EXTENSION)
+        ? name.substring(0, name.length() - CHUNK_EXTENSION.length())
+        : name;
+  }
+
+  private static int sequence(final String baseName) {
+    if (baseName.length() <= TIMESTAMP_LENGTH + 1) {
+      return 0;
+    }
+    try {
+      return Integer.parseInt(baseName.substring(TIMESTAMP_LENGTH + 1));
+    } catch (final NumberFormatException e) {
+      return 0;
+    }
+  }
+}
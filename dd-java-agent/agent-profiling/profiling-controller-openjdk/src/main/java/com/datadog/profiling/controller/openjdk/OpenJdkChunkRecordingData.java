@@ -0,0 +1,96 @@
+package com.datadog.profiling.controller.openjdk;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Vector;
+import jdk.jfr.Recording;
+
+/**
+ * Recording data consisting of the complete JFR chunk files rotated since the previous snapshot.
+ * The chunk files are memory mapped and streamed as they are, a sequence of chunks being a valid
+ * JFR recording on its own. The chunks are retained in the repository by the snapshot recording
+ * until this data is released.
+ */
+final class OpenJdkChunkRecordingData extends OpenJdkRecordingData {
+
+  private final List<Path> chunks;
+
+  OpenJdkChunkRecordingData(
+      final Recording snapshot, final List<Path> chunks, final Instant start, final Instant end) {
+    super(snapshot, start, end);
+    this.chunks = chunks;
+  }
+
+  @Override
+  public InputStream getStream() throws IOException {
+    final Vector<InputStream> streams = new Vector<>(chunks.size());
+    for (final Path chunk : chunks) {
+      try (final FileChannel channel = FileChannel.open(chunk, StandardOpenOption.READ)) {
+        // the mapping stays valid after the channel is closed
+        streams.add(
+            new ByteBufferInputStream(
+                channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())));
+      }
+    }
+    return new SequenceInputStream(streams.elements());
+  }
+
+  // Visible for testing
+  List<Path> getChunks() {
+    return Collections.unmodifiableList(chunks);
+  }
+
+  @Override
+  public String toString() {
+    return "OpenJdkChunkRecording: " + getName() + " " + chunks;
+  }
+
+  private static final class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    private ByteBufferInputStream(final ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int offset, final int length) {
+      if (length == 0) {
+        return 0;
+      }
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      final int count = Math.min(length, buffer.remaining());
+      buffer.get(bytes, offset, count);
+      return count;
+    }
+
+    @Override
+    public long skip(final long n) {
+      if (n <= 0) {
+        return 0;
+      }
+      final int count = (int) Math.min(n, buffer.remaining());
+      buffer.position(buffer.position() + count);
+      return count;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+  }
+}
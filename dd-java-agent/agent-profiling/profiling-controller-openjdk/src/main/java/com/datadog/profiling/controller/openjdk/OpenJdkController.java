@@ -35,6 +35,7 @@ public final class OpenJdkController implements Controller {
   static final Duration RECORDING_MAX_AGE = Duration.ofMinutes(5);
 
   private final Map<String, String> recordingSettings;
+  private final boolean incrementalSnapshot;
 
   /**
    * Main constructor for OpenJDK profiling controller.
@@ -53,6 +54,7 @@ public final class OpenJdkController implements Controller {
     } catch (final IOException e) {
       throw new ConfigurationException(e);
     }
+    incrementalSnapshot = config.isProfilingIncrementalSnapshot();
   }
 
   @Override
@@ -63,6 +65,6 @@ public final class OpenJdkController implements Controller {
     recording.setMaxSize(RECORDING_MAX_SIZE);
     recording.setMaxAge(RECORDING_MAX_AGE);
     recording.start();
-    return new OpenJdkOngoingRecording(recording);
+    return new OpenJdkOngoingRecording(recording, incrementalSnapshot ? new ChunkTracker() : null);
   }
 }
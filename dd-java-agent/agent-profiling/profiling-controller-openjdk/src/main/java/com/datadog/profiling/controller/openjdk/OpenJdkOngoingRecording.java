@@ -1,17 +1,32 @@
 package com.datadog.profiling.controller.openjdk;
 
 import com.datadog.profiling.controller.OngoingRecording;
+import java.nio.file.Path;
 import java.time.Instant;
+import java.util.List;
 import jdk.jfr.FlightRecorder;
 import jdk.jfr.Recording;
 import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
 
+@Slf4j
 public class OpenJdkOngoingRecording implements OngoingRecording {
 
   private final Recording recording;
+  private final ChunkTracker chunkTracker;
 
   OpenJdkOngoingRecording(final Recording recording) {
+    this(recording, null);
+  }
+
+  /**
+   * @param recording the running recording
+   * @param chunkTracker when not {@code null} snapshots only contain the chunks rotated since the
+   *     previous snapshot
+   */
+  OpenJdkOngoingRecording(final Recording recording, final ChunkTracker chunkTracker) {
     this.recording = recording;
+    this.chunkTracker = chunkTracker;
   }
 
   @Override
@@ -30,8 +45,19 @@ public class OpenJdkOngoingRecording implements OngoingRecording {
       throw new IllegalStateException("Cannot snapshot recording that is not running");
     }
 
+    // Taking a snapshot rotates the current chunk and retains all the completed ones
     final Recording snapshot = FlightRecorder.getFlightRecorder().takeSnapshot();
     snapshot.setName(recording.getName()); // Copy name from original recording
+    if (chunkTracker != null) {
+      final Path repository = ChunkTracker.repository();
+      if (repository != null) {
+        final List<Path> chunks = chunkTracker.newChunks(repository);
+        if (!chunks.isEmpty()) {
+          return new OpenJdkChunkRecordingData(snapshot, chunks, start, end);
+        }
+      }
+      log.debug("No new JFR chunks found, falling back to a filtered snapshot");
+    }
     return new OpenJdkRecordingData(snapshot, start, end);
   }
 
@@ -0,0 +1,80 @@
+package com.datadog.profiling.controller.openjdk;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ChunkTrackerTest {
+
+  @TempDir Path repository;
+
+  @Test
+  public void testActiveChunkIsNotReported() throws IOException {
+    final ChunkTracker tracker = new ChunkTracker();
+    createChunks("2020_01_01_10_00_00.jfr");
+
+    assertTrue(tracker.newChunks(repository).isEmpty());
+  }
+
+  @Test
+  public void testChunksAreReportedOnce() throws IOException {
+    final ChunkTracker tracker = new ChunkTracker();
+    createChunks("2020_01_01_10_00_00.jfr", "2020_01_01_10_01_00.jfr", "2020_01_01_10_02_00.jfr");
+
+    assertEquals(
+        chunks("2020_01_01_10_00_00.jfr", "2020_01_01_10_01_00.jfr"),
+        tracker.newChunks(repository));
+
+    createChunks("2020_01_01_10_03_00.jfr");
+    assertEquals(chunks("2020_01_01_10_02_00.jfr"), tracker.newChunks(repository));
+    assertTrue(tracker.newChunks(repository).isEmpty());
+  }
+
+  @Test
+  public void testEvictedChunksAreForgotten() throws IOException {
+    final ChunkTracker tracker = new ChunkTracker();
+    createChunks("2020_01_01_10_00_00.jfr", "2020_01_01_10_01_00.jfr");
+    assertEquals(chunks("2020_01_01_10_00_00.jfr"), tracker.newChunks(repository));
+
+    Files.delete(repository.resolve("2020_01_01_10_00_00.jfr"));
+    createChunks("2020_01_01_10_02_00.jfr");
+    assertEquals(chunks("2020_01_01_10_01_00.jfr"), tracker.newChunks(repository));
+  }
+
+  @Test
+  public void testSequenceSuffixOrdering() throws IOException {
+    final ChunkTracker tracker = new ChunkTracker();
+    createChunks(
+        "2020_01_01_10_00_00_10.jfr",
+        "2020_01_01_10_00_00.jfr",
+        "2020_01_01_10_00_00_2.jfr",
+        "2020_01_01_10_00_00_1.jfr",
+        "unrelated.txt");
+
+    assertEquals(
+        chunks("2020_01_01_10_00_00.jfr", "2020_01_01_10_00_00_1.jfr", "2020_01_01_10_00_00_2.jfr"),
+        tracker.newChunks(repository));
+  }
+
+  private void createChunks(final String... names) throws IOException {
+    for (final String name : names) {
+      Files.write(repository.resolve(name), new byte[] {1, 2, 3});
+    }
+  }
+
+  private List<Path> chunks(final String... names) {
+    final List<Path> result = new ArrayList<>();
+    for (final String name : Arrays.asList(names)) {
+      result.add(repository.resolve(name));
+    }
+    return result;
+  }
+}
@@ -3,16 +3,29 @@ package com.datadog.profiling.controller.openjdk;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import jdk.jfr.Event;
+import jdk.jfr.Name;
 import jdk.jfr.Recording;
 import jdk.jfr.RecordingState;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
@@ -30,6 +43,8 @@ public class OpenJdkOngoingRecordingTest {
   @Mock private Instant end;
   @Mock private Recording recording;
 
+  @TempDir Path tempDir;
+
   private OpenJdkOngoingRecording ongoingRecording;
 
   @BeforeEach
@@ -75,6 +90,39 @@ public class OpenJdkOngoingRecordingTest {
     verify(recording, never()).stop();
   }
 
+  @Test
+  public void testIncrementalSnapshotsOfLiveRecording() throws IOException {
+    try (final Recording live = new Recording()) {
+      live.enable(MarkerEvent.class);
+      live.start();
+      final OpenJdkOngoingRecording incremental =
+          new OpenJdkOngoingRecording(live, new ChunkTracker());
+
+      mark("first");
+      final OpenJdkRecordingData first = incremental.snapshot(start, end);
+      mark("second");
+      final OpenJdkRecordingData second = incremental.snapshot(start, end);
+      try {
+        assertTrue(first instanceof OpenJdkChunkRecordingData);
+        assertTrue(second instanceof OpenJdkChunkRecordingData);
+        final List<Path> firstChunks = ((OpenJdkChunkRecordingData) first).getChunks();
+        final List<Path> secondChunks = ((OpenJdkChunkRecordingData) second).getChunks();
+        assertTrue(Collections.disjoint(firstChunks, secondChunks));
+        // the chunks of the second snapshot were all rotated after the ones of the first
+        assertTrue(
+            ChunkTracker.CHUNK_ORDER.compare(
+                    firstChunks.get(firstChunks.size() - 1), secondChunks.get(0))
+                < 0);
+
+        assertEquals(Collections.singletonList("first"), markers(first, "first.jfr"));
+        assertEquals(Collections.singletonList("second"), markers(second, "second.jfr"));
+      } finally {
+        first.release();
+        second.release();
+      }
+    }
+  }
+
   @Test
   public void testSnapshotOnStopped() {
     when(recording.getState()).thenReturn(RecordingState.STOPPED);
@@ -94,4 +142,33 @@ public class OpenJdkOngoingRecordingTest {
 
     verify(recording).close();
   }
+
+  private static void mark(final String phase) {
+    final MarkerEvent event = new MarkerEvent();
+    event.phase = phase;
+    event.commit();
+  }
+
+  /** Parses the snapshot as a recording of its own and returns the phases of its markers. */
+  private List<String> markers(final OpenJdkRecordingData data, final String fileName)
+      throws IOException {
+    final Path file = tempDir.resolve(fileName);
+    try (final InputStream stream = data.getStream()) {
+      Files.copy(stream, file);
+    }
+    final List<String> phases = new ArrayList<>();
+    for (final RecordedEvent event : RecordingFile.readAllEvents(file)) {
+      if (event.getEventType().getName().equals(MarkerEvent.NAME)) {
+        phases.add(event.getString("phase"));
+      }
+    }
+    return phases;
+  }
+
+  @Name(MarkerEvent.NAME)
+  static final class MarkerEvent extends Event {
+    static final String NAME = "datadog.test.SnapshotMarker";
+
+    String phase;
+  }
 }
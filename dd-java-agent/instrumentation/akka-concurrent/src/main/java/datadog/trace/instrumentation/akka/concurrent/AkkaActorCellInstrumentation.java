@@ -1,8 +1,8 @@
 package datadog.trace.instrumentation.akka.concurrent;
 
 import static datadog.trace.agent.tooling.bytebuddy.matcher.NameMatchers.named;
-import static datadog.trace.bootstrap.instrumentation.api.AgentTracer.activateSpan;
-import static datadog.trace.bootstrap.instrumentation.api.AgentTracer.activeScope;
+import static datadog.trace.bootstrap.instrumentation.api.AgentTracer.checkpointScopes;
+import static datadog.trace.bootstrap.instrumentation.api.AgentTracer.restoreScopes;
 import static java.util.Collections.singletonMap;
 import static net.bytebuddy.matcher.ElementMatchers.isMethod;
 
@@ -10,11 +10,8 @@ import akka.dispatch.Envelope;
 import com.google.auto.service.AutoService;
 import datadog.trace.agent.tooling.Instrumenter;
 import datadog.trace.bootstrap.InstrumentationContext;
-import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
-import datadog.trace.bootstrap.instrumentation.api.AgentTracer;
 import datadog.trace.bootstrap.instrumentation.java.concurrent.AdviceUtils;
 import datadog.trace.bootstrap.instrumentation.java.concurrent.State;
-import datadog.trace.context.TraceScope;
 import java.util.Map;
 import net.bytebuddy.asm.Advice;
 import net.bytebuddy.description.method.MethodDescription;
@@ -56,31 +53,17 @@ public class AkkaActorCellInstrumentation extends Instrumenter.Tracing {
    */
   public static class InvokeAdvice {
     @Advice.OnMethodEnter(suppress = Throwable.class)
-    public static TraceScope enter(@Advice.Argument(value = 0) Envelope envelope) {
-      TraceScope scope =
-          AdviceUtils.startTaskScope(
-              InstrumentationContext.get(Envelope.class, State.class), envelope);
-      if (scope != null) {
-        return scope;
-      }
-      // If there is no scope created from the envelope, we create our own noopSpan to make sure
-      // that we can close all scopes up until this position after exit.
-      AgentSpan span = new AgentTracer.NoopAgentSpan();
-      return activateSpan(span, false);
+    public static int enter(@Advice.Argument(value = 0) Envelope envelope) {
+      // Remember the scope stack so that all scopes up until this position can be closed on exit
+      final int checkpoint = checkpointScopes();
+      AdviceUtils.startTaskScope(InstrumentationContext.get(Envelope.class, State.class), envelope);
+      return checkpoint;
     }
 
     @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
-    public static void exit(@Advice.Enter TraceScope scope) {
-      // Clean up any leaking scopes from akka-streams/akka-http et.c.
-      TraceScope activeScope = activeScope();
-      while (activeScope != null && activeScope != scope) {
-        activeScope.close();
-        activeScope = activeScope();
-      }
-      while (activeScope == scope) {
-        scope.close();
-        activeScope = activeScope();
-      }
+    public static void exit(@Advice.Enter final int checkpoint) {
+      // Clean up the task scope and any leaking scopes from akka-streams/akka-http et.c.
+      restoreScopes(checkpoint);
     }
   }
 }
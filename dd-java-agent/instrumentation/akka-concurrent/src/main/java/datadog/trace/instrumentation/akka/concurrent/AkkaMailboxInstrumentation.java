@@ -1,8 +1,8 @@
 package datadog.trace.instrumentation.akka.concurrent;
 
 import static datadog.trace.agent.tooling.bytebuddy.matcher.NameMatchers.named;
-import static datadog.trace.bootstrap.instrumentation.api.AgentTracer.activateSpan;
-import static datadog.trace.bootstrap.instrumentation.api.AgentTracer.activeScope;
+import static datadog.trace.bootstrap.instrumentation.api.AgentTracer.checkpointScopes;
+import static datadog.trace.bootstrap.instrumentation.api.AgentTracer.restoreScopes;
 import static java.util.Collections.singletonList;
 import static java.util.Collections.singletonMap;
 import static net.bytebuddy.matcher.ElementMatchers.isMethod;
@@ -10,11 +10,7 @@ import static net.bytebuddy.matcher.ElementMatchers.isMethod;
 import com.google.auto.service.AutoService;
 import datadog.trace.agent.tooling.ExcludeFilterProvider;
 import datadog.trace.agent.tooling.Instrumenter;
-import datadog.trace.bootstrap.instrumentation.api.AgentScope;
-import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
-import datadog.trace.bootstrap.instrumentation.api.AgentTracer;
 import datadog.trace.bootstrap.instrumentation.java.concurrent.ExcludeFilter;
-import datadog.trace.context.TraceScope;
 import java.util.Collection;
 import java.util.EnumMap;
 import java.util.List;
@@ -66,25 +62,15 @@ public class AkkaMailboxInstrumentation extends Instrumenter.Tracing
    */
   public static final class SuppressMailboxRunAdvice {
     @Advice.OnMethodEnter(suppress = Throwable.class)
-    public static AgentScope enter() {
-      // Create our own noopSpan to make sure that we close all scopes up until this
-      // position after exit
-      AgentSpan span = new AgentTracer.NoopAgentSpan();
-      return activateSpan(span, false);
+    public static int enter() {
+      // Remember the scope stack so that all scopes up until this position can be closed on exit
+      return checkpointScopes();
     }
 
     @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
-    public static void exit(@Advice.Enter final AgentScope scope) {
+    public static void exit(@Advice.Enter final int checkpoint) {
       // Clean up any leaking scopes from akka-streams/akka-http et.c.
-      TraceScope activeScope = activeScope();
-      while (activeScope != null && activeScope != scope) {
-        activeScope.close();
-        activeScope = activeScope();
-      }
-      while (activeScope == scope) {
-        scope.close();
-        activeScope = activeScope();
-      }
+      restoreScopes(checkpoint);
     }
   }
 }
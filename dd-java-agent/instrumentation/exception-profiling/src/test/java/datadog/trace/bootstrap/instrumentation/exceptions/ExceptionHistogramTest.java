@@ -9,12 +9,19 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSortedMap;
 import datadog.trace.api.Config;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.Phaser;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import jdk.jfr.FlightRecorder;
 import jdk.jfr.Recording;
@@ -115,6 +122,116 @@ public class ExceptionHistogramTest {
     assertFalse(histogram.record(new NullPointerException()));
   }
 
+  @Test
+  public void testTopItemsAreEmittedByDescendingCount() {
+    final List<List<String>> emitted = new ArrayList<>();
+    final ExceptionHistogram histogram = capturingHistogram(new Properties(), emitted);
+
+    record(histogram, new NullPointerException(), 3);
+    record(histogram, new IllegalArgumentException(), 5);
+    record(histogram, new RuntimeException(), 1);
+    histogram.doEmit();
+
+    assertEquals(
+        Collections.singletonList(
+            Arrays.asList(
+                IllegalArgumentException.class.getName() + "=5",
+                NullPointerException.class.getName() + "=3")),
+        emitted);
+  }
+
+  @Test
+  public void testClassesWithTheSameNameAreCountedSeparately() throws Exception {
+    final List<List<String>> emitted = new ArrayList<>();
+    final ExceptionHistogram histogram = capturingHistogram(new Properties(), emitted);
+    final Class<?> reloaded = new ChildFirstClassLoader(TestException.class).reloaded();
+
+    record(histogram, new TestException(), 3);
+    for (int i = 0; i < 2; i++) {
+      assertEquals(i == 0, histogram.record((Throwable) reloaded.newInstance()));
+    }
+    histogram.doEmit();
+
+    assertEquals(
+        Collections.singletonList(
+            Arrays.asList(
+                TestException.class.getName() + "=3", TestException.class.getName() + "=2")),
+        emitted);
+  }
+
+  @Test
+  public void testEmittedTypesAreRemovedFromTheHistogram() {
+    final Properties properties = new Properties();
+    properties.setProperty(
+        PROFILING_EXCEPTION_HISTOGRAM_MAX_COLLECTION_SIZE, Integer.toString(MAX_SIZE));
+    final List<List<String>> emitted = new ArrayList<>();
+    final ExceptionHistogram histogram = capturingHistogram(properties, emitted);
+
+    record(histogram, new NullPointerException(), 2);
+    record(histogram, new IllegalArgumentException(), 1);
+    histogram.doEmit();
+    // the emitted types no longer count towards the maximum size, so none of these is clipped
+    record(histogram, new RuntimeException(), 2);
+    record(histogram, new NullPointerException(), 1);
+    histogram.doEmit();
+
+    assertEquals(
+        Arrays.asList(
+            Arrays.asList(
+                NullPointerException.class.getName() + "=2",
+                IllegalArgumentException.class.getName() + "=1"),
+            Arrays.asList(
+                RuntimeException.class.getName() + "=2",
+                NullPointerException.class.getName() + "=1")),
+        emitted);
+  }
+
+  @Test
+  public void testRecordDuringCleanupIsKept() {
+    final List<List<String>> emitted = new ArrayList<>();
+    final Properties properties = new Properties();
+    properties.setProperty(PROFILING_EXCEPTION_HISTOGRAM_TOP_ITEMS, Integer.toString(MAX_ITEMS));
+    final ExceptionHistogram histogram =
+        new ExceptionHistogram(Config.get(properties)) {
+          private boolean recorded;
+
+          @Override
+          void emitEvents(final Stream<ExceptionHistogram.Pair<String, Long>> items) {
+            emitted.add(
+                items.map(p -> p.getKey() + "=" + p.getValue()).collect(Collectors.toList()));
+          }
+
+          @Override
+          void counterRemoved(final String typeName) {
+            // an exception recorded between the removal and the deactivation of its counter
+            if (!recorded) {
+              recorded = true;
+              record(new NullPointerException());
+            }
+          }
+        };
+    // don't want the JFR integration active here
+    histogram.deregister();
+
+    record(histogram, new NullPointerException(), 1);
+    // the counter is reset and cleaned up, while another exception is recorded
+    histogram.doEmit();
+    // the exception recorded during the cleanup is emitted
+    histogram.doEmit();
+    histogram.doEmit();
+    // the counter can still be activated again once it was cleaned up
+    assertTrue(histogram.record(new NullPointerException()));
+    histogram.doEmit();
+
+    assertEquals(
+        Arrays.asList(
+            Collections.singletonList(NullPointerException.class.getName() + "=1"),
+            Collections.singletonList(NullPointerException.class.getName() + "=1"),
+            Collections.emptyList(),
+            Collections.singletonList(NullPointerException.class.getName() + "=1")),
+        emitted);
+  }
+
   @Test
   public void testExceptionsRecorded()
       throws IOException, CouldNotLoadRecordingException, InterruptedException {
@@ -296,6 +413,54 @@ public class ExceptionHistogramTest {
     snapshot.close();
   }
 
+  private static ExceptionHistogram capturingHistogram(
+      final Properties properties, final List<List<String>> emitted) {
+    properties.setProperty(PROFILING_EXCEPTION_HISTOGRAM_TOP_ITEMS, Integer.toString(MAX_ITEMS));
+    final ExceptionHistogram histogram =
+        new ExceptionHistogram(Config.get(properties)) {
+          @Override
+          void emitEvents(final Stream<ExceptionHistogram.Pair<String, Long>> items) {
+            emitted.add(
+                items.map(p -> p.getKey() + "=" + p.getValue()).collect(Collectors.toList()));
+          }
+        };
+    // don't want the JFR integration active here
+    histogram.deregister();
+    return histogram;
+  }
+
+  private static void record(
+      final ExceptionHistogram histogram, final Exception exception, final int count) {
+    for (int i = 0; i < count; i++) {
+      assertEquals(i == 0, histogram.record(exception));
+    }
+  }
+
+  public static class TestException extends RuntimeException {}
+
+  /** Defines its own copy of a class, which has the same name but is a different class */
+  private static final class ChildFirstClassLoader extends ClassLoader {
+    private final Class<?> type;
+
+    ChildFirstClassLoader(final Class<?> type) {
+      super(type.getClassLoader());
+      this.type = type;
+    }
+
+    Class<?> reloaded() throws IOException {
+      final String resource = type.getName().replace('.', '/') + ".class";
+      try (final InputStream in = getParent().getResourceAsStream(resource)) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+          bytes.write(buffer, 0, read);
+        }
+        return defineClass(type.getName(), bytes.toByteArray(), 0, bytes.size());
+      }
+    }
+  }
+
   private IItemCollection getEvents(
       final Recording secondSnapshot, final Instant start, final Instant end)
       throws IOException, CouldNotLoadRecordingException {
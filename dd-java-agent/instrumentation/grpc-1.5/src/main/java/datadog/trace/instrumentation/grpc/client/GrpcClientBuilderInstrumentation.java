@@ -37,6 +37,9 @@ public class GrpcClientBuilderInstrumentation extends Instrumenter.Tracing {
       packageName + ".TracingClientInterceptor",
       packageName + ".TracingClientInterceptor$TracingClientCall",
       packageName + ".TracingClientInterceptor$TracingClientCallListener",
+      "datadog.trace.instrumentation.grpc.common.GrpcMessageStats",
+      "datadog.trace.instrumentation.grpc.common.GrpcMessageStats$MessageTypes",
+      "datadog.trace.instrumentation.grpc.common.GrpcMessageStats$MessageType",
     };
   }
 
@@ -7,9 +7,11 @@ import static datadog.trace.instrumentation.grpc.client.GrpcClientDecorator.DECO
 import static datadog.trace.instrumentation.grpc.client.GrpcClientDecorator.GRPC_CLIENT;
 import static datadog.trace.instrumentation.grpc.client.GrpcClientDecorator.GRPC_MESSAGE;
 import static datadog.trace.instrumentation.grpc.client.GrpcInjectAdapter.SETTER;
+import static datadog.trace.instrumentation.grpc.common.GrpcMessageStats.MESSAGE_TYPE;
 
 import datadog.trace.bootstrap.instrumentation.api.AgentScope;
 import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
+import datadog.trace.instrumentation.grpc.common.GrpcMessageStats;
 import io.grpc.CallOptions;
 import io.grpc.Channel;
 import io.grpc.ClientCall;
@@ -63,7 +65,9 @@ public class TracingClientInterceptor implements ClientInterceptor {
     public void start(final Listener<RespT> responseListener, final Metadata headers) {
       propagate().inject(span, headers, SETTER);
       try (final AgentScope scope = activateSpan(span)) {
-        super.start(new TracingClientCallListener<>(span, responseListener), headers);
+        super.start(
+            new TracingClientCallListener<>(span, GrpcMessageStats.create(), responseListener),
+            headers);
       } catch (final Throwable e) {
         DECORATE.onError(span, e);
         DECORATE.beforeFinish(span);
@@ -88,17 +92,32 @@ public class TracingClientInterceptor implements ClientInterceptor {
   static final class TracingClientCallListener<RespT>
       extends ForwardingClientCallListener.SimpleForwardingClientCallListener<RespT> {
     final AgentSpan span;
+    final GrpcMessageStats stats;
 
-    TracingClientCallListener(final AgentSpan span, final ClientCall.Listener<RespT> delegate) {
+    TracingClientCallListener(
+        final AgentSpan span,
+        final GrpcMessageStats stats,
+        final ClientCall.Listener<RespT> delegate) {
       super(delegate);
       this.span = span;
+      this.stats = stats;
     }
 
     @Override
     public void onMessage(final RespT message) {
+      if (null != stats && !stats.onMessage(message)) {
+        // not sampled, only accounted for on the call span
+        try (final AgentScope scope = activateSpan(span)) {
+          delegate().onMessage(message);
+        } catch (final Throwable e) {
+          DECORATE.onError(span, e);
+          throw e;
+        }
+        return;
+      }
       final AgentSpan messageSpan =
           startSpan(GRPC_MESSAGE, span.context())
-              .setTag("message.type", message.getClass().getName());
+              .setTag(MESSAGE_TYPE, GrpcMessageStats.messageType(message));
       DECORATE.afterStart(messageSpan);
       try (AgentScope scope = activateSpan(messageSpan)) {
         delegate().onMessage(message);
@@ -114,6 +133,9 @@ public class TracingClientInterceptor implements ClientInterceptor {
     @Override
     public void onClose(final Status status, final Metadata trailers) {
       DECORATE.onClose(span, status);
+      if (null != stats) {
+        stats.applyTo(span);
+      }
       // Finishes span.
       try (final AgentScope scope = activateSpan(span)) {
         delegate().onClose(status, trailers);
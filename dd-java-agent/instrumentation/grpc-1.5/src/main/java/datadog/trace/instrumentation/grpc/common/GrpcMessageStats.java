@@ -0,0 +1,146 @@
+package datadog.trace.instrumentation.grpc.common;
+
+import datadog.trace.api.Config;
+import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggregates the messages received on a single stream, so that long-lived streams can be described
+ * by a handful of metrics on the call span instead of one span per message. Only one message in
+ * every {@link Config#getGrpcMessageSpanInterval()} gets its own span.
+ *
+ * <p>Only the call listener may use the stats, from its callbacks: gRPC runs the callbacks of a call
+ * one at a time, possibly on different threads but with a happens-before relation between them, so
+ * no synchronization is needed. In particular the stats must not be applied from the server call,
+ * which is used by application threads.
+ */
+public final class GrpcMessageStats {
+  public static final String MESSAGE_TYPE = "message.type";
+  public static final String MESSAGE_COUNT = "grpc.message.count";
+  public static final String MESSAGE_BYTES = "grpc.message.bytes";
+  public static final String INTERARRIVAL_MIN = "grpc.message.interarrival.min_ms";
+  public static final String INTERARRIVAL_AVG = "grpc.message.interarrival.avg_ms";
+  public static final String INTERARRIVAL_MAX = "grpc.message.interarrival.max_ms";
+
+  private static final MessageTypes MESSAGE_TYPES = new MessageTypes();
+  private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final int spanInterval;
+
+  private MessageType lastType;
+  private long count;
+  private long bytes;
+  private boolean bytesKnown = true;
+  private long lastArrival;
+  private long minGap = Long.MAX_VALUE;
+  private long maxGap;
+  private long totalGap;
+
+  private GrpcMessageStats(final int spanInterval) {
+    this.spanInterval = spanInterval;
+  }
+
+  /** @return stats for a new stream, or null if messages should be traced individually */
+  public static GrpcMessageStats create() {
+    final Config config = Config.get();
+    return config.isGrpcMessageAggregationEnabled()
+        ? new GrpcMessageStats(config.getGrpcMessageSpanInterval())
+        : null;
+  }
+
+  /** The class name of the message, computed once per message class. */
+  public static String messageType(final Object message) {
+    return MESSAGE_TYPES.get(message.getClass()).name;
+  }
+
+  /**
+   * Records the arrival of a message.
+   *
+   * @return true if the message should be traced with its own span
+   */
+  public boolean onMessage(final Object message) {
+    final long now = System.nanoTime();
+    if (count > 0) {
+      final long gap = now - lastArrival;
+      minGap = Math.min(minGap, gap);
+      maxGap = Math.max(maxGap, gap);
+      totalGap += gap;
+    }
+    lastArrival = now;
+    final Class<?> messageClass = message.getClass();
+    if (null == lastType || lastType.messageClass != messageClass) {
+      lastType = MESSAGE_TYPES.get(messageClass);
+    }
+    if (bytesKnown) {
+      final int size = lastType.serializedSize(message);
+      if (size < 0) {
+        bytesKnown = false;
+      } else {
+        bytes += size;
+      }
+    }
+    return spanInterval > 0 && count++ % spanInterval == 0;
+  }
+
+  /** Writes the aggregated metrics to the call span. */
+  public void applyTo(final AgentSpan span) {
+    span.setMetric(MESSAGE_COUNT, count);
+    if (count == 0) {
+      return;
+    }
+    span.setTag(MESSAGE_TYPE, lastType.name);
+    if (bytesKnown) {
+      span.setMetric(MESSAGE_BYTES, bytes);
+    }
+    if (count > 1) {
+      span.setMetric(INTERARRIVAL_MIN, minGap / NANOS_PER_MILLI);
+      span.setMetric(INTERARRIVAL_AVG, totalGap / NANOS_PER_MILLI / (count - 1));
+      span.setMetric(INTERARRIVAL_MAX, maxGap / NANOS_PER_MILLI);
+    }
+  }
+
+  public static final class MessageTypes extends ClassValue<MessageType> {
+    @Override
+    protected MessageType computeValue(final Class<?> type) {
+      return new MessageType(type);
+    }
+  }
+
+  public static final class MessageType {
+    private static final MethodType SERIALIZED_SIZE_TYPE =
+        MethodType.methodType(int.class, Object.class);
+
+    final Class<?> messageClass;
+    final String name;
+    /** Protobuf messages know their serialized size, it is memoized so cheap to ask for. */
+    private final MethodHandle serializedSize;
+
+    MessageType(final Class<?> messageClass) {
+      this.messageClass = messageClass;
+      this.name = messageClass.getName();
+      MethodHandle handle = null;
+      try {
+        final Method method = messageClass.getMethod("getSerializedSize");
+        if (method.getReturnType() == int.class) {
+          handle = MethodHandles.publicLookup().unreflect(method).asType(SERIALIZED_SIZE_TYPE);
+        }
+      } catch (final Throwable ignored) {
+      }
+      this.serializedSize = handle;
+    }
+
+    int serializedSize(final Object message) {
+      if (null != serializedSize) {
+        try {
+          return (int) serializedSize.invokeExact(message);
+        } catch (final Throwable ignored) {
+        }
+      }
+      return -1;
+    }
+  }
+}
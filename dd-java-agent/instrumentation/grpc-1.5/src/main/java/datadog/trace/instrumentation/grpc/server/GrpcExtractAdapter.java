@@ -1,18 +1,62 @@
 package datadog.trace.instrumentation.grpc.server;
 
+import datadog.trace.api.Function;
+import datadog.trace.api.cache.DDCache;
+import datadog.trace.api.cache.DDCaches;
 import datadog.trace.bootstrap.instrumentation.api.AgentPropagation;
 import io.grpc.Metadata;
 
-public final class GrpcExtractAdapter implements AgentPropagation.ContextVisitor<Metadata> {
+public final class GrpcExtractAdapter implements AgentPropagation.KeyedContextVisitor<Metadata> {
 
   public static final GrpcExtractAdapter GETTER = new GrpcExtractAdapter();
 
+  /** Only the keys known to the propagation codecs are looked up, so their keys can be reused. */
+  private static final DDCache<String, Metadata.Key<String>> KEYS = DDCaches.newFixedSizeCache(32);
+
+  private static final Function<String, Metadata.Key<String>> CREATE_KEY =
+      new Function<String, Metadata.Key<String>>() {
+        @Override
+        public Metadata.Key<String> apply(String key) {
+          return asciiKey(key);
+        }
+      };
+
+  /** @return the ASCII key, or null for binary keys and names which are not valid metadata keys */
+  private static Metadata.Key<String> asciiKey(String key) {
+    if (key.endsWith(Metadata.BINARY_HEADER_SUFFIX)) {
+      return null;
+    }
+    try {
+      return Metadata.Key.of(key, Metadata.ASCII_STRING_MARSHALLER);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
   @Override
   public void forEachKey(Metadata carrier, AgentPropagation.KeyClassifier classifier) {
     for (String key : carrier.keys()) {
-      if (!key.endsWith(Metadata.BINARY_HEADER_SUFFIX)) {
-        if (!classifier.accept(
-            key, carrier.get(Metadata.Key.of(key, Metadata.ASCII_STRING_MARSHALLER)))) {
+      Metadata.Key<String> asciiKey = asciiKey(key);
+      if (null != asciiKey && !classifier.accept(key, carrier.get(asciiKey))) {
+        return;
+      }
+    }
+  }
+
+  @Override
+  public String get(Metadata carrier, String key) {
+    // metadata keys are normalized to lower case
+    Metadata.Key<String> asciiKey = KEYS.computeIfAbsent(key, CREATE_KEY);
+    return null == asciiKey ? null : carrier.get(asciiKey);
+  }
+
+  @Override
+  public void forEachKeyWithPrefix(
+      Metadata carrier, String prefix, AgentPropagation.KeyClassifier classifier) {
+    for (String key : carrier.keys()) {
+      if (key.regionMatches(true, 0, prefix, 0, prefix.length())) {
+        Metadata.Key<String> asciiKey = asciiKey(key);
+        if (null != asciiKey && !classifier.accept(key, carrier.get(asciiKey))) {
           return;
         }
       }
@@ -34,9 +34,13 @@ public class GrpcServerBuilderInstrumentation extends Instrumenter.Tracing {
     return new String[] {
       packageName + ".GrpcServerDecorator",
       packageName + ".GrpcExtractAdapter",
+      packageName + ".GrpcExtractAdapter$1",
       packageName + ".TracingServerInterceptor",
       packageName + ".TracingServerInterceptor$TracingServerCall",
       packageName + ".TracingServerInterceptor$TracingServerCallListener",
+      "datadog.trace.instrumentation.grpc.common.GrpcMessageStats",
+      "datadog.trace.instrumentation.grpc.common.GrpcMessageStats$MessageTypes",
+      "datadog.trace.instrumentation.grpc.common.GrpcMessageStats$MessageType",
     };
   }
 
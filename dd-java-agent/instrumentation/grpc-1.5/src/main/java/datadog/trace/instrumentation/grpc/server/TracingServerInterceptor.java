@@ -3,6 +3,7 @@ package datadog.trace.instrumentation.grpc.server;
 import static datadog.trace.bootstrap.instrumentation.api.AgentTracer.activateSpan;
 import static datadog.trace.bootstrap.instrumentation.api.AgentTracer.propagate;
 import static datadog.trace.bootstrap.instrumentation.api.AgentTracer.startSpan;
+import static datadog.trace.instrumentation.grpc.common.GrpcMessageStats.MESSAGE_TYPE;
 import static datadog.trace.instrumentation.grpc.server.GrpcExtractAdapter.GETTER;
 import static datadog.trace.instrumentation.grpc.server.GrpcServerDecorator.DECORATE;
 import static datadog.trace.instrumentation.grpc.server.GrpcServerDecorator.GRPC_MESSAGE;
@@ -11,6 +12,7 @@ import static datadog.trace.instrumentation.grpc.server.GrpcServerDecorator.GRPC
 import datadog.trace.bootstrap.instrumentation.api.AgentScope;
 import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
 import datadog.trace.bootstrap.instrumentation.api.AgentSpan.Context;
+import datadog.trace.instrumentation.grpc.common.GrpcMessageStats;
 import io.grpc.ForwardingServerCall;
 import io.grpc.ForwardingServerCallListener;
 import io.grpc.Metadata;
@@ -36,6 +38,7 @@ public class TracingServerInterceptor implements ServerInterceptor {
     span.setResourceName(call.getMethodDescriptor().getFullMethodName());
     DECORATE.afterStart(span);
 
+    final GrpcMessageStats stats = GrpcMessageStats.create();
     final ServerCall.Listener<ReqT> result;
     try (AgentScope scope = activateSpan(span)) {
       // Wrap the server call so that we can decorate the span
@@ -51,7 +54,7 @@ public class TracingServerInterceptor implements ServerInterceptor {
     }
 
     // This ensures the server implementation can see the span in scope
-    return new TracingServerCallListener<>(span, result);
+    return new TracingServerCallListener<>(span, stats, result);
   }
 
   static final class TracingServerCall<ReqT, RespT>
@@ -81,24 +84,39 @@ public class TracingServerInterceptor implements ServerInterceptor {
   static final class TracingServerCallListener<ReqT>
       extends ForwardingServerCallListener.SimpleForwardingServerCallListener<ReqT> {
     private final AgentSpan span;
+    private final GrpcMessageStats stats;
 
-    TracingServerCallListener(final AgentSpan span, final ServerCall.Listener<ReqT> delegate) {
+    TracingServerCallListener(
+        final AgentSpan span,
+        final GrpcMessageStats stats,
+        final ServerCall.Listener<ReqT> delegate) {
       super(delegate);
       this.span = span;
+      this.stats = stats;
     }
 
     @Override
     public void onMessage(final ReqT message) {
+      if (null != stats && !stats.onMessage(message)) {
+        // not sampled, only accounted for on the call span
+        try (final AgentScope scope = activateSpan(span)) {
+          delegate().onMessage(message);
+        } catch (final Throwable e) {
+          DECORATE.onError(span, e);
+          finishCallSpan();
+          throw e;
+        }
+        return;
+      }
       final AgentSpan span =
           startSpan(GRPC_MESSAGE, this.span.context())
-              .setTag("message.type", message.getClass().getName());
+              .setTag(MESSAGE_TYPE, GrpcMessageStats.messageType(message));
       DECORATE.afterStart(span);
       try (AgentScope scope = activateSpan(span)) {
         delegate().onMessage(message);
       } catch (final Throwable e) {
         DECORATE.onError(span, e);
-        DECORATE.beforeFinish(this.span);
-        this.span.finish();
+        finishCallSpan();
         throw e;
       } finally {
         DECORATE.beforeFinish(span);
@@ -108,12 +126,16 @@ public class TracingServerInterceptor implements ServerInterceptor {
 
     @Override
     public void onHalfClose() {
+      if (null != stats) {
+        // no more messages will arrive, and the application may
+        // finish the call span as soon as it is told about it
+        stats.applyTo(span);
+      }
       try (final AgentScope scope = activateSpan(span)) {
         delegate().onHalfClose();
       } catch (final Throwable e) {
         DECORATE.onError(span, e);
-        DECORATE.beforeFinish(span);
-        span.finish();
+        finishCallSpan();
         throw e;
       }
     }
@@ -128,8 +150,7 @@ public class TracingServerInterceptor implements ServerInterceptor {
         DECORATE.onError(span, e);
         throw e;
       } finally {
-        DECORATE.beforeFinish(span);
-        span.finish();
+        finishCallSpan();
       }
     }
 
@@ -142,8 +163,7 @@ public class TracingServerInterceptor implements ServerInterceptor {
         DECORATE.onError(span, e);
         throw e;
       } finally {
-        DECORATE.beforeFinish(span);
-        span.finish();
+        finishCallSpan();
       }
     }
 
@@ -153,10 +173,17 @@ public class TracingServerInterceptor implements ServerInterceptor {
         delegate().onReady();
       } catch (final Throwable e) {
         DECORATE.onError(span, e);
-        DECORATE.beforeFinish(span);
-        span.finish();
+        finishCallSpan();
         throw e;
       }
     }
+
+    private void finishCallSpan() {
+      if (null != stats) {
+        stats.applyTo(span);
+      }
+      DECORATE.beforeFinish(span);
+      span.finish();
+    }
   }
 }
@@ -0,0 +1,169 @@
+import datadog.trace.agent.test.AgentTestRunner
+import datadog.trace.api.DDSpanTypes
+import datadog.trace.bootstrap.instrumentation.api.Tags
+import example.GreeterGrpc
+import example.Helloworld
+import io.grpc.BindableService
+import io.grpc.ManagedChannel
+import io.grpc.Server
+import io.grpc.inprocess.InProcessChannelBuilder
+import io.grpc.inprocess.InProcessServerBuilder
+import io.grpc.stub.StreamObserver
+
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicReference
+
+import static datadog.trace.api.config.TraceInstrumentationConfig.GRPC_MESSAGE_AGGREGATION_ENABLED
+import static datadog.trace.api.config.TraceInstrumentationConfig.GRPC_MESSAGE_SPAN_INTERVAL
+
+class GrpcStreamingAggregationTest extends AgentTestRunner {
+
+  @Override
+  void configurePreAgent() {
+    super.configurePreAgent()
+
+    injectSysConfig(GRPC_MESSAGE_AGGREGATION_ENABLED, "true")
+    injectSysConfig(GRPC_MESSAGE_SPAN_INTERVAL, "2")
+  }
+
+  def "messages are aggregated on the call span"() {
+    setup:
+    def clientReceived = new CopyOnWriteArrayList<>()
+    def error = new AtomicReference()
+
+    BindableService greeter = new GreeterGrpc.GreeterImplBase() {
+      @Override
+      StreamObserver<Helloworld.Response> conversation(StreamObserver<Helloworld.Response> observer) {
+        return new StreamObserver<Helloworld.Response>() {
+          @Override
+          void onNext(Helloworld.Response value) {
+            observer.onNext(value)
+          }
+
+          @Override
+          void onError(Throwable t) {
+            error.set(t)
+            observer.onError(t)
+          }
+
+          @Override
+          void onCompleted() {
+            observer.onCompleted()
+          }
+        }
+      }
+    }
+    Server server = InProcessServerBuilder.forName(getClass().name).addService(greeter).build().start()
+
+    ManagedChannel channel = InProcessChannelBuilder.forName(getClass().name).build()
+    GreeterGrpc.GreeterStub client = GreeterGrpc.newStub(channel).withWaitForReady()
+
+    when:
+    def observer = client.conversation(new StreamObserver<Helloworld.Response>() {
+      @Override
+      void onNext(Helloworld.Response value) {
+        clientReceived << value.message
+      }
+
+      @Override
+      void onError(Throwable t) {
+        error.set(t)
+      }
+
+      @Override
+      void onCompleted() {
+      }
+    })
+
+    (1..3).each {
+      observer.onNext(Helloworld.Response.newBuilder().setMessage("call $it").build())
+    }
+    observer.onCompleted()
+
+    then:
+    TEST_WRITER.waitForTraces(2)
+    error.get() == null
+    clientReceived == (1..3).collect { "call $it" }
+
+    // only the first and third message of each stream get their own span
+    assertTraces(2) {
+      trace(3) {
+        span {
+          operationName "grpc.client"
+          resourceName "example.Greeter/Conversation"
+          spanType DDSpanTypes.RPC
+          parent()
+          errored false
+          tags {
+            "$Tags.COMPONENT" "grpc-client"
+            "$Tags.SPAN_KIND" Tags.SPAN_KIND_CLIENT
+            "status.code" "OK"
+            "message.type" "example.Helloworld\$Response"
+            defaultTags()
+          }
+          metrics {
+            "grpc.message.count" 3
+            "grpc.message.bytes" { it > 0 }
+            "grpc.message.interarrival.min_ms" Double
+            "grpc.message.interarrival.avg_ms" Double
+            "grpc.message.interarrival.max_ms" Double
+            defaultMetrics()
+          }
+        }
+        2.times {
+          span {
+            operationName "grpc.message"
+            childOf span(0)
+            tags {
+              "$Tags.COMPONENT" "grpc-client"
+              "$Tags.SPAN_KIND" Tags.SPAN_KIND_CLIENT
+              "message.type" "example.Helloworld\$Response"
+              defaultTags()
+            }
+          }
+        }
+      }
+      trace(3) {
+        span {
+          operationName "grpc.server"
+          resourceName "example.Greeter/Conversation"
+          spanType DDSpanTypes.RPC
+          childOf trace(0).get(0)
+          errored false
+          tags {
+            "$Tags.COMPONENT" "grpc-server"
+            "$Tags.SPAN_KIND" Tags.SPAN_KIND_SERVER
+            "status.code" "OK"
+            "message.type" "example.Helloworld\$Response"
+            defaultTags(true)
+          }
+          metrics {
+            "grpc.message.count" 3
+            "grpc.message.bytes" { it > 0 }
+            "grpc.message.interarrival.min_ms" Double
+            "grpc.message.interarrival.avg_ms" Double
+            "grpc.message.interarrival.max_ms" Double
+            defaultMetrics()
+          }
+        }
+        2.times {
+          span {
+            operationName "grpc.message"
+            childOf span(0)
+            tags {
+              "$Tags.COMPONENT" "grpc-server"
+              "$Tags.SPAN_KIND" Tags.SPAN_KIND_SERVER
+              "message.type" "example.Helloworld\$Response"
+              defaultTags()
+            }
+          }
+        }
+      }
+    }
+
+    cleanup:
+    channel?.shutdownNow()?.awaitTermination(10, TimeUnit.SECONDS)
+    server?.shutdownNow()?.awaitTermination()
+  }
+}
@@ -310,4 +310,39 @@ class GrpcTest extends AgentTestRunner {
     then:
     keys == ["test"]
   }
+
+  def "skip binary headers with prefix"() {
+    setup:
+    def meta = new Metadata()
+    meta.put(Metadata.Key.<String> of("ot-baggage-test", Metadata.ASCII_STRING_MARSHALLER), "val")
+    meta.put(Metadata.Key.<byte[]> of("ot-baggage-test-bin", Metadata.BINARY_BYTE_MARSHALLER), "bin-val".bytes)
+
+    when:
+    def keys = new ArrayList()
+    GrpcExtractAdapter.GETTER.forEachKeyWithPrefix(meta, "ot-baggage-", new AgentPropagation.KeyClassifier() {
+
+      @Override
+      boolean accept(String key, String value) {
+        keys.add(key.toLowerCase())
+        return true
+      }
+    })
+
+    then:
+    keys == ["ot-baggage-test"]
+  }
+
+  def "get returns null for the key #key"() {
+    setup:
+    def meta = new Metadata()
+    meta.put(Metadata.Key.<String> of("test", Metadata.ASCII_STRING_MARSHALLER), "val")
+    meta.put(Metadata.Key.<byte[]> of("test-bin", Metadata.BINARY_BYTE_MARSHALLER), "bin-val".bytes)
+
+    expect:
+    GrpcExtractAdapter.GETTER.get(meta, "test") == "val"
+    GrpcExtractAdapter.GETTER.get(meta, key) == null
+
+    where:
+    key << ["test-bin", "not a key", ":authority", "missing"]
+  }
 }
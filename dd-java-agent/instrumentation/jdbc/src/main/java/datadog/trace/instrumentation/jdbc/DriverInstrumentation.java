@@ -47,6 +47,8 @@ public final class DriverInstrumentation extends Instrumenter.Tracing {
   public String[] helperClassNames() {
     return new String[] {
       packageName + ".JDBCDecorator",
+      packageName + ".JDBCDecorator$ParseUrl",
+      packageName + ".JDBCDecorator$DBInfoKey",
     };
   }
 
@@ -2,6 +2,9 @@ package datadog.trace.instrumentation.jdbc;
 
 import static datadog.trace.bootstrap.instrumentation.api.Tags.DB_OPERATION;
 
+import datadog.trace.api.Function;
+import datadog.trace.api.cache.DDCache;
+import datadog.trace.api.cache.DDCaches;
 import datadog.trace.bootstrap.ContextStore;
 import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
 import datadog.trace.bootstrap.instrumentation.api.InternalSpanTypes;
@@ -14,6 +17,7 @@ import datadog.trace.bootstrap.instrumentation.jdbc.JDBCConnectionUrlParser;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.SQLException;
+import java.util.Properties;
 
 public class JDBCDecorator extends DatabaseClientDecorator<DBInfo> {
 
@@ -25,6 +29,13 @@ public class JDBCDecorator extends DatabaseClientDecorator<DBInfo> {
       UTF8BytesString.create("java-jdbc-statement");
   private static final UTF8BytesString JDBC_PREPARED_STATEMENT =
       UTF8BytesString.create("java-jdbc-prepared_statement");
+  /** How many levels of pool proxies to look through for the physical connection. */
+  private static final int MAX_UNWRAP_DEPTH = 3;
+  /**
+   * Connection pools hand out a new proxy on every checkout, so the URL of connections seen for the
+   * first time is parsed only once per URL and client info instead of once per proxy.
+   */
+  private static final DDCache<DBInfoKey, DBInfo> CACHED_DB_INFO = DDCaches.newFixedSizeCache(64);
 
   @Override
   protected String[] instrumentationNames() {
@@ -78,27 +89,36 @@ public class JDBCDecorator extends DatabaseClientDecorator<DBInfo> {
     /*
      * Logic to get the DBInfo from a JDBC Connection, if the connection was not created via
      * Driver.connect, or it has never seen before, the connectionInfo map will return null and will
-     * attempt to extract DBInfo from the connection. If the DBInfo can't be extracted, then the
-     * connection will be stored with the DEFAULT DBInfo as the value in the connectionInfo map to
-     * avoid retry overhead.
+     * attempt to extract DBInfo from the connection. Pool proxies are unwrapped first to reuse the
+     * DBInfo of the physical connection, failing that the URL is parsed together with the client
+     * info, at most once per URL and client info, and the DBInfo is stored for the physical
+     * connection too, so later proxies of it reuse it without asking the driver again. If the
+     * DBInfo can't be extracted, then the connection will be stored with the DEFAULT DBInfo as the
+     * value in the connectionInfo map to avoid retry overhead.
      */
     {
       if (dbInfo == null) {
-        try {
-          final DatabaseMetaData metaData = connection.getMetaData();
-          final String url = metaData.getURL();
-          if (url != null) {
-            try {
-              dbInfo = JDBCConnectionUrlParser.parse(url, connection.getClientInfo());
-            } catch (final Throwable ex) {
-              // getClientInfo is likely not allowed.
-              dbInfo = JDBCConnectionUrlParser.parse(url, null);
+        final Connection delegate = unwrap(connection, contextStore);
+        if (delegate != connection) {
+          dbInfo = contextStore.get(delegate);
+        }
+        if (dbInfo == null) {
+          try {
+            final DatabaseMetaData metaData = connection.getMetaData();
+            final String url = metaData.getURL();
+            if (url != null) {
+              dbInfo =
+                  CACHED_DB_INFO.computeIfAbsent(
+                      new DBInfoKey(url, clientInfo(connection)), ParseUrl.INSTANCE);
+            } else {
+              dbInfo = DBInfo.DEFAULT;
             }
-          } else {
+          } catch (final SQLException se) {
             dbInfo = DBInfo.DEFAULT;
           }
-        } catch (final SQLException se) {
-          dbInfo = DBInfo.DEFAULT;
+          if (delegate != connection) {
+            contextStore.put(delegate, dbInfo);
+          }
         }
         contextStore.put(connection, dbInfo);
       }
@@ -110,6 +130,41 @@ public class JDBCDecorator extends DatabaseClientDecorator<DBInfo> {
     return super.onConnection(span, dbInfo);
   }
 
+  /**
+   * Looks through pool proxies for the first connection with a DBInfo, or else the innermost
+   * connection reached. Returns the connection itself when it isn't a wrapper.
+   */
+  private static Connection unwrap(
+      Connection connection, final ContextStore<Connection, DBInfo> contextStore) {
+    try {
+      for (int depth = 0; depth < MAX_UNWRAP_DEPTH; ++depth) {
+        if (!connection.isWrapperFor(Connection.class)) {
+          break;
+        }
+        final Connection unwrapped = connection.unwrap(Connection.class);
+        if (null == unwrapped || unwrapped == connection) {
+          break;
+        }
+        connection = unwrapped;
+        if (null != contextStore.get(unwrapped)) {
+          break;
+        }
+      }
+    } catch (final Throwable ignored) {
+      // JDBC 3 drivers don't implement Wrapper, and closed proxies may refuse to unwrap
+    }
+    return connection;
+  }
+
+  private static Properties clientInfo(final Connection connection) {
+    try {
+      return connection.getClientInfo();
+    } catch (final Throwable ex) {
+      // getClientInfo is likely not allowed.
+      return null;
+    }
+  }
+
   public AgentSpan onStatement(AgentSpan span, DBQueryInfo dbQueryInfo) {
     return withQueryInfo(span, dbQueryInfo, JDBC_STATEMENT);
   }
@@ -127,4 +182,45 @@ public class JDBCDecorator extends DatabaseClientDecorator<DBInfo> {
     }
     return span.setTag(Tags.COMPONENT, component);
   }
+
+  /**
+   * The client info of the connection is part of the key because the user, database and server it
+   * holds are parsed into the DBInfo as well.
+   */
+  private static final class DBInfoKey {
+    private final String url;
+    private final Properties clientInfo;
+
+    private DBInfoKey(final String url, final Properties clientInfo) {
+      this.url = url;
+      this.clientInfo = clientInfo;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof DBInfoKey)) {
+        return false;
+      }
+      final DBInfoKey that = (DBInfoKey) o;
+      return url.equals(that.url)
+          && (null == clientInfo ? null == that.clientInfo : clientInfo.equals(that.clientInfo));
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * url.hashCode() + (null == clientInfo ? 0 : clientInfo.hashCode());
+    }
+  }
+
+  private static final class ParseUrl implements Function<DBInfoKey, DBInfo> {
+    private static final ParseUrl INSTANCE = new ParseUrl();
+
+    @Override
+    public DBInfo apply(final DBInfoKey key) {
+      return JDBCConnectionUrlParser.parse(key.url, key.clientInfo);
+    }
+  }
 }
@@ -149,6 +149,8 @@ public final class PreparedStatementInstrumentation extends Instrumenter.Tracing
   public String[] helperClassNames() {
     return new String[] {
       packageName + ".JDBCDecorator",
+      packageName + ".JDBCDecorator$ParseUrl",
+      packageName + ".JDBCDecorator$DBInfoKey",
     };
   }
 
@@ -55,6 +55,8 @@ public final class StatementInstrumentation extends Instrumenter.Tracing {
   public String[] helperClassNames() {
     return new String[] {
       packageName + ".JDBCDecorator",
+      packageName + ".JDBCDecorator$ParseUrl",
+      packageName + ".JDBCDecorator$DBInfoKey",
     };
   }
 
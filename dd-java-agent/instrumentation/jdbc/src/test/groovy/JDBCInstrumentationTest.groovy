@@ -2,12 +2,15 @@ import com.mchange.v2.c3p0.ComboPooledDataSource
 import com.zaxxer.hikari.HikariConfig
 import com.zaxxer.hikari.HikariDataSource
 import datadog.trace.agent.test.AgentTestRunner
+import datadog.trace.agent.test.asserts.ListWriterAssert
 import datadog.trace.api.DDSpanTypes
 import datadog.trace.bootstrap.instrumentation.api.Tags
 import org.apache.derby.jdbc.EmbeddedDataSource
 import org.h2.jdbcx.JdbcDataSource
 import spock.lang.Shared
 import spock.lang.Unroll
+import test.ClientInfoConnection
+import test.ProxyConnection
 import test.TestConnection
 
 import javax.sql.DataSource
@@ -679,6 +682,95 @@ class JDBCInstrumentationTest extends AgentTestRunner {
     obfuscatedQuery = "testing ?"
   }
 
+  def "connections to the same url are tagged with their own client info"() {
+    setup:
+    def connections = [
+      new ClientInfoConnection(["user": "alice", "databaseName": "first"]),
+      new ClientInfoConnection(["user": "bob", "databaseName": "second"]),
+      new ClientInfoConnection(["user": "alice", "databaseName": "first"])
+    ]
+
+    when:
+    connections.each { connection ->
+      connection.createStatement().executeQuery(query)
+    }
+
+    then:
+    assertTraces(3) {
+      clientInfoTrace(it, "alice", "first")
+      clientInfoTrace(it, "bob", "second")
+      clientInfoTrace(it, "alice", "first")
+    }
+    connections.every { it.clientInfoCalls == 1 }
+
+    where:
+    query = "testing 123"
+  }
+
+  def "wrapped connections reuse the DBInfo of the connection they wrap"() {
+    setup:
+    def connection = new ClientInfoConnection(["user": "carol", "databaseName": "third"])
+
+    when:
+    connection.createStatement().executeQuery(query)
+    new ProxyConnection(connection).createStatement().executeQuery(query)
+    new ProxyConnection(new ProxyConnection(connection)).createStatement().executeQuery(query)
+
+    then:
+    assertTraces(3) {
+      clientInfoTrace(it, "carol", "third")
+      clientInfoTrace(it, "carol", "third")
+      clientInfoTrace(it, "carol", "third")
+    }
+    connection.clientInfoCalls == 1
+
+    where:
+    query = "testing 123"
+  }
+
+  def "proxies of a connection which is never used directly read its client info once"() {
+    setup:
+    def connection = new ClientInfoConnection(["user": "dave", "databaseName": "fourth"])
+
+    when:
+    new ProxyConnection(connection).createStatement().executeQuery(query)
+    new ProxyConnection(connection).createStatement().executeQuery(query)
+    new ProxyConnection(new ProxyConnection(connection)).createStatement().executeQuery(query)
+
+    then:
+    assertTraces(3) {
+      clientInfoTrace(it, "dave", "fourth")
+      clientInfoTrace(it, "dave", "fourth")
+      clientInfoTrace(it, "dave", "fourth")
+    }
+    connection.clientInfoCalls == 1
+
+    where:
+    query = "testing 123"
+  }
+
+  static clientInfoTrace(ListWriterAssert writer, String user, String instance) {
+    writer.trace(1) {
+      span {
+        operationName "testdb.query"
+        serviceName "testdb"
+        resourceName "testing ?"
+        spanType DDSpanTypes.SQL
+        errored false
+        topLevel true
+        tags {
+          "$Tags.COMPONENT" "java-jdbc-statement"
+          "$Tags.SPAN_KIND" Tags.SPAN_KIND_CLIENT
+          "$Tags.DB_TYPE" "testdb"
+          "$Tags.DB_INSTANCE" instance
+          "$Tags.DB_USER" user
+          "$Tags.DB_OPERATION" CharSequence
+          defaultTags()
+        }
+      }
+    }
+  }
+
   @Unroll
   def "#connectionPoolName connections should be cached in case of wrapped connections"() {
     setup:
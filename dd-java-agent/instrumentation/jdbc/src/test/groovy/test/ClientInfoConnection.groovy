@@ -0,0 +1,23 @@
+package test
+
+import java.sql.SQLException
+
+/**
+ * A JDBC connection class that reports the given client info, and counts how often it was asked for
+ */
+class ClientInfoConnection extends TestConnection {
+  final Properties clientInfo
+  int clientInfoCalls = 0
+
+  ClientInfoConnection(Map<String, String> clientInfo) {
+    super(false)
+    this.clientInfo = new Properties()
+    this.clientInfo.putAll(clientInfo)
+  }
+
+  @Override
+  Properties getClientInfo() throws SQLException {
+    ++clientInfoCalls
+    return clientInfo
+  }
+}
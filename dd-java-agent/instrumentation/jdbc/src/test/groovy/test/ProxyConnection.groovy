@@ -0,0 +1,19 @@
+package test
+
+import java.sql.Connection
+import java.sql.SQLException
+import java.sql.Statement
+
+/**
+ * A wrapped connection whose statements report the wrapper, like the proxies of connection pools
+ */
+class ProxyConnection extends WrappedConnection {
+  ProxyConnection(Connection delegate) {
+    super(delegate)
+  }
+
+  @Override
+  Statement createStatement() throws SQLException {
+    return new TestStatement(this)
+  }
+}
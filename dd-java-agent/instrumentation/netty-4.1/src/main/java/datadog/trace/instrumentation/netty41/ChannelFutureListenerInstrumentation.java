@@ -57,6 +57,7 @@ public class ChannelFutureListenerInstrumentation extends Instrumenter.Tracing {
       packageName + ".client.HttpClientTracingHandler",
       // server helpers
       packageName + ".server.NettyHttpServerDecorator",
+      packageName + ".server.NettyRequestExtractAdapter",
       packageName + ".server.HttpServerRequestTracingHandler",
       packageName + ".server.HttpServerResponseTracingHandler",
       packageName + ".server.HttpServerTracingHandler"
@@ -9,19 +9,27 @@ import static datadog.trace.instrumentation.netty41.server.NettyHttpServerDecora
 import datadog.trace.bootstrap.instrumentation.api.AgentScope;
 import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
 import datadog.trace.bootstrap.instrumentation.api.AgentSpan.Context;
-import datadog.trace.bootstrap.instrumentation.api.ContextVisitors;
 import datadog.trace.instrumentation.netty41.AttributeKeys;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.handler.codec.http.HttpRequest;
 
+/**
+ * Starts the server span when a request is read. The handler is not shared, so the span of the
+ * channel is kept in a field and only published as a channel attribute for other integrations.
+ *
+ * <p>The span is only active while a message is passed down the pipeline. Netty doesn't guarantee
+ * that {@code channelReadComplete} follows a read on the same call stack, so a scope kept open for
+ * the whole read batch could leak into the next channel served by the event loop.
+ */
 public class HttpServerRequestTracingHandler extends ChannelInboundHandlerAdapter {
 
+  private AgentSpan span;
+
   @Override
   public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
 
     if (!(msg instanceof HttpRequest)) {
-      final AgentSpan span = ctx.channel().attr(AttributeKeys.SERVER_ATTRIBUTE_KEY).get();
       if (span == null) {
         ctx.fireChannelRead(msg); // superclass does not throw
       } else {
@@ -36,7 +44,7 @@ public class HttpServerRequestTracingHandler extends ChannelInboundHandlerAdapte
     final HttpRequest request = (HttpRequest) msg;
 
     final Context extractedContext =
-        propagate().extract(request.headers(), ContextVisitors.stringValuesEntrySet());
+        propagate().extract(request.headers(), NettyRequestExtractAdapter.GETTER);
 
     final AgentSpan span = startSpan(NETTY_REQUEST, extractedContext);
     span.setMeasured(true);
@@ -47,6 +55,7 @@ public class HttpServerRequestTracingHandler extends ChannelInboundHandlerAdapte
 
       scope.setAsyncPropagation(true);
 
+      this.span = span;
       ctx.channel().attr(AttributeKeys.SERVER_ATTRIBUTE_KEY).set(span);
 
       try {
@@ -59,4 +68,8 @@ public class HttpServerRequestTracingHandler extends ChannelInboundHandlerAdapte
       }
     }
   }
+
+  AgentSpan span() {
+    return span;
+  }
 }
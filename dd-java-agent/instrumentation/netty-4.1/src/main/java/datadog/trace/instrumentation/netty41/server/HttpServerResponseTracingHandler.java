@@ -15,10 +15,28 @@ import io.netty.handler.codec.http.HttpResponse;
 
 public class HttpServerResponseTracingHandler extends ChannelOutboundHandlerAdapter {
 
+  /** The handler of the same channel which started the span, if it is known. */
+  private final HttpServerRequestTracingHandler requestHandler;
+
+  public HttpServerResponseTracingHandler() {
+    this(null);
+  }
+
+  HttpServerResponseTracingHandler(final HttpServerRequestTracingHandler requestHandler) {
+    this.requestHandler = requestHandler;
+  }
+
   @Override
   public void write(final ChannelHandlerContext ctx, final Object msg, final ChannelPromise prm) {
-    final AgentSpan span = ctx.channel().attr(AttributeKeys.SERVER_ATTRIBUTE_KEY).get();
-    if (span == null || !(msg instanceof HttpResponse)) {
+    if (!(msg instanceof HttpResponse)) {
+      ctx.write(msg, prm);
+      return;
+    }
+    final AgentSpan span =
+        null != requestHandler
+            ? requestHandler.span()
+            : ctx.channel().attr(AttributeKeys.SERVER_ATTRIBUTE_KEY).get();
+    if (span == null) {
       ctx.write(msg, prm);
       return;
     }
@@ -7,6 +7,11 @@ public class HttpServerTracingHandler
         HttpServerRequestTracingHandler, HttpServerResponseTracingHandler> {
 
   public HttpServerTracingHandler() {
-    super(new HttpServerRequestTracingHandler(), new HttpServerResponseTracingHandler());
+    this(new HttpServerRequestTracingHandler());
+  }
+
+  private HttpServerTracingHandler(final HttpServerRequestTracingHandler requestHandler) {
+    // both halves share the span of the channel without going through its attributes
+    super(requestHandler, new HttpServerResponseTracingHandler(requestHandler));
   }
 }
@@ -0,0 +1,38 @@
+package datadog.trace.instrumentation.netty41.server;
+
+import datadog.trace.bootstrap.instrumentation.api.AgentPropagation;
+import io.netty.handler.codec.http.HttpHeaders;
+import java.util.Map;
+
+public class NettyRequestExtractAdapter
+    implements AgentPropagation.KeyedContextVisitor<HttpHeaders> {
+
+  public static final NettyRequestExtractAdapter GETTER = new NettyRequestExtractAdapter();
+
+  @Override
+  public void forEachKey(HttpHeaders carrier, AgentPropagation.KeyClassifier classifier) {
+    for (Map.Entry<String, String> header : carrier) {
+      if (!classifier.accept(header.getKey(), header.getValue())) {
+        return;
+      }
+    }
+  }
+
+  @Override
+  public String get(HttpHeaders carrier, String key) {
+    // header names are case insensitive
+    return carrier.get(key);
+  }
+
+  @Override
+  public void forEachKeyWithPrefix(
+      HttpHeaders carrier, String prefix, AgentPropagation.KeyClassifier classifier) {
+    for (Map.Entry<String, String> header : carrier) {
+      String key = header.getKey();
+      if (key.regionMatches(true, 0, prefix, 0, prefix.length())
+          && !classifier.accept(key, header.getValue())) {
+        return;
+      }
+    }
+  }
+}
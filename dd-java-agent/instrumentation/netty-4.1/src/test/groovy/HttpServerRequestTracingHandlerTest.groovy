@@ -0,0 +1,114 @@
+import datadog.trace.agent.test.AgentTestRunner
+import datadog.trace.instrumentation.netty41.server.HttpServerRequestTracingHandler
+import io.netty.buffer.Unpooled
+import io.netty.channel.ChannelHandlerContext
+import io.netty.channel.ChannelInboundHandlerAdapter
+import io.netty.channel.embedded.EmbeddedChannel
+import io.netty.handler.codec.http.DefaultHttpContent
+import io.netty.handler.codec.http.DefaultHttpRequest
+import io.netty.handler.codec.http.LastHttpContent
+import io.netty.util.ReferenceCountUtil
+
+import static datadog.trace.bootstrap.instrumentation.api.AgentTracer.activeScope
+import static datadog.trace.bootstrap.instrumentation.api.AgentTracer.activeSpan
+import static io.netty.handler.codec.http.HttpMethod.GET
+import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1
+
+class HttpServerRequestTracingHandlerTest extends AgentTestRunner {
+
+  def recorder = new ActiveScopeRecorder()
+  def channel = new EmbeddedChannel(new HttpServerRequestTracingHandler(), recorder)
+
+  def cleanup() {
+    recorder.reads*.span.findAll().unique()*.finish()
+    channel.finish()
+  }
+
+  def "the span is active while each message is passed down the pipeline"() {
+    when:
+    read(new DefaultHttpRequest(HTTP_1_1, GET, "/"), new DefaultHttpContent(Unpooled.buffer(1).writeByte(1)))
+    read(LastHttpContent.EMPTY_LAST_CONTENT)
+
+    then:
+    def reads = recorder.reads
+    reads.size() == 3
+    reads[0].span != null
+    reads*.span.unique().size() == 1
+    reads*.scope.unique().size() == 3
+    recorder.readCompleteSpans == [null, null]
+    activeSpan() == null
+  }
+
+  def "the scope is closed when the read is not followed by a read complete"() {
+    setup:
+    def otherRecorder = new ActiveScopeRecorder()
+    def otherChannel = new EmbeddedChannel(new HttpServerRequestTracingHandler(), otherRecorder)
+
+    when: "a message is read outside of a read loop"
+    channel.pipeline().fireChannelRead(new DefaultHttpRequest(HTTP_1_1, GET, "/"))
+
+    then:
+    recorder.reads[0].span != null
+    recorder.readCompleteSpans == []
+    activeSpan() == null
+
+    when: "another channel reads on the same thread"
+    otherChannel.pipeline().fireChannelRead(new DefaultHttpRequest(HTTP_1_1, GET, "/other"))
+    otherChannel.pipeline().fireChannelReadComplete()
+
+    then:
+    def other = otherRecorder.reads[0].span
+    other != null
+    other.traceId != recorder.reads[0].span.traceId
+
+    cleanup:
+    other?.finish()
+    otherChannel.finish()
+  }
+
+  def "a pipelined request in the same read batch gets its own span"() {
+    when:
+    read(new DefaultHttpRequest(HTTP_1_1, GET, "/first"), LastHttpContent.EMPTY_LAST_CONTENT,
+      new DefaultHttpRequest(HTTP_1_1, GET, "/second"), LastHttpContent.EMPTY_LAST_CONTENT)
+
+    then:
+    def spans = recorder.reads*.span
+    spans[0] != null
+    spans[0].is(spans[1])
+    spans[2] != null
+    spans[2].is(spans[3])
+    !spans[0].is(spans[2])
+    recorder.readCompleteSpans == [null]
+    activeSpan() == null
+  }
+
+  def "messages before the first request are not traced"() {
+    when:
+    read(new DefaultHttpContent(Unpooled.buffer(1).writeByte(1)))
+
+    then:
+    recorder.reads[0].span == null
+    activeSpan() == null
+  }
+
+  def read(Object... messages) {
+    messages.each { channel.pipeline().fireChannelRead(it) }
+    channel.pipeline().fireChannelReadComplete()
+  }
+
+  static class ActiveScopeRecorder extends ChannelInboundHandlerAdapter {
+    def reads = []
+    def readCompleteSpans = []
+
+    @Override
+    void channelRead(ChannelHandlerContext ctx, Object msg) {
+      reads << [span: activeSpan(), scope: activeScope()]
+      ReferenceCountUtil.release(msg)
+    }
+
+    @Override
+    void channelReadComplete(ChannelHandlerContext ctx) {
+      readCompleteSpans << activeSpan()
+    }
+  }
+}
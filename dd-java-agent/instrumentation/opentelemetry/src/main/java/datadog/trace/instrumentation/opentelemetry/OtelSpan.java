@@ -15,6 +15,7 @@ import java.util.concurrent.TimeUnit;
 public class OtelSpan implements Span, MutableSpan {
   private final AgentSpan delegate;
   private final TypeConverter converter;
+  private SpanContext context;
 
   OtelSpan(final AgentSpan agentSpan, final TypeConverter typeConverter) {
     delegate = agentSpan;
@@ -109,7 +110,12 @@ public class OtelSpan implements Span, MutableSpan {
 
   @Override
   public SpanContext getContext() {
-    return converter.toSpanContext(delegate.context());
+    // the context of a span never changes, a racy initialisation only costs an extra allocation
+    SpanContext spanContext = context;
+    if (null == spanContext) {
+      context = spanContext = converter.toSpanContext(delegate.context());
+    }
+    return spanContext;
   }
 
   @Override
@@ -10,6 +10,8 @@ import io.opentelemetry.trace.TraceState;
 public class OtelSpanContext extends SpanContext {
   private static final TraceFlags FLAGS = TraceFlags.builder().setIsSampled(true).build();
   private final AgentSpan.Context delegate;
+  private TraceId traceId;
+  private SpanId spanId;
 
   OtelSpanContext(final AgentSpan.Context delegate) {
     this.delegate = delegate;
@@ -17,12 +19,20 @@ public class OtelSpanContext extends SpanContext {
 
   @Override
   public TraceId getTraceId() {
-    return new TraceId(0, delegate.getTraceId().toLong());
+    TraceId id = traceId;
+    if (null == id) {
+      traceId = id = new TraceId(0, delegate.getTraceId().toLong());
+    }
+    return id;
   }
 
   @Override
   public SpanId getSpanId() {
-    return new SpanId(delegate.getSpanId().toLong());
+    SpanId id = spanId;
+    if (null == id) {
+      spanId = id = new SpanId(delegate.getSpanId().toLong());
+    }
+    return id;
   }
 
   @Override
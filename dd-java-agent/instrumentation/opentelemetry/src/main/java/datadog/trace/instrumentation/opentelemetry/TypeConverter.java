@@ -9,7 +9,7 @@ import io.opentelemetry.trace.SpanContext;
 
 // Centralized place to do conversions
 public class TypeConverter {
-  // TODO maybe add caching to reduce new objects being created
+  private final OtelSpan noopSpan = new OtelSpan(AgentTracer.NoopAgentSpan.INSTANCE, this);
 
   public AgentSpan toAgentSpan(final Span span) {
     if (span instanceof OtelSpan) {
@@ -22,7 +22,17 @@ public class TypeConverter {
     if (agentSpan == null) {
       return null;
     }
-    return new OtelSpan(agentSpan, this);
+    if (agentSpan == AgentTracer.NoopAgentSpan.INSTANCE) {
+      return noopSpan;
+    }
+    // the view is attached to the span so converting it again doesn't allocate
+    final Object wrapper = agentSpan.getWrapper();
+    if (wrapper instanceof OtelSpan) {
+      return (OtelSpan) wrapper;
+    }
+    final OtelSpan span = new OtelSpan(agentSpan, this);
+    agentSpan.setWrapper(span);
+    return span;
   }
 
   public Scope toScope(final AgentScope scope) {
@@ -193,6 +193,8 @@ class OpenTelemetryTest extends AgentTestRunner {
     expect:
     scope instanceof TraceScope
     tracer.currentSpan.delegate == scope.delegate.span()
+    tracer.currentSpan.is(span)
+    span.context.is(span.context)
 
     when:
     scope.close()
@@ -5,6 +5,7 @@ import datadog.trace.bootstrap.InstrumentationContext;
 import datadog.trace.bootstrap.instrumentation.api.AgentScope;
 import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
 import datadog.trace.bootstrap.instrumentation.api.AgentTracer;
+import datadog.trace.context.TraceScope;
 import net.bytebuddy.asm.Advice;
 import org.reactivestreams.Subscriber;
 import reactor.core.publisher.Hooks;
@@ -39,6 +40,14 @@ public class TerminalSubscriberAdvices {
         return null;
       }
 
+      final TraceScope activeScope = AgentTracer.activeScope();
+      if (activeScope instanceof AgentScope
+          && ((AgentScope) activeScope).span() == span
+          && activeScope.isAsyncPropagating()) {
+        // already active on this thread
+        return null;
+      }
+
       return AgentTracer.activateSpan(span, true);
     }
 
@@ -1,5 +1,7 @@
 package datadog.trace.instrumentation.reactor.core;
 
+import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
+import datadog.trace.bootstrap.instrumentation.api.AgentTracer;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import org.reactivestreams.Publisher;
@@ -8,6 +10,7 @@ import reactor.core.Fuseable;
 import reactor.core.Scannable;
 import reactor.core.publisher.Hooks;
 import reactor.core.publisher.Operators;
+import reactor.util.context.Context;
 
 /** Based on Spring Sleuth's Reactor instrumentation. */
 public class TracingOperator {
@@ -38,7 +41,18 @@ public class TracingOperator {
       if (filter.get(publisher.getClass())) {
         return sub;
       }
-      return new TracingSubscriber<>(sub, sub.currentContext());
+      final Context context = sub.currentContext();
+      final AgentSpan contextSpan = context.getOrDefault(TracingSubscriber.SPAN_KEY, null);
+      AgentSpan span = AgentTracer.activeSpan();
+      if (span == null) {
+        // subscribed from a thread where the span is not active, eg. after subscribeOn
+        span = contextSpan;
+      }
+      if (span == null) {
+        return sub;
+      }
+      return new TracingSubscriber<>(
+          sub, span == contextSpan ? context : context.put(TracingSubscriber.SPAN_KEY, span), span);
     }
   }
 
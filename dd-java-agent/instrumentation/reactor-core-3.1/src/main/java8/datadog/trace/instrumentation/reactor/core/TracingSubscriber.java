@@ -1,5 +1,6 @@
 package datadog.trace.instrumentation.reactor.core;
 
+import datadog.trace.bootstrap.instrumentation.api.AgentScope;
 import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
 import datadog.trace.bootstrap.instrumentation.api.AgentTracer;
 import datadog.trace.context.TraceScope;
@@ -11,8 +12,15 @@ import reactor.util.context.Context;
 /**
  * Based on OpenTracing code.
  * https://github.com/opentracing-contrib/java-reactor/blob/master/src/main/java/io/opentracing/contrib/reactor/TracedSubscriber.java
+ *
+ * <p>The span is only activated when it is not already the active span of the signalling thread,
+ * which is typically only the case after the stream hopped threads, so that signals delivered on
+ * the subscribing thread do not pay for an activation each.
  */
 public class TracingSubscriber<T> implements CoreSubscriber<T> {
+  /** Key of the span in the Reactor {@link Context} of a traced subscriber. */
+  static final Class<AgentSpan> SPAN_KEY = AgentSpan.class;
+
   private final Subscriber<? super T> subscriber;
   private final Context context;
   private final AgentSpan span;
@@ -35,17 +43,38 @@ public class TracingSubscriber<T> implements CoreSubscriber<T> {
 
   @Override
   public void onNext(final T o) {
-    withActiveSpan(() -> subscriber.onNext(o));
+    final AgentScope scope = activateSpan();
+    try {
+      subscriber.onNext(o);
+    } finally {
+      if (scope != null) {
+        scope.close();
+      }
+    }
   }
 
   @Override
   public void onError(final Throwable throwable) {
-    withActiveSpan(() -> subscriber.onError(throwable));
+    final AgentScope scope = activateSpan();
+    try {
+      subscriber.onError(throwable);
+    } finally {
+      if (scope != null) {
+        scope.close();
+      }
+    }
   }
 
   @Override
   public void onComplete() {
-    withActiveSpan(subscriber::onComplete);
+    final AgentScope scope = activateSpan();
+    try {
+      subscriber.onComplete();
+    } finally {
+      if (scope != null) {
+        scope.close();
+      }
+    }
   }
 
   @Override
@@ -53,14 +82,17 @@ public class TracingSubscriber<T> implements CoreSubscriber<T> {
     return context;
   }
 
-  private void withActiveSpan(final Runnable runnable) {
-    if (span != null) {
-      try (final TraceScope scope = AgentTracer.activateSpan(span)) {
-        scope.setAsyncPropagation(true);
-        runnable.run();
-      }
-    } else {
-      runnable.run();
+  /** @return the scope to close after the signal or null if the span was already active */
+  private AgentScope activateSpan() {
+    if (span == null) {
+      return null;
+    }
+    final TraceScope activeScope = AgentTracer.activeScope();
+    if (activeScope instanceof AgentScope
+        && ((AgentScope) activeScope).span() == span
+        && activeScope.isAsyncPropagating()) {
+      return null;
     }
+    return AgentTracer.activateSpan(span, true);
   }
 }
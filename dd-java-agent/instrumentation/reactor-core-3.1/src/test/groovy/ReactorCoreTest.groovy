@@ -97,6 +97,12 @@ class ReactorCoreTest extends AgentTestRunner {
     }
 
     "mono from callable"  | 12       | 2         | { -> Mono.fromCallable({ addOneFunc(10) }).map(addOne) }
+    "publishOn flux"      | [13, 14] | 4         | { ->
+      Flux.fromIterable([11, 12]).map(addOne).publishOn(Schedulers.parallel()).map(addOne)
+    }
+    "subscribeOn flux"    | [15, 16] | 4         | { ->
+      Flux.fromIterable([13, 14]).map(addOne).subscribeOn(Schedulers.parallel()).map(addOne)
+    }
   }
 
   def "Publisher error '#name' test"() {
@@ -5,7 +5,7 @@ import java.util.Enumeration;
 import javax.servlet.http.HttpServletRequest;
 
 public class HttpServletRequestExtractAdapter
-    implements AgentPropagation.ContextVisitor<HttpServletRequest> {
+    implements AgentPropagation.KeyedContextVisitor<HttpServletRequest> {
 
   public static final HttpServletRequestExtractAdapter GETTER =
       new HttpServletRequestExtractAdapter();
@@ -33,4 +33,39 @@ public class HttpServletRequestExtractAdapter
       }
     }
   }
+
+  @Override
+  public String get(HttpServletRequest carrier, String key) {
+    // attributes set by ServletRequestSetter override the headers
+    Object attribute = carrier.getAttribute(key);
+    if (attribute instanceof String) {
+      return (String) attribute;
+    }
+    // header names are case insensitive
+    return carrier.getHeader(key);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public void forEachKeyWithPrefix(
+      HttpServletRequest carrier, String prefix, AgentPropagation.KeyClassifier classifier) {
+    Enumeration<String> headerNames = carrier.getHeaderNames();
+    while (headerNames.hasMoreElements()) {
+      String header = headerNames.nextElement();
+      if (header.regionMatches(true, 0, prefix, 0, prefix.length())
+          && !classifier.accept(header, carrier.getHeader(header))) {
+        break;
+      }
+    }
+    Enumeration<String> attributeNames = carrier.getAttributeNames();
+    while (attributeNames.hasMoreElements()) {
+      String name = attributeNames.nextElement();
+      if (name.regionMatches(true, 0, prefix, 0, prefix.length())) {
+        Object attribute = carrier.getAttribute(name);
+        if (attribute instanceof String && !classifier.accept(name, (String) attribute)) {
+          return;
+        }
+      }
+    }
+  }
 }
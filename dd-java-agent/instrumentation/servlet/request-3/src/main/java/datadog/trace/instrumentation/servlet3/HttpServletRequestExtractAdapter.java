@@ -5,7 +5,7 @@ import java.util.Enumeration;
 import javax.servlet.http.HttpServletRequest;
 
 public class HttpServletRequestExtractAdapter
-    implements AgentPropagation.ContextVisitor<HttpServletRequest> {
+    implements AgentPropagation.KeyedContextVisitor<HttpServletRequest> {
 
   public static final HttpServletRequestExtractAdapter GETTER =
       new HttpServletRequestExtractAdapter();
@@ -20,4 +20,23 @@ public class HttpServletRequestExtractAdapter
       }
     }
   }
+
+  @Override
+  public String get(HttpServletRequest carrier, String key) {
+    // header names are case insensitive
+    return carrier.getHeader(key);
+  }
+
+  @Override
+  public void forEachKeyWithPrefix(
+      HttpServletRequest carrier, String prefix, AgentPropagation.KeyClassifier classifier) {
+    Enumeration<String> headerNames = carrier.getHeaderNames();
+    while (headerNames.hasMoreElements()) {
+      String header = headerNames.nextElement();
+      if (header.regionMatches(true, 0, prefix, 0, prefix.length())
+          && !classifier.accept(header, carrier.getHeader(header))) {
+        break;
+      }
+    }
+  }
 }
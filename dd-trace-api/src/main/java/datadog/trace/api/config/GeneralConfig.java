@@ -26,6 +26,7 @@ public final class GeneralConfig {
   public static final String GLOBAL_TAGS = "trace.global.tags";
 
   public static final String RUNTIME_METRICS_ENABLED = "runtime.metrics.enabled";
+  public static final String RUNTIME_METRICS_NATIVE_ENABLED = "runtime.metrics.native.enabled";
 
   public static final String HEALTH_METRICS_ENABLED = "trace.health.metrics.enabled";
   public static final String HEALTH_METRICS_STATSD_HOST = "trace.health.metrics.statsd.host";
@@ -35,8 +36,12 @@ public final class GeneralConfig {
   public static final String TRACER_METRICS_ENABLED = "trace.tracer.metrics.enabled";
   public static final String TRACER_METRICS_BUFFERING_ENABLED =
       "trace.tracer.metrics.buffering.enabled";
+  public static final String TRACER_METRICS_COMPRESSION_ENABLED =
+      "trace.tracer.metrics.compression.enabled";
   public static final String TRACER_METRICS_MAX_AGGREGATES = "trace.tracer.metrics.max.aggregates";
   public static final String TRACER_METRICS_MAX_PENDING = "trace.tracer.metrics.max.pending";
+  public static final String TRACER_METRICS_AGGREGATOR_SHARDS =
+      "trace.tracer.metrics.aggregator.shards";
 
   public static final String INTERNAL_EXIT_ON_FAILURE = "trace.internal.exit.on.failure";
 
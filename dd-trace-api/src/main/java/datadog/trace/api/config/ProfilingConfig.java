@@ -41,6 +41,9 @@ public final class ProfilingConfig {
   public static final String PROFILING_EXCEPTION_HISTOGRAM_MAX_COLLECTION_SIZE =
       "profiling.exception.histogram.max-collection-size";
   public static final String PROFILING_EXCLUDE_AGENT_THREADS = "profiling.exclude.agent-threads";
+  // Ship only the JFR chunks rotated since the previous upload instead of a filtered snapshot
+  public static final String PROFILING_INCREMENTAL_SNAPSHOT =
+      "profiling.experimental.incremental-snapshot";
 
   // Not intended for production use
   public static final String PROFILING_AGENTLESS = "profiling.agentless";
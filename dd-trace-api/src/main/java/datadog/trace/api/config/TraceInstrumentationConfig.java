@@ -43,6 +43,10 @@ public final class TraceInstrumentationConfig {
   public static final String KAFKA_CLIENT_BASE64_DECODING_ENABLED =
       "kafka.client.base64.decoding.enabled";
 
+  public static final String GRPC_MESSAGE_AGGREGATION_ENABLED =
+      "trace.grpc.message.aggregation.enabled";
+  public static final String GRPC_MESSAGE_SPAN_INTERVAL = "trace.grpc.message.span.interval";
+
   public static final String HYSTRIX_TAGS_ENABLED = "hystrix.tags.enabled";
 
   public static final String OSGI_SEARCH_DEPTH = "osgi.search.depth";
@@ -31,6 +31,7 @@ public final class TracerConfig {
   public static final String TRACE_ANALYTICS_ENABLED = "trace.analytics.enabled";
   public static final String TRACE_SAMPLING_SERVICE_RULES = "trace.sampling.service.rules";
   public static final String TRACE_SAMPLING_OPERATION_RULES = "trace.sampling.operation.rules";
+  public static final String TRACE_SAMPLING_RULES = "trace.sampling.rules";
   public static final String TRACE_SAMPLE_RATE = "trace.sample.rate";
   public static final String TRACE_RATE_LIMIT = "trace.rate.limit";
   public static final String TRACE_REPORT_HOSTNAME = "trace.report-hostname";
@@ -46,6 +47,8 @@ public final class TracerConfig {
       "trace.scope.inherit.async.propagation";
   public static final String PARTIAL_FLUSH_MIN_SPANS = "trace.partial.flush.min.spans";
   public static final String TRACE_STRICT_WRITES_ENABLED = "trace.strict.writes.enabled";
+  public static final String ERROR_STACK_MAX_FRAMES = "trace.error.stack.max.frames";
+  public static final String ERROR_STACK_MAX_LENGTH = "trace.error.stack.max.length";
   public static final String PROPAGATION_STYLE_EXTRACT = "propagation.style.extract";
   public static final String PROPAGATION_STYLE_INJECT = "propagation.style.inject";
 
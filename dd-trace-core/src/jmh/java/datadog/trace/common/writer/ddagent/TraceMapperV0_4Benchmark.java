@@ -0,0 +1,96 @@
+package datadog.trace.common.writer.ddagent;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
+import datadog.trace.bootstrap.instrumentation.api.Tags;
+import datadog.trace.common.writer.ListWriter;
+import datadog.trace.core.CoreSpan;
+import datadog.trace.core.CoreTracer;
+import datadog.trace.core.DDSpan;
+import datadog.trace.core.serialization.ByteBufferConsumer;
+import datadog.trace.core.serialization.FlushingBuffer;
+import datadog.trace.core.serialization.msgpack.MsgPackWriter;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures serializing a trace of typical web request spans with the v0.4 mapper. Run with {@code
+ * -prof gc} to see the bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Fork(value = 1)
+public class TraceMapperV0_4Benchmark {
+
+  @Param({"10", "100"})
+  int spans;
+
+  private CoreTracer tracer;
+  private List<DDSpan> trace;
+  private TraceMapperV0_4 mapper;
+  private MsgPackWriter writer;
+
+  @Setup(Level.Trial)
+  public void setup() throws InterruptedException, TimeoutException {
+    final ListWriter listWriter = new ListWriter();
+    tracer = CoreTracer.builder().writer(listWriter).build();
+    final AgentSpan root = tracer.startSpan("servlet.request");
+    root.setTag(Tags.SPAN_KIND, Tags.SPAN_KIND_SERVER);
+    root.setTag(Tags.COMPONENT, "java-web-servlet");
+    root.setTag(Tags.HTTP_METHOD, "GET");
+    root.setTag(Tags.HTTP_URL, "http://localhost:8080/orders/42");
+    root.setTag(Tags.HTTP_STATUS, 200);
+    root.setTag("env", "prod");
+    for (int i = 1; i < spans; ++i) {
+      final AgentSpan child = tracer.startSpan("database.query", root.context());
+      child.setTag(Tags.SPAN_KIND, Tags.SPAN_KIND_CLIENT);
+      child.setTag(Tags.COMPONENT, "java-jdbc-prepared_statement");
+      child.setTag(Tags.DB_TYPE, "postgresql");
+      child.setTag(Tags.DB_INSTANCE, "orders");
+      child.setTag("env", "prod");
+      child.finish();
+    }
+    root.finish();
+    listWriter.waitForTraces(1);
+    trace = new ArrayList<>(listWriter.get(0));
+    mapper = new TraceMapperV0_4();
+    writer =
+        new MsgPackWriter(
+            new FlushingBuffer(
+                mapper.messageBufferSize(),
+                new ByteBufferConsumer() {
+                  @Override
+                  public void accept(final int messageCount, final ByteBuffer buffer) {}
+                }));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    tracer.close();
+  }
+
+  @Benchmark
+  public boolean serialize() {
+    final List<? extends CoreSpan<?>> spans = trace;
+    return writer.format(spans, mapper);
+  }
+}
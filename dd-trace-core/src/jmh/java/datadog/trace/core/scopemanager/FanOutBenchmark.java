@@ -0,0 +1,108 @@
+package datadog.trace.core.scopemanager;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+import datadog.trace.bootstrap.instrumentation.api.AgentScope;
+import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
+import datadog.trace.common.writer.Writer;
+import datadog.trace.context.TraceScope;
+import datadog.trace.core.CoreTracer;
+import datadog.trace.core.DDSpan;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a parent scope fanning out tasks to an executor, each task activating the continuation
+ * it was handed and closing the resulting scope, with individual or shared continuations.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Fork(value = 1)
+public class FanOutBenchmark {
+
+  @Param({"100", "10000"})
+  int tasks;
+
+  @Param({"4"})
+  int workers;
+
+  @Param({"false", "true"})
+  boolean shared;
+
+  private CoreTracer tracer;
+  private ExecutorService executor;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    tracer = CoreTracer.builder().writer(new DiscardingWriter()).build();
+    executor = Executors.newFixedThreadPool(workers);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws InterruptedException {
+    executor.shutdown();
+    executor.awaitTermination(10, TimeUnit.SECONDS);
+    tracer.close();
+  }
+
+  @Benchmark
+  public void fanOut() throws InterruptedException {
+    final AgentSpan span = tracer.startSpan("fan-out");
+    final AgentScope scope = tracer.activateSpan(span);
+    scope.setAsyncPropagation(true);
+    final CountDownLatch done = new CountDownLatch(tasks);
+    for (int i = 0; i < tasks; i++) {
+      final TraceScope.Continuation continuation =
+          shared ? scope.captureShared() : scope.capture();
+      executor.execute(
+          new Runnable() {
+            @Override
+            public void run() {
+              continuation.activate().close();
+              done.countDown();
+            }
+          });
+    }
+    scope.close();
+    span.finish();
+    done.await();
+  }
+
+  private static final class DiscardingWriter implements Writer {
+    @Override
+    public void write(final List<DDSpan> trace) {}
+
+    @Override
+    public void start() {}
+
+    @Override
+    public boolean flush() {
+      return true;
+    }
+
+    @Override
+    public void close() {}
+
+    @Override
+    public void incrementTraceCount() {}
+  }
+}
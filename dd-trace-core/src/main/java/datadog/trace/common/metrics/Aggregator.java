@@ -2,7 +2,6 @@ package datadog.trace.common.metrics;
 
 import static datadog.trace.common.metrics.Batch.REPORT;
 import static datadog.trace.common.metrics.ConflatingMetricsAggregator.POISON_PILL;
-import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 import datadog.trace.core.util.LRUCache;
 import java.util.Iterator;
@@ -10,36 +9,44 @@ import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Owns the aggregates of one shard of the metric keys. Each shard runs on its own thread. When it
+ * is signalled to report, it hands the aggregates updated since the last report over to the {@link
+ * Reporter} as an immutable {@link Snapshot}, replaces them with empty ones, and goes straight back
+ * to its inbox: writing the bucket, and any IO that involves, only happens on the reporter thread.
+ */
+@Slf4j
 final class Aggregator implements Runnable {
 
+  private static final MetricKey[] NO_KEYS = new MetricKey[0];
+  private static final AggregateMetric[] NO_AGGREGATES = new AggregateMetric[0];
+
   private final Queue<Batch> batchPool;
+  private final Queue<AggregateMetric> aggregatePool;
   private final BlockingQueue<Batch> inbox;
   private final LRUCache<MetricKey, AggregateMetric> aggregates;
   private final ConcurrentHashMap<MetricKey, Batch> pending;
-  private final MetricWriter writer;
-  // the reporting interval controls how much history will be buffered
-  // when the agent is unresponsive (only 10 pending requests will be
-  // buffered by OkHttpSink)
-  private final long reportingIntervalNanos;
+  private final Queue<Snapshot> snapshots;
 
   private boolean dirty;
+  // counts the report signals, which every shard sees in the same order
+  private long round;
 
   Aggregator(
-      MetricWriter writer,
       Queue<Batch> batchPool,
+      Queue<AggregateMetric> aggregatePool,
       BlockingQueue<Batch> inbox,
       ConcurrentHashMap<MetricKey, Batch> pending,
       int maxAggregates,
-      long reportingInterval,
-      TimeUnit reportingIntervalTimeUnit) {
-    this.writer = writer;
+      Queue<Snapshot> snapshots) {
     this.batchPool = batchPool;
+    this.aggregatePool = aggregatePool;
     this.inbox = inbox;
     this.aggregates = new LRUCache<>(maxAggregates * 4 / 3, 0.75f, maxAggregates);
     this.pending = pending;
-    this.reportingIntervalNanos = reportingIntervalTimeUnit.toNanos(reportingInterval);
+    this.snapshots = snapshots;
   }
 
   public void clearAggregates() {
@@ -53,17 +60,17 @@ final class Aggregator implements Runnable {
       try {
         Batch batch = inbox.take();
         if (batch == POISON_PILL) {
-          report(wallClockTime());
+          report(true);
           break;
         } else if (batch == REPORT) {
-          report(wallClockTime());
+          report(false);
         } else {
           MetricKey key = batch.getKey();
           // important that it is still *this* batch pending, must not remove otherwise
           pending.remove(key, batch);
           AggregateMetric aggregate = aggregates.get(key);
           if (null == aggregate) {
-            aggregate = new AggregateMetric();
+            aggregate = newAggregate();
             aggregates.put(key, aggregate);
           }
           batch.contributeTo(aggregate);
@@ -77,35 +84,62 @@ final class Aggregator implements Runnable {
     }
   }
 
-  private void report(long when) {
-    if (dirty) {
-      expungeStaleAggregates();
-      if (!aggregates.isEmpty()) {
-        writer.startBucket(aggregates.size(), when, reportingIntervalNanos);
-        for (Map.Entry<MetricKey, AggregateMetric> aggregate : aggregates.entrySet()) {
-          if (aggregate.getValue().getHitCount() > 0) {
-            writer.add(aggregate.getKey(), aggregate.getValue());
-            aggregate.getValue().clear();
-          }
-        }
-        // note that this may do IO and block
-        writer.finishBucket();
-      }
-      dirty = false;
+  private void report(boolean last) {
+    Snapshot snapshot = snapshot(++round, last);
+    if (!snapshots.offer(snapshot)) {
+      log.debug(
+          "Dropped {} aggregates because the metrics reporter is falling behind", snapshot.size);
     }
   }
 
-  private void expungeStaleAggregates() {
+  /**
+   * Takes the aggregates updated since the last report out of the shard. Aggregates which were not
+   * updated are expunged, and each one taken is replaced by an empty one, so the shard never
+   * touches the aggregates of a snapshot again.
+   */
+  private Snapshot snapshot(long round, boolean last) {
+    if (!dirty) {
+      return new Snapshot(round, last, NO_KEYS, NO_AGGREGATES, 0);
+    }
+    dirty = false;
+    MetricKey[] keys = new MetricKey[aggregates.size()];
+    AggregateMetric[] values = new AggregateMetric[keys.length];
+    int size = 0;
     Iterator<Map.Entry<MetricKey, AggregateMetric>> it = aggregates.entrySet().iterator();
     while (it.hasNext()) {
-      AggregateMetric metric = it.next().getValue();
-      if (metric.getHitCount() == 0) {
+      Map.Entry<MetricKey, AggregateMetric> entry = it.next();
+      if (entry.getValue().getHitCount() == 0) {
         it.remove();
+      } else {
+        keys[size] = entry.getKey();
+        values[size] = entry.getValue();
+        ++size;
+        // setting the value of an entry does not count as an access
+        entry.setValue(newAggregate());
       }
     }
+    return new Snapshot(round, last, keys, values, size);
   }
 
-  private long wallClockTime() {
-    return MILLISECONDS.toNanos(System.currentTimeMillis());
+  private AggregateMetric newAggregate() {
+    AggregateMetric aggregate = aggregatePool.poll();
+    return null == aggregate ? new AggregateMetric() : aggregate;
+  }
+
+  /** The aggregates one shard handed over to the reporter for one report. */
+  static final class Snapshot {
+    final long round;
+    final boolean last;
+    final MetricKey[] keys;
+    final AggregateMetric[] aggregates;
+    final int size;
+
+    Snapshot(long round, boolean last, MetricKey[] keys, AggregateMetric[] aggregates, int size) {
+      this.round = round;
+      this.last = last;
+      this.keys = keys;
+      this.aggregates = aggregates;
+      this.size = size;
+    }
   }
 }
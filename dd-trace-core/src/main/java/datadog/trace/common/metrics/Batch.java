@@ -57,17 +57,41 @@ public final class Batch {
   }
 
   public boolean add(long tag, long durationNanos) {
+    return add(tag | durationNanos);
+  }
+
+  public boolean add(long taggedDuration) {
     // technically this would be wrong if there were 2^31 unsuccessful
     // attempts to add a value, but this an acceptable risk
     int position = count.getAndIncrement();
     if (position >= 0 && position < durations.length()) {
-      durations.set(position, tag | durationNanos);
+      durations.set(position, taggedDuration);
       committed.incrementAndGet();
       return true;
     }
     return false;
   }
 
+  /**
+   * Adds as many of the tagged durations as the batch has room for.
+   *
+   * @return the number of durations added, zero if the batch is full or has been consumed
+   */
+  public int add(long[] taggedDurations, int offset, int length) {
+    int position = count.getAndAdd(length);
+    if (position < 0 || position >= durations.length()) {
+      return 0;
+    }
+    // the reserved slots past the end are never committed, the reader
+    // only waits for the slots within the batch
+    int added = Math.min(length, durations.length() - position);
+    for (int i = 0; i < added; ++i) {
+      durations.set(position + i, taggedDurations[offset + i]);
+    }
+    committed.addAndGet(added);
+    return added;
+  }
+
   public void contributeTo(AggregateMetric aggregate) {
     int count = Math.min(this.count.getAndSet(Integer.MIN_VALUE), MAX_BATCH_SIZE);
     if (count >= 0) {
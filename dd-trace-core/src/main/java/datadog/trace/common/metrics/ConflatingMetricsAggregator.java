@@ -3,6 +3,7 @@ package datadog.trace.common.metrics;
 import static datadog.trace.common.metrics.AggregateMetric.ERROR_TAG;
 import static datadog.trace.common.metrics.Batch.REPORT;
 import static datadog.trace.util.AgentThreadFactory.AgentThread.METRICS_AGGREGATOR;
+import static datadog.trace.util.AgentThreadFactory.AgentThread.METRICS_REPORTER;
 import static datadog.trace.util.AgentThreadFactory.THREAD_JOIN_TIMOUT_MS;
 import static datadog.trace.util.AgentThreadFactory.newAgentThread;
 import static java.util.concurrent.TimeUnit.SECONDS;
@@ -11,8 +12,12 @@ import datadog.trace.api.Config;
 import datadog.trace.api.WellKnownTags;
 import datadog.trace.bootstrap.instrumentation.api.Tags;
 import datadog.trace.core.CoreSpan;
+import datadog.trace.core.monitor.Monitoring;
 import datadog.trace.util.AgentTaskScheduler;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
@@ -30,10 +35,14 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
 
   private final Queue<Batch> batchPool;
   private final ConcurrentHashMap<MetricKey, Batch> pending;
-  private final Thread thread;
-  private final BlockingQueue<Batch> inbox;
+  // the metric keys are partitioned into shards, each with its own inbox and thread
+  private final Thread[] threads;
+  private final BlockingQueue<Batch>[] inboxes;
   private final Sink sink;
-  private final Aggregator aggregator;
+  private final Aggregator[] aggregators;
+  // the shards hand their snapshots over to a single reporter thread
+  private final BlockingQueue<Aggregator.Snapshot> snapshots;
+  private final Thread reporterThread;
   private final long reportingInterval;
   private final TimeUnit reportingIntervalTimeUnit;
 
@@ -41,19 +50,38 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
   private volatile AgentTaskScheduler.Scheduled<?> cancellation;
 
   public ConflatingMetricsAggregator(Config config) {
+    this(config, Monitoring.DISABLED);
+  }
+
+  public ConflatingMetricsAggregator(Config config, Monitoring monitoring) {
     this(
         config.getWellKnownTags(),
         new OkHttpSink(
             config.getAgentUrl(),
             config.getAgentTimeout(),
-            config.isTracerMetricsBufferingEnabled()),
+            config.isTracerMetricsBufferingEnabled(),
+            config.isTracerMetricsCompressionEnabled(),
+            monitoring.newCounter("stats.dropped.payloads")),
         config.getTracerMetricsMaxAggregates(),
-        config.getTracerMetricsMaxPending());
+        config.getTracerMetricsMaxPending(),
+        config.getTracerMetricsAggregatorShards());
   }
 
   ConflatingMetricsAggregator(
       WellKnownTags wellKnownTags, Sink sink, int maxAggregates, int queueSize) {
-    this(wellKnownTags, sink, maxAggregates, queueSize, 10, SECONDS);
+    this(wellKnownTags, sink, maxAggregates, queueSize, 1);
+  }
+
+  ConflatingMetricsAggregator(
+      WellKnownTags wellKnownTags, Sink sink, int maxAggregates, int queueSize, int shards) {
+    this(
+        sink,
+        new SerializingMetricWriter(wellKnownTags, sink),
+        maxAggregates,
+        queueSize,
+        10,
+        SECONDS,
+        shards);
   }
 
   ConflatingMetricsAggregator(
@@ -79,14 +107,41 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
       int queueSize,
       long reportingInterval,
       TimeUnit timeUnit) {
-    this.inbox = new MpscBlockingConsumerArrayQueue<>(queueSize);
+    this(sink, metricWriter, maxAggregates, queueSize, reportingInterval, timeUnit, 1);
+  }
+
+  @SuppressWarnings("unchecked")
+  ConflatingMetricsAggregator(
+      Sink sink,
+      MetricWriter metricWriter,
+      int maxAggregates,
+      int queueSize,
+      long reportingInterval,
+      TimeUnit timeUnit,
+      int shards) {
+    shards = Math.max(1, shards);
     this.batchPool = new MpmcArrayQueue<>(maxAggregates);
     this.pending = new ConcurrentHashMap<>(maxAggregates * 4 / 3, 0.75f);
     this.sink = sink;
-    this.aggregator =
-        new Aggregator(
-            metricWriter, batchPool, inbox, pending, maxAggregates, reportingInterval, timeUnit);
-    this.thread = newAgentThread(METRICS_AGGREGATOR, aggregator);
+    this.inboxes = new BlockingQueue[shards];
+    this.aggregators = new Aggregator[shards];
+    this.threads = new Thread[shards];
+    // room for a few reports from every shard while the reporter is writing
+    this.snapshots = new MpscBlockingConsumerArrayQueue<>(Math.max(16, shards * 4));
+    Queue<AggregateMetric> aggregatePool = new MpmcArrayQueue<>(maxAggregates);
+    int maxAggregatesPerShard = (maxAggregates + shards - 1) / shards;
+    for (int i = 0; i < shards; ++i) {
+      inboxes[i] = new MpscBlockingConsumerArrayQueue<>(queueSize);
+      aggregators[i] =
+          new Aggregator(
+              batchPool, aggregatePool, inboxes[i], pending, maxAggregatesPerShard, snapshots);
+      threads[i] = newAgentThread(METRICS_AGGREGATOR, aggregators[i]);
+    }
+    this.reporterThread =
+        newAgentThread(
+            METRICS_REPORTER,
+            new Reporter(
+                metricWriter, snapshots, aggregatePool, shards, reportingInterval, timeUnit));
     this.reportingInterval = reportingInterval;
     this.reportingIntervalTimeUnit = timeUnit;
   }
@@ -94,7 +149,10 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
   @Override
   public void start() {
     sink.register(this);
-    thread.start();
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    reporterThread.start();
     cancellation =
         AgentTaskScheduler.INSTANCE.scheduleAtFixedRate(
             new ReportTask(),
@@ -105,40 +163,79 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
   }
 
   @Override
-  public void report() {
-    boolean published;
-    do {
-      published = inbox.offer(REPORT);
-    } while (!published);
+  public synchronized void report() {
+    signalAll(REPORT);
+  }
+
+  private void signalAll(Batch signal) {
+    // every shard must see the reports and the poison pill in the same order
+    for (BlockingQueue<Batch> inbox : inboxes) {
+      boolean published;
+      do {
+        published = inbox.offer(signal);
+      } while (!published);
+    }
   }
 
   @Override
   public void publish(List<? extends CoreSpan<?>> trace) {
     if (enabled) {
+      // spans sharing a key are tallied on this thread first, so a trace
+      // with many identical spans only touches each pending batch once
+      MetricKey firstKey = null;
+      long firstDuration = 0;
+      Map<MetricKey, Tally> tallies = null;
       for (CoreSpan<?> span : trace) {
         if (span.isTopLevel() || span.isMeasured()) {
-          publish(span);
+          MetricKey key = keyOf(span);
+          long taggedDuration = taggedDuration(span);
+          if (null == firstKey) {
+            firstKey = key;
+            firstDuration = taggedDuration;
+          } else {
+            if (null == tallies) {
+              tallies = new HashMap<>();
+              tallies.put(firstKey, new Tally(firstDuration));
+            }
+            Tally tally = tallies.get(key);
+            if (null == tally) {
+              tallies.put(key, new Tally(taggedDuration));
+            } else {
+              tally.add(taggedDuration);
+            }
+          }
         }
       }
+      if (null != tallies) {
+        for (Map.Entry<MetricKey, Tally> tally : tallies.entrySet()) {
+          publish(tally.getKey(), tally.getValue().durations, tally.getValue().count);
+        }
+      } else if (null != firstKey) {
+        publish(firstKey, firstDuration);
+      }
     }
   }
 
-  private void publish(CoreSpan<?> span) {
-    MetricKey key =
-        new MetricKey(
-            span.getResourceName(),
-            span.getServiceName(),
-            span.getOperationName(),
-            span.getType(),
-            span.getTag(Tags.HTTP_STATUS, ZERO));
-    long tag = span.getError() > 0 ? ERROR_TAG : 0L;
-    long durationNanos = span.getDurationNano();
+  private static MetricKey keyOf(CoreSpan<?> span) {
+    return new MetricKey(
+        span.getResourceName(),
+        span.getServiceName(),
+        span.getOperationName(),
+        span.getType(),
+        span.getTag(Tags.HTTP_STATUS, ZERO));
+  }
+
+  private static long taggedDuration(CoreSpan<?> span) {
+    return (span.getError() > 0 ? ERROR_TAG : 0L) | span.getDurationNano();
+  }
+
+  private void publish(MetricKey key, long taggedDuration) {
     Batch batch = pending.get(key);
     if (null != batch) {
       // there is a pending batch, try to win the race to add to it
       // returning false means that either the batch can't take any
       // more data, or it has already been consumed
-      if (batch.add(tag, durationNanos)) {
+      if (batch.add(taggedDuration)) {
         // added to a pending batch prior to consumption
         // so skip publishing to the queue
         return;
@@ -147,12 +244,39 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
       key = batch.getKey();
     }
     batch = newBatch(key);
-    batch.add(tag, durationNanos);
+    batch.add(taggedDuration);
     // overwrite the last one if present, it was already full
     // or had been consumed by the time we tried to add to it
     pending.put(key, batch);
     // must offer to the queue after adding to pending
-    inbox.offer(batch);
+    inboxOf(key).offer(batch);
+  }
+
+  private void publish(MetricKey key, long[] taggedDurations, int count) {
+    int published = 0;
+    Batch batch = pending.get(key);
+    if (null != batch) {
+      // take as much room as is left in the pending batch
+      published = batch.add(taggedDurations, 0, count);
+      if (published == count) {
+        return;
+      }
+      key = batch.getKey();
+    }
+    while (published < count) {
+      batch = newBatch(key);
+      published += batch.add(taggedDurations, published, count - published);
+      pending.put(key, batch);
+      inboxOf(key).offer(batch);
+    }
+  }
+
+  private BlockingQueue<Batch> inboxOf(MetricKey key) {
+    if (inboxes.length == 1) {
+      return inboxes[0];
+    }
+    int hash = key.hashCode();
+    return inboxes[((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % inboxes.length];
   }
 
   private Batch newBatch(MetricKey key) {
@@ -163,18 +287,21 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
     return batch.reset(key);
   }
 
-  public void stop() {
+  public synchronized void stop() {
     if (null != cancellation) {
       cancellation.cancel();
     }
-    inbox.offer(POISON_PILL);
+    signalAll(POISON_PILL);
   }
 
   @Override
   public void close() {
     stop();
     try {
-      thread.join(THREAD_JOIN_TIMOUT_MS);
+      for (Thread thread : threads) {
+        thread.join(THREAD_JOIN_TIMOUT_MS);
+      }
+      reporterThread.join(THREAD_JOIN_TIMOUT_MS);
     } catch (InterruptedException ignored) {
     }
   }
@@ -198,11 +325,34 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
 
   private void disable() {
     this.enabled = false;
-    this.thread.interrupt();
+    for (Thread thread : threads) {
+      thread.interrupt();
+    }
+    reporterThread.interrupt();
     this.pending.clear();
     this.batchPool.clear();
-    this.inbox.clear();
-    this.aggregator.clearAggregates();
+    for (int i = 0; i < inboxes.length; ++i) {
+      inboxes[i].clear();
+      aggregators[i].clearAggregates();
+    }
+    this.snapshots.clear();
+  }
+
+  /** The tagged durations of the spans of a trace sharing a key. Not thread-safe. */
+  private static final class Tally {
+    long[] durations = new long[4];
+    int count;
+
+    Tally(long taggedDuration) {
+      add(taggedDuration);
+    }
+
+    void add(long taggedDuration) {
+      if (count == durations.length) {
+        durations = Arrays.copyOf(durations, count * 2);
+      }
+      durations[count++] = taggedDuration;
+    }
   }
 
   private static final class ReportTask
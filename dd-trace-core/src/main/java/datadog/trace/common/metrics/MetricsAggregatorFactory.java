@@ -1,11 +1,16 @@
 package datadog.trace.common.metrics;
 
 import datadog.trace.api.Config;
+import datadog.trace.core.monitor.Monitoring;
 
 public class MetricsAggregatorFactory {
   public static MetricsAggregator createMetricsAggregator(Config config) {
+    return createMetricsAggregator(config, Monitoring.DISABLED);
+  }
+
+  public static MetricsAggregator createMetricsAggregator(Config config, Monitoring monitoring) {
     if (config.isTracerMetricsEnabled()) {
-      return new ConflatingMetricsAggregator(config);
+      return new ConflatingMetricsAggregator(config, monitoring);
     }
     return NoOpMetricsAggregator.INSTANCE;
   }
@@ -9,6 +9,8 @@ import static datadog.trace.core.http.OkHttpUtils.msgpackRequestBodyOf;
 import static datadog.trace.core.http.OkHttpUtils.prepareRequest;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
+import datadog.trace.core.monitor.Counter;
+import datadog.trace.core.monitor.NoOpCounter;
 import datadog.trace.util.AgentTaskScheduler;
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -19,13 +21,23 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.HttpUrl;
+import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
 import org.jctools.queues.SpscArrayQueue;
 
 @Slf4j
 public final class OkHttpSink implements Sink, EventListener {
 
+  private static final MediaType MSGPACK = MediaType.get("application/msgpack");
+  private static final long MIN_RETRY_BACKOFF_NANOS = SECONDS.toNanos(1);
+  private static final long MAX_RETRY_BACKOFF_NANOS = SECONDS.toNanos(32);
+
   private final OkHttpClient client;
   private final HttpUrl metricsUrl;
   private final List<EventListener> listeners;
@@ -34,16 +46,35 @@ public final class OkHttpSink implements Sink, EventListener {
   private final AtomicLong asyncRequestCounter = new AtomicLong();
   private final long asyncThresholdLatency;
   private final boolean bufferingEnabled;
+  private final boolean compressionEnabled;
+  private final Counter droppedPayloads;
 
   private final AtomicBoolean asyncTaskStarted = new AtomicBoolean(false);
   private volatile AgentTaskScheduler.Scheduled<OkHttpSink> future;
 
-  public OkHttpSink(String agentUrl, long timeoutMillis, boolean bufferingEnabled) {
+  // only accessed by the sender task
+  private long retryBackoffNanos = MIN_RETRY_BACKOFF_NANOS;
+  private long nextAttemptNanos = System.nanoTime();
+
+  public OkHttpSink(
+      String agentUrl, long timeoutMillis, boolean bufferingEnabled, boolean compressionEnabled) {
+    this(agentUrl, timeoutMillis, bufferingEnabled, compressionEnabled, NoOpCounter.NO_OP);
+  }
+
+  public OkHttpSink(
+      String agentUrl,
+      long timeoutMillis,
+      boolean bufferingEnabled,
+      boolean compressionEnabled,
+      Counter droppedPayloads) {
     this(
         buildHttpClient(HttpUrl.get(agentUrl), timeoutMillis),
         agentUrl,
         "v0.5/stats",
-        bufferingEnabled);
+        SECONDS.toNanos(1),
+        bufferingEnabled,
+        compressionEnabled,
+        droppedPayloads);
   }
 
   public OkHttpSink(OkHttpClient client, String agentUrl, String path, boolean bufferingEnabled) {
@@ -56,11 +87,41 @@ public final class OkHttpSink implements Sink, EventListener {
       String path,
       long asyncThresholdLatency,
       boolean bufferingEnabled) {
+    this(client, agentUrl, path, asyncThresholdLatency, bufferingEnabled, false);
+  }
+
+  public OkHttpSink(
+      OkHttpClient client,
+      String agentUrl,
+      String path,
+      long asyncThresholdLatency,
+      boolean bufferingEnabled,
+      boolean compressionEnabled) {
+    this(
+        client,
+        agentUrl,
+        path,
+        asyncThresholdLatency,
+        bufferingEnabled,
+        compressionEnabled,
+        NoOpCounter.NO_OP);
+  }
+
+  public OkHttpSink(
+      OkHttpClient client,
+      String agentUrl,
+      String path,
+      long asyncThresholdLatency,
+      boolean bufferingEnabled,
+      boolean compressionEnabled,
+      Counter droppedPayloads) {
     this.client = client;
     this.metricsUrl = HttpUrl.get(agentUrl).resolve(path);
     this.listeners = new CopyOnWriteArrayList<>();
     this.asyncThresholdLatency = asyncThresholdLatency;
     this.bufferingEnabled = bufferingEnabled;
+    this.compressionEnabled = compressionEnabled;
+    this.droppedPayloads = droppedPayloads;
   }
 
   @Override
@@ -68,12 +129,23 @@ public final class OkHttpSink implements Sink, EventListener {
     // if the agent is healthy, then we can send on this thread,
     // without copying the buffer, otherwise this needs to be async,
     // so need to copy and buffer the request, and let it be executed
-    // on the main task scheduler as a last resort
-    if (!bufferingEnabled || lastRequestTime.get() < asyncThresholdLatency) {
-      send(
-          prepareRequest(metricsUrl)
-              .put(msgpackRequestBodyOf(Collections.singletonList(buffer)))
-              .build());
+    // on the main task scheduler as a last resort. Payloads waiting
+    // to be retried must be sent first, so this one is queued too.
+    if (!bufferingEnabled
+        || (lastRequestTime.get() < asyncThresholdLatency && enqueuedRequests.isEmpty())) {
+      // the payload is compressed into a copy, otherwise send a view of
+      // the buffer so it can still be copied if the request must be retried
+      Request request =
+          compressionEnabled
+              ? requestOf(buffer)
+              : prepareRequest(metricsUrl)
+                  .put(msgpackRequestBodyOf(Collections.singletonList(buffer.duplicate())))
+                  .build();
+      if (!send(request) && bufferingEnabled) {
+        startAsync();
+        sendAsync(messageCount, compressionEnabled ? request : requestOf(buffer));
+        return;
+      }
       AgentTaskScheduler.Scheduled<OkHttpSink> future = this.future;
       if (future != null && enqueuedRequests.isEmpty()) {
         // async mode has been started but request latency is normal,
@@ -82,25 +154,54 @@ public final class OkHttpSink implements Sink, EventListener {
         asyncTaskStarted.set(false);
       }
     } else {
-      if (asyncTaskStarted.compareAndSet(false, true)) {
-        this.future =
-            AgentTaskScheduler.INSTANCE.scheduleAtFixedRate(
-                new Sender(enqueuedRequests), this, 1, 1, SECONDS);
-      }
-      sendAsync(messageCount, buffer);
+      startAsync();
+      sendAsync(messageCount, requestOf(buffer));
     }
   }
 
-  private void sendAsync(int messageCount, ByteBuffer buffer) {
+  private void startAsync() {
+    if (asyncTaskStarted.compareAndSet(false, true)) {
+      this.future =
+          AgentTaskScheduler.INSTANCE.scheduleAtFixedRate(new Sender(), this, 1, 1, SECONDS);
+    }
+  }
+
+  private void sendAsync(int messageCount, Request request) {
     asyncRequestCounter.getAndIncrement();
-    if (!enqueuedRequests.offer(
-        prepareRequest(metricsUrl)
-            .put(msgpackRequestBodyOf(Collections.singletonList(buffer.duplicate())))
-            .build())) {
+    if (!enqueuedRequests.offer(request)) {
+      droppedPayloads.increment(1);
       log.debug(
           "dropping payload of {} and {}B because sending queue was full",
           messageCount,
-          buffer.limit());
+          contentLength(request));
+    }
+  }
+
+  /** @return a request owning a copy of the payload, which can be sent several times */
+  private Request requestOf(ByteBuffer buffer) {
+    Buffer payload = new Buffer();
+    Request.Builder builder = prepareRequest(metricsUrl);
+    try {
+      if (compressionEnabled) {
+        try (BufferedSink gzip = Okio.buffer(new GzipSink(payload))) {
+          gzip.write(buffer.duplicate());
+        }
+        builder.addHeader("Content-Encoding", "gzip");
+      } else {
+        payload.write(buffer.duplicate());
+      }
+    } catch (IOException e) {
+      // can't happen when writing to memory
+      throw new IllegalStateException(e);
+    }
+    return builder.put(RequestBody.create(MSGPACK, payload.readByteString())).build();
+  }
+
+  private static long contentLength(Request request) {
+    try {
+      return request.body().contentLength();
+    } catch (IOException e) {
+      return -1;
     }
   }
 
@@ -112,16 +213,19 @@ public final class OkHttpSink implements Sink, EventListener {
     return asyncRequestCounter.get();
   }
 
-  private void send(Request request) {
+  /** @return false if the request failed but could succeed later and should be retried */
+  private boolean send(Request request) {
     long start = System.nanoTime();
     try (final okhttp3.Response response = client.newCall(request).execute()) {
       if (!response.isSuccessful()) {
-        handleFailure(response);
+        return handleFailure(response);
       } else {
         onEvent(OK, "");
+        return true;
       }
     } catch (IOException e) {
       onEvent(ERROR, e.getMessage());
+      return false;
     } finally {
       lastRequestTime.set(System.nanoTime() - start);
     }
@@ -139,7 +243,7 @@ public final class OkHttpSink implements Sink, EventListener {
     this.listeners.add(listener);
   }
 
-  private void handleFailure(okhttp3.Response response) throws IOException {
+  private boolean handleFailure(okhttp3.Response response) throws IOException {
     final int code = response.code();
     if (code == 404) {
       onEvent(DOWNGRADED, "could not find endpoint");
@@ -147,23 +251,47 @@ public final class OkHttpSink implements Sink, EventListener {
       onEvent(BAD_PAYLOAD, response.body().string());
     } else if (code >= 500) {
       onEvent(ERROR, response.body().string());
+      // the agent may be restarting
+      return false;
     }
+    return true;
   }
 
-  private static final class Sender implements AgentTaskScheduler.Task<OkHttpSink> {
-
-    private final SpscArrayQueue<Request> inbox;
+  private void sendEnqueued() {
+    long now = System.nanoTime();
+    if (now - nextAttemptNanos < 0) {
+      makeRoom();
+      return;
+    }
+    Request request;
+    while ((request = enqueuedRequests.peek()) != null) {
+      if (!send(request)) {
+        // the agent is unavailable, keep the request and back off exponentially
+        nextAttemptNanos = now + retryBackoffNanos;
+        retryBackoffNanos = Math.min(retryBackoffNanos * 2, MAX_RETRY_BACKOFF_NANOS);
+        makeRoom();
+        return;
+      }
+      enqueuedRequests.poll();
+      retryBackoffNanos = MIN_RETRY_BACKOFF_NANOS;
+    }
+  }
 
-    private Sender(SpscArrayQueue<Request> inbox) {
-      this.inbox = inbox;
+  /** While the agent is unavailable, the oldest payload is dropped to make room for the next. */
+  private void makeRoom() {
+    if (enqueuedRequests.size() >= enqueuedRequests.capacity()) {
+      Request oldest = enqueuedRequests.poll();
+      droppedPayloads.increment(1);
+      log.debug(
+          "dropping oldest payload of {}B because sending queue was full", contentLength(oldest));
     }
+  }
+
+  private static final class Sender implements AgentTaskScheduler.Task<OkHttpSink> {
 
     @Override
     public void run(OkHttpSink target) {
-      Request request;
-      while ((request = inbox.poll()) != null) {
-        target.send(request);
-      }
+      target.sendEnqueued();
     }
   }
 }
@@ -0,0 +1,146 @@
+package datadog.trace.common.metrics;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the snapshots handed over by the shards, on a thread of its own. The snapshots of one
+ * report are written as a single bucket once every shard has handed its snapshot over. If some
+ * shard is still missing a reporting interval after the first snapshot of a report arrived, the
+ * snapshots collected so far are written without it, and its snapshot is written in a bucket of
+ * its own when it arrives, so each snapshot is written exactly once.
+ */
+final class Reporter implements Runnable {
+
+  private final MetricWriter writer;
+  private final BlockingQueue<Aggregator.Snapshot> snapshots;
+  private final Queue<AggregateMetric> aggregatePool;
+  private final int shards;
+  // the reporting interval controls how much history will be buffered
+  // when the agent is unresponsive (only 10 pending requests will be
+  // buffered by OkHttpSink)
+  private final long reportingIntervalNanos;
+
+  // the reports still waiting for some shard, oldest first
+  private final ArrayDeque<PendingReport> pending = new ArrayDeque<>();
+  private long lastRound;
+  private int finished;
+
+  Reporter(
+      MetricWriter writer,
+      BlockingQueue<Aggregator.Snapshot> snapshots,
+      Queue<AggregateMetric> aggregatePool,
+      int shards,
+      long reportingInterval,
+      TimeUnit reportingIntervalTimeUnit) {
+    this.writer = writer;
+    this.snapshots = snapshots;
+    this.aggregatePool = aggregatePool;
+    this.shards = shards;
+    this.reportingIntervalNanos = reportingIntervalTimeUnit.toNanos(reportingInterval);
+  }
+
+  @Override
+  public void run() {
+    Thread currentThread = Thread.currentThread();
+    // stop once every shard handed over its last snapshot
+    while (!currentThread.isInterrupted() && finished < shards) {
+      try {
+        PendingReport oldest = pending.peekFirst();
+        Aggregator.Snapshot snapshot =
+            null == oldest
+                ? snapshots.take()
+                : snapshots.poll(oldest.deadline - System.nanoTime(), NANOSECONDS);
+        if (null == snapshot) {
+          // some shard missed the report, write the others without it
+          write(pending.pollFirst().snapshots);
+        } else {
+          accept(snapshot);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    for (PendingReport report : pending) {
+      write(report.snapshots);
+    }
+    pending.clear();
+  }
+
+  private void accept(Aggregator.Snapshot snapshot) {
+    if (snapshot.last) {
+      ++finished;
+    }
+    PendingReport report = null;
+    for (PendingReport candidate : pending) {
+      if (candidate.round == snapshot.round) {
+        report = candidate;
+        break;
+      }
+    }
+    if (null == report) {
+      if (snapshot.round <= lastRound) {
+        // arrived after its report was written
+        write(Collections.singletonList(snapshot));
+        return;
+      }
+      // every shard sees the reports in the same order, so rounds start in order
+      lastRound = snapshot.round;
+      report = new PendingReport(snapshot.round, System.nanoTime() + reportingIntervalNanos);
+      pending.addLast(report);
+    }
+    report.snapshots.add(snapshot);
+    if (report.snapshots.size() == shards) {
+      pending.remove(report);
+      write(report.snapshots);
+    }
+  }
+
+  private void write(List<Aggregator.Snapshot> report) {
+    int size = 0;
+    for (Aggregator.Snapshot snapshot : report) {
+      size += snapshot.size;
+    }
+    if (size > 0) {
+      writer.startBucket(size, wallClockTime(), reportingIntervalNanos);
+      for (Aggregator.Snapshot snapshot : report) {
+        for (int i = 0; i < snapshot.size; ++i) {
+          writer.add(snapshot.keys[i], snapshot.aggregates[i]);
+        }
+      }
+      // note that this may do IO and block
+      writer.finishBucket();
+      // the aggregates have been serialized, so the shards may reuse them
+      for (Aggregator.Snapshot snapshot : report) {
+        for (int i = 0; i < snapshot.size; ++i) {
+          AggregateMetric aggregate = snapshot.aggregates[i];
+          aggregate.clear();
+          aggregatePool.offer(aggregate);
+        }
+      }
+    }
+  }
+
+  private long wallClockTime() {
+    return MILLISECONDS.toNanos(System.currentTimeMillis());
+  }
+
+  private static final class PendingReport {
+    final long round;
+    final long deadline;
+    final List<Aggregator.Snapshot> snapshots = new ArrayList<>();
+
+    PendingReport(long round, long deadline) {
+      this.round = round;
+      this.deadline = deadline;
+    }
+  }
+}
@@ -0,0 +1,99 @@
+package datadog.trace.common.sampling;
+
+import datadog.trace.api.Function;
+import datadog.trace.api.cache.DDCache;
+import datadog.trace.api.cache.DDCaches;
+import datadog.trace.core.CoreSpan;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds the first of an ordered list of sampling rules matching a span.
+ *
+ * <p>Instead of evaluating every rule for every local root, the rules which can match a service are
+ * selected once per service and then narrowed down once per operation name of that service. The
+ * remaining candidates are cut after the first rule decided by the service and operation names
+ * alone, so in the common case the lookup is two cache hits and no pattern is evaluated at all.
+ * Only rules which also match on the resource name or on tags are evaluated per span.
+ */
+final class CompiledSamplingRules<T extends CoreSpan<T>> {
+
+  private static final int SERVICE_CACHE_SIZE = 64;
+  private static final int OPERATION_CACHE_SIZE = 128;
+
+  private final List<SamplingRule<T>> rules;
+  private final DDCache<String, ServiceRules<T>> serviceRules =
+      DDCaches.newFixedSizeCache(SERVICE_CACHE_SIZE);
+  private final Function<String, ServiceRules<T>> compileServiceRules =
+      new Function<String, ServiceRules<T>>() {
+        @Override
+        public ServiceRules<T> apply(final String serviceName) {
+          return compile(serviceName);
+        }
+      };
+  private final ServiceRules<T> noServiceRules;
+
+  CompiledSamplingRules(final List<SamplingRule<T>> rules) {
+    this.rules = rules;
+    this.noServiceRules = compile(null);
+  }
+
+  /** @return the first rule matching the span or null if none does */
+  SamplingRule<T> findMatchingRule(final T span) {
+    final String serviceName = span.getServiceName();
+    final ServiceRules<T> candidates =
+        null == serviceName
+            ? noServiceRules
+            : serviceRules.computeIfAbsent(serviceName, compileServiceRules);
+    return candidates.findMatchingRule(span);
+  }
+
+  private ServiceRules<T> compile(final String serviceName) {
+    final List<SamplingRule<T>> candidates = new ArrayList<>();
+    for (final SamplingRule<T> rule : rules) {
+      if (rule.mayMatchService(serviceName)) {
+        candidates.add(rule);
+      }
+    }
+    return new ServiceRules<>(candidates);
+  }
+
+  private static final class ServiceRules<T extends CoreSpan<T>>
+      implements Function<CharSequence, SamplingRule<T>[]> {
+    private final List<SamplingRule<T>> rules;
+    private final DDCache<CharSequence, SamplingRule<T>[]> operationRules =
+        DDCaches.newFixedSizeCache(OPERATION_CACHE_SIZE);
+
+    ServiceRules(final List<SamplingRule<T>> rules) {
+      this.rules = rules;
+    }
+
+    SamplingRule<T> findMatchingRule(final T span) {
+      final CharSequence operationName = span.getOperationName();
+      final SamplingRule<T>[] candidates =
+          null == operationName ? apply(null) : operationRules.computeIfAbsent(operationName, this);
+      for (final SamplingRule<T> candidate : candidates) {
+        if (candidate.isDecidedByServiceAndOperation() || candidate.matchesRemaining(span)) {
+          return candidate;
+        }
+      }
+      return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public SamplingRule<T>[] apply(final CharSequence operationName) {
+      final List<SamplingRule<T>> candidates = new ArrayList<>();
+      for (final SamplingRule<T> rule : rules) {
+        if (rule.mayMatchOperation(operationName)) {
+          candidates.add(rule);
+          if (rule.isDecidedByServiceAndOperation()) {
+            // the rules after this one can never be reached
+            break;
+          }
+        }
+      }
+      return candidates.toArray(new SamplingRule[0]);
+    }
+  }
+}
@@ -1,14 +1,10 @@
 package datadog.trace.common.sampling;
 
-import datadog.trace.api.Function;
-import datadog.trace.api.cache.DDCache;
-import datadog.trace.api.cache.DDCaches;
 import datadog.trace.api.sampling.PrioritySampling;
 import datadog.trace.common.writer.ddagent.DDAgentResponseListener;
 import datadog.trace.core.CoreSpan;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Objects;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -40,7 +36,7 @@ public class RateByServiceSampler<T extends CoreSpan<T>>
     final String env = getSpanEnv(span);
 
     final RateSamplersByEnvAndService<T> rates = serviceRates;
-    RateSampler<T> sampler = rates.getSampler(new EnvAndService(env, serviceName));
+    RateSampler<T> sampler = rates.getSampler(env, serviceName);
 
     if (sampler.sample(span)) {
       span.setSamplingPriority(
@@ -61,13 +57,31 @@ public class RateByServiceSampler<T extends CoreSpan<T>>
     final Map<String, Number> newServiceRates = responseJson.get("rate_by_service");
     if (null != newServiceRates) {
       log.debug("Update service sampler rates: {} -> {}", endpoint, responseJson);
-      final Map<EnvAndService, RateSampler<T>> updatedServiceRates =
+      final Map<String, Map<String, RateSampler<T>>> updatedServiceRates =
           new HashMap<>(newServiceRates.size() * 2);
       for (final Map.Entry<String, Number> entry : newServiceRates.entrySet()) {
         if (entry.getValue() != null) {
-          updatedServiceRates.put(
-              EnvAndService.fromString(entry.getKey()),
-              RateByServiceSampler.<T>createRateSampler(entry.getValue().doubleValue()));
+          final String key = entry.getKey();
+          // "service:,env:"
+          final int serviceStart = key.indexOf(':') + 1;
+          final int serviceEnd = key.indexOf(',', serviceStart);
+          final int envStart = key.indexOf(':', serviceEnd) + 1;
+          final String service;
+          final String env;
+          if (serviceStart <= 0 || serviceEnd < 0 || envStart <= 0) {
+            service = "";
+            env = "";
+          } else {
+            service = key.substring(serviceStart, serviceEnd);
+            env = key.substring(envStart);
+          }
+          Map<String, RateSampler<T>> ratesByEnv = updatedServiceRates.get(service);
+          if (null == ratesByEnv) {
+            ratesByEnv = new HashMap<>(4);
+            updatedServiceRates.put(service, ratesByEnv);
+          }
+          ratesByEnv.put(
+              env, RateByServiceSampler.<T>createRateSampler(entry.getValue().doubleValue()));
         }
       }
       serviceRates = new RateSamplersByEnvAndService<>(updatedServiceRates);
@@ -88,75 +102,28 @@ public class RateByServiceSampler<T extends CoreSpan<T>>
     return new DeterministicSampler<>(sanitizedRate);
   }
 
+  /**
+   * Rates indexed by service first and env second, so looking up the sampler of a trace does not
+   * need to allocate a composite key.
+   */
   private static final class RateSamplersByEnvAndService<T extends CoreSpan<T>> {
     private static final RateSampler<?> DEFAULT = createRateSampler(DEFAULT_RATE);
 
-    private final Map<EnvAndService, RateSampler<T>> serviceRates;
+    private final Map<String, Map<String, RateSampler<T>>> serviceRates;
 
     RateSamplersByEnvAndService() {
-      this(new HashMap<EnvAndService, RateSampler<T>>(0));
+      this(new HashMap<String, Map<String, RateSampler<T>>>(0));
     }
 
-    RateSamplersByEnvAndService(Map<EnvAndService, RateSampler<T>> serviceRates) {
+    RateSamplersByEnvAndService(Map<String, Map<String, RateSampler<T>>> serviceRates) {
       this.serviceRates = serviceRates;
     }
 
     @SuppressWarnings("unchecked")
-    public RateSampler<T> getSampler(EnvAndService key) {
-      RateSampler<T> sampler = serviceRates.get(key);
+    public RateSampler<T> getSampler(String env, String service) {
+      final Map<String, RateSampler<T>> ratesByEnv = serviceRates.get(service);
+      final RateSampler<T> sampler = null == ratesByEnv ? null : ratesByEnv.get(env);
       return null == sampler ? (RateSampler<T>) DEFAULT : sampler;
     }
   }
-
-  private static final class EnvAndService {
-
-    private static final DDCache<String, EnvAndService> CACHE = DDCaches.newFixedSizeCache(32);
-
-    private static final Function<String, EnvAndService> PARSE =
-        new Function<String, EnvAndService>() {
-
-          @Override
-          public EnvAndService apply(String key) {
-            // "service:,env:"
-            int serviceStart = key.indexOf(':') + 1;
-            int serviceEnd = key.indexOf(',', serviceStart);
-            int envStart = key.indexOf(':', serviceEnd) + 1;
-            // both empty or at least one invalid
-            if ((serviceStart == serviceEnd && envStart == key.length())
-                || (serviceStart | serviceEnd | envStart) < 0) {
-              return DEFAULT;
-            }
-            String service = key.substring(serviceStart, serviceEnd);
-            String env = key.substring(envStart);
-            return new EnvAndService(env, service);
-          }
-        };
-
-    static final EnvAndService DEFAULT = new EnvAndService("", "");
-
-    public static EnvAndService fromString(String key) {
-      return CACHE.computeIfAbsent(key, PARSE);
-    }
-
-    private final CharSequence env;
-    private final CharSequence service;
-
-    private EnvAndService(CharSequence env, CharSequence service) {
-      this.env = env;
-      this.service = service;
-    }
-
-    @Override
-    public boolean equals(Object o) {
-      if (this == o) return true;
-      if (o == null || getClass() != o.getClass()) return false;
-      EnvAndService that = (EnvAndService) o;
-      return env.equals(that.env) && service.equals(that.service);
-    }
-
-    @Override
-    public int hashCode() {
-      return Objects.hash(env, service);
-    }
-  }
 }
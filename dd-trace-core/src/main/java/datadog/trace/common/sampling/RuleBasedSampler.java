@@ -1,12 +1,17 @@
 package datadog.trace.common.sampling;
 
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
+import com.squareup.moshi.Types;
 import datadog.trace.api.sampling.PrioritySampling;
 import datadog.trace.common.sampling.SamplingRule.AlwaysMatchesSamplingRule;
 import datadog.trace.common.sampling.SamplingRule.OperationSamplingRule;
 import datadog.trace.common.sampling.SamplingRule.ServiceSamplingRule;
+import datadog.trace.common.sampling.SamplingRule.SpanSamplingRule;
 import datadog.trace.core.CoreSpan;
-import datadog.trace.core.util.SimpleRateLimiter;
+import datadog.trace.util.TokenBucketRateLimiter;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -14,9 +19,16 @@ import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public class RuleBasedSampler<T extends CoreSpan<T>> implements Sampler<T>, PrioritySampler<T> {
-  private final List<SamplingRule<T>> samplingRules;
+  private static final JsonAdapter<List<Map<String, Object>>> RULES_ADAPTER =
+      new Moshi.Builder()
+          .build()
+          .adapter(
+              Types.newParameterizedType(
+                  List.class, Types.newParameterizedType(Map.class, String.class, Object.class)));
+
+  private final CompiledSamplingRules<T> samplingRules;
   private final PrioritySampler<T> fallbackSampler;
-  private final SimpleRateLimiter rateLimiter;
+  private final TokenBucketRateLimiter rateLimiter;
   private final long rateLimit;
 
   public static final String SAMPLING_RULE_RATE = "_dd.rule_psr";
@@ -26,9 +38,9 @@ public class RuleBasedSampler<T extends CoreSpan<T>> implements Sampler<T>, Prio
       final List<SamplingRule<T>> samplingRules,
       final long rateLimit,
       final PrioritySampler<T> fallbackSampler) {
-    this.samplingRules = samplingRules;
+    this.samplingRules = new CompiledSamplingRules<>(samplingRules);
     this.fallbackSampler = fallbackSampler;
-    rateLimiter = new SimpleRateLimiter(rateLimit);
+    rateLimiter = new TokenBucketRateLimiter(rateLimit);
 
     this.rateLimit = rateLimit;
   }
@@ -38,9 +50,29 @@ public class RuleBasedSampler<T extends CoreSpan<T>> implements Sampler<T>, Prio
       final Map<String, String> operationRules,
       final Double defaultRate,
       final long rateLimit) {
+    return build(null, serviceRules, operationRules, defaultRate, rateLimit);
+  }
+
+  /**
+   * @param jsonRules ordered JSON array of rules, each one matching the service, operation (name)
+   *     and resource names and the tags of the local root span against glob patterns, for example
+   *     {@code [{"service": "web-*", "name": "servlet.request", "resource": "GET /health*", "tags":
+   *     {"env": "prod"}, "sample_rate": 0.1}]}. These rules take precedence over the service and
+   *     operation rules.
+   */
+  public static <T extends CoreSpan<T>> RuleBasedSampler<T> build(
+      final String jsonRules,
+      final Map<String, String> serviceRules,
+      final Map<String, String> operationRules,
+      final Double defaultRate,
+      final long rateLimit) {
 
     final List<SamplingRule<T>> samplingRules = new ArrayList<>();
 
+    if (jsonRules != null && !jsonRules.trim().isEmpty()) {
+      RuleBasedSampler.<T>parseJsonRules(jsonRules, samplingRules);
+    }
+
     if (serviceRules != null) {
       for (final Entry<String, String> entry : serviceRules.entrySet()) {
         try {
@@ -77,6 +109,60 @@ public class RuleBasedSampler<T extends CoreSpan<T>> implements Sampler<T>, Prio
     return new RuleBasedSampler<>(samplingRules, rateLimit, new RateByServiceSampler<T>());
   }
 
+  private static <T extends CoreSpan<T>> void parseJsonRules(
+      final String jsonRules, final List<SamplingRule<T>> samplingRules) {
+    final List<Map<String, Object>> rules;
+    try {
+      rules = RULES_ADAPTER.fromJson(jsonRules);
+    } catch (final Exception e) {
+      log.error("Unable to parse sampling rules: {}", jsonRules, e);
+      return;
+    }
+    if (rules == null) {
+      return;
+    }
+    for (final Map<String, Object> rule : rules) {
+      try {
+        final Object rate = rule.get("sample_rate");
+        if (!(rate instanceof Number)) {
+          log.error("Missing sample_rate in sampling rule: {}", rule);
+          continue;
+        }
+        Map<String, ValueMatcher> tagMatchers = null;
+        final Object tags = rule.get("tags");
+        if (tags instanceof Map) {
+          tagMatchers = new HashMap<>();
+          for (final Entry<?, ?> tag : ((Map<?, ?>) tags).entrySet()) {
+            tagMatchers.put(String.valueOf(tag.getKey()), globOf(tag.getValue()));
+          }
+        }
+        samplingRules.add(
+            new SpanSamplingRule<>(
+                globOf(rule.get("service")),
+                globOf(rule.get("name")),
+                globOf(rule.get("resource")),
+                tagMatchers,
+                new DeterministicSampler<T>(((Number) rate).doubleValue())));
+      } catch (final RuntimeException e) {
+        log.error("Unable to parse sampling rule: {}", rule, e);
+      }
+    }
+  }
+
+  private static ValueMatcher globOf(final Object pattern) {
+    if (null == pattern) {
+      return ValueMatcher.ANY;
+    }
+    if (pattern instanceof Number) {
+      // JSON numbers are parsed as doubles, but 500 must not become the pattern "500.0"
+      final double number = ((Number) pattern).doubleValue();
+      if (number == Math.rint(number) && !Double.isInfinite(number)) {
+        return ValueMatcher.glob(Long.toString((long) number));
+      }
+    }
+    return ValueMatcher.glob(String.valueOf(pattern));
+  }
+
   @Override
   public boolean sample(final T span) {
     return true;
@@ -84,14 +170,7 @@ public class RuleBasedSampler<T extends CoreSpan<T>> implements Sampler<T>, Prio
 
   @Override
   public void setSamplingPriority(final T span) {
-    SamplingRule<T> matchedRule = null;
-
-    for (final SamplingRule<T> samplingRule : samplingRules) {
-      if (samplingRule.matches(span)) {
-        matchedRule = samplingRule;
-        break;
-      }
-    }
+    final SamplingRule<T> matchedRule = samplingRules.findMatchingRule(span);
 
     if (matchedRule == null) {
       fallbackSampler.setSamplingPriority(span);
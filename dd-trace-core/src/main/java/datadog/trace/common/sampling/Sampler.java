@@ -27,14 +27,17 @@ public interface Sampler<T extends CoreSpan<T>> {
       if (config != null) {
         final Map<String, String> serviceRules = config.getTraceSamplingServiceRules();
         final Map<String, String> operationRules = config.getTraceSamplingOperationRules();
+        final String jsonRules = config.getTraceSamplingRules();
 
         if ((serviceRules != null && !serviceRules.isEmpty())
             || (operationRules != null && !operationRules.isEmpty())
+            || (jsonRules != null && !jsonRules.trim().isEmpty())
             || config.getTraceSampleRate() != null) {
 
           try {
             sampler =
                 RuleBasedSampler.build(
+                    jsonRules,
                     serviceRules,
                     operationRules,
                     config.getTraceSampleRate(),
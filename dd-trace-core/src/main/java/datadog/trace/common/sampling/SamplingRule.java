@@ -1,7 +1,8 @@
 package datadog.trace.common.sampling;
 
 import datadog.trace.core.CoreSpan;
-import java.util.regex.Pattern;
+import java.util.Collections;
+import java.util.Map;
 
 public abstract class SamplingRule<T extends CoreSpan<T>> {
   private final RateSampler<T> sampler;
@@ -20,57 +21,119 @@ public abstract class SamplingRule<T extends CoreSpan<T>> {
     return sampler;
   }
 
-  public static class AlwaysMatchesSamplingRule<T extends CoreSpan<T>> extends SamplingRule<T> {
+  /**
+   * Whether spans of the given service may match this rule. Must never return false when {@link
+   * #matches} could return true for a span of this service.
+   */
+  boolean mayMatchService(final String serviceName) {
+    return true;
+  }
 
-    public AlwaysMatchesSamplingRule(final RateSampler<T> sampler) {
+  /**
+   * Whether spans with the given operation name may match this rule. Must never return false when
+   * {@link #matches} could return true for a span with this operation name.
+   */
+  boolean mayMatchOperation(final CharSequence operationName) {
+    return true;
+  }
+
+  /**
+   * @return true if the outcome of {@link #matches} is fully determined by {@link
+   *     #mayMatchService} and {@link #mayMatchOperation}
+   */
+  boolean isDecidedByServiceAndOperation() {
+    return false;
+  }
+
+  /**
+   * Evaluates the parts of the rule not covered by {@link #mayMatchService} and {@link
+   * #mayMatchOperation}, which are known to have matched.
+   */
+  boolean matchesRemaining(final T span) {
+    return matches(span);
+  }
+
+  /**
+   * A rule matching spans on their service, operation and resource names as well as tag values.
+   * Attributes without a matcher are not taken into account.
+   */
+  public static class SpanSamplingRule<T extends CoreSpan<T>> extends SamplingRule<T> {
+    private final ValueMatcher serviceMatcher;
+    private final ValueMatcher operationMatcher;
+    private final ValueMatcher resourceMatcher;
+    private final Map<String, ValueMatcher> tagMatchers;
+
+    public SpanSamplingRule(
+        final ValueMatcher serviceMatcher,
+        final ValueMatcher operationMatcher,
+        final ValueMatcher resourceMatcher,
+        final Map<String, ValueMatcher> tagMatchers,
+        final RateSampler<T> sampler) {
       super(sampler);
+      this.serviceMatcher = serviceMatcher;
+      this.operationMatcher = operationMatcher;
+      this.resourceMatcher = resourceMatcher;
+      this.tagMatchers =
+          null == tagMatchers ? Collections.<String, ValueMatcher>emptyMap() : tagMatchers;
     }
 
     @Override
     public boolean matches(final T span) {
-      return true;
+      return mayMatchService(span.getServiceName())
+          && mayMatchOperation(span.getOperationName())
+          && matchesRemaining(span);
     }
-  }
 
-  public abstract static class PatternMatchSamplingRule<T extends CoreSpan<T>>
-      extends SamplingRule<T> {
-    private final Pattern pattern;
+    @Override
+    boolean mayMatchService(final String serviceName) {
+      return serviceMatcher.matches(serviceName);
+    }
 
-    public PatternMatchSamplingRule(final String regex, final RateSampler<T> sampler) {
-      super(sampler);
-      this.pattern = Pattern.compile(regex);
+    @Override
+    boolean mayMatchOperation(final CharSequence operationName) {
+      return operationMatcher.matches(operationName);
     }
 
     @Override
-    public boolean matches(final T span) {
-      final CharSequence relevantString = getRelevantString(span);
-      return relevantString != null && pattern.matcher(relevantString).matches();
+    boolean isDecidedByServiceAndOperation() {
+      return resourceMatcher == ValueMatcher.ANY && tagMatchers.isEmpty();
     }
 
-    protected abstract CharSequence getRelevantString(T span);
+    @Override
+    boolean matchesRemaining(final T span) {
+      if (!resourceMatcher.matches(span.getResourceName())) {
+        return false;
+      }
+      for (final Map.Entry<String, ValueMatcher> tagMatcher : tagMatchers.entrySet()) {
+        final Object value = span.getTag(tagMatcher.getKey());
+        if (null == value
+            || !tagMatcher
+                .getValue()
+                .matches(value instanceof CharSequence ? (CharSequence) value : value.toString())) {
+          return false;
+        }
+      }
+      return true;
+    }
   }
 
-  public static class ServiceSamplingRule<T extends CoreSpan<T>>
-      extends PatternMatchSamplingRule<T> {
-    public ServiceSamplingRule(final String regex, final RateSampler<T> sampler) {
-      super(regex, sampler);
-    }
+  public static class AlwaysMatchesSamplingRule<T extends CoreSpan<T>>
+      extends SpanSamplingRule<T> {
 
-    @Override
-    protected String getRelevantString(final T span) {
-      return span.getServiceName();
+    public AlwaysMatchesSamplingRule(final RateSampler<T> sampler) {
+      super(ValueMatcher.ANY, ValueMatcher.ANY, ValueMatcher.ANY, null, sampler);
     }
   }
 
-  public static class OperationSamplingRule<T extends CoreSpan<T>>
-      extends PatternMatchSamplingRule<T> {
-    public OperationSamplingRule(final String regex, final RateSampler<T> sampler) {
-      super(regex, sampler);
+  public static class ServiceSamplingRule<T extends CoreSpan<T>> extends SpanSamplingRule<T> {
+    public ServiceSamplingRule(final String regex, final RateSampler<T> sampler) {
+      super(ValueMatcher.regex(regex), ValueMatcher.ANY, ValueMatcher.ANY, null, sampler);
     }
+  }
 
-    @Override
-    protected CharSequence getRelevantString(final T span) {
-      return span.getOperationName();
+  public static class OperationSamplingRule<T extends CoreSpan<T>> extends SpanSamplingRule<T> {
+    public OperationSamplingRule(final String regex, final RateSampler<T> sampler) {
+      super(ValueMatcher.ANY, ValueMatcher.regex(regex), ValueMatcher.ANY, null, sampler);
     }
   }
 }
@@ -0,0 +1,144 @@
+package datadog.trace.common.sampling;
+
+import java.util.regex.Pattern;
+
+/**
+ * Matches span attributes (service, operation and resource names, tag values) against a sampling
+ * rule pattern. Patterns are compiled once, picking the cheapest implementation able to evaluate
+ * them: literal patterns are plain string comparisons and only patterns actually using wildcards
+ * pay for a wildcard match.
+ */
+public abstract class ValueMatcher {
+
+  /** Matches anything, including absent values. */
+  public static final ValueMatcher ANY =
+      new ValueMatcher() {
+        @Override
+        public boolean matches(final CharSequence value) {
+          return true;
+        }
+      };
+
+  /**
+   * Compiles a glob pattern, where {@code *} matches any sequence of characters and {@code ?}
+   * matches a single character.
+   */
+  public static ValueMatcher glob(final String glob) {
+    if (null == glob || "*".equals(glob)) {
+      return ANY;
+    }
+    if (glob.indexOf('*') < 0 && glob.indexOf('?') < 0) {
+      return new Exact(glob);
+    }
+    return new Glob(glob);
+  }
+
+  /** Compiles a regular expression, which must match the whole value. */
+  public static ValueMatcher regex(final String regex) {
+    if (null == regex) {
+      return ANY;
+    }
+    if (isLiteral(regex)) {
+      return new Exact(regex);
+    }
+    return new Regex(regex);
+  }
+
+  public static ValueMatcher exact(final String value) {
+    return null == value ? ANY : new Exact(value);
+  }
+
+  public abstract boolean matches(CharSequence value);
+
+  private static boolean isLiteral(final String regex) {
+    for (int i = 0; i < regex.length(); i++) {
+      if ("\\^$.|?*+()[]{}".indexOf(regex.charAt(i)) >= 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static final class Exact extends ValueMatcher {
+    private final String value;
+
+    private Exact(final String value) {
+      this.value = value;
+    }
+
+    @Override
+    public boolean matches(final CharSequence candidate) {
+      if (null == candidate || candidate.length() != value.length()) {
+        return false;
+      }
+      if (candidate instanceof String) {
+        return value.equals(candidate);
+      }
+      for (int i = 0; i < value.length(); i++) {
+        if (value.charAt(i) != candidate.charAt(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  private static final class Glob extends ValueMatcher {
+    private final char[] pattern;
+    private final int minLength;
+
+    private Glob(final String glob) {
+      this.pattern = glob.toCharArray();
+      int wildcards = 0;
+      for (final char c : pattern) {
+        if (c == '*') {
+          wildcards++;
+        }
+      }
+      this.minLength = pattern.length - wildcards;
+    }
+
+    @Override
+    public boolean matches(final CharSequence candidate) {
+      if (null == candidate || candidate.length() < minLength) {
+        return false;
+      }
+      // linear scan which only backtracks to the last star seen
+      int p = 0;
+      int c = 0;
+      int starP = -1;
+      int starC = 0;
+      while (c < candidate.length()) {
+        if (p < pattern.length && (pattern[p] == '?' || pattern[p] == candidate.charAt(c))) {
+          p++;
+          c++;
+        } else if (p < pattern.length && pattern[p] == '*') {
+          starP = p++;
+          starC = c;
+        } else if (starP >= 0) {
+          p = starP + 1;
+          c = ++starC;
+        } else {
+          return false;
+        }
+      }
+      while (p < pattern.length && pattern[p] == '*') {
+        p++;
+      }
+      return p == pattern.length;
+    }
+  }
+
+  private static final class Regex extends ValueMatcher {
+    private final Pattern pattern;
+
+    private Regex(final String regex) {
+      this.pattern = Pattern.compile(regex);
+    }
+
+    @Override
+    public boolean matches(final CharSequence candidate) {
+      return null != candidate && pattern.matcher(candidate).matches();
+    }
+  }
+}
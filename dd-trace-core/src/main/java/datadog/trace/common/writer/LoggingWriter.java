@@ -1,33 +1,49 @@
 package datadog.trace.common.writer;
 
-import com.squareup.moshi.JsonAdapter;
-import com.squareup.moshi.Moshi;
-import com.squareup.moshi.Types;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import datadog.trace.common.writer.ddagent.TraceMapperV0_4;
 import datadog.trace.core.DDSpan;
 import datadog.trace.core.processor.TraceProcessor;
+import datadog.trace.core.serialization.GrowableBuffer;
+import datadog.trace.core.serialization.json.JsonWriter;
+import java.nio.ByteBuffer;
 import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public class LoggingWriter implements Writer {
-  private static final JsonAdapter<List<DDSpan>> TRACE_ADAPTER =
-      new Moshi.Builder()
-          .add(DDSpanJsonAdapter.buildFactory(false))
-          .build()
-          .adapter(Types.newParameterizedType(List.class, DDSpan.class));
-
   private final TraceProcessor processor = new TraceProcessor();
 
+  // traces are encoded by the same mapper as the agent payloads, streamed
+  // as JSON into a buffer reused for every trace
+  private final GrowableBuffer buffer = new GrowableBuffer(16 << 10);
+  private final JsonWriter jsonWriter = new JsonWriter(buffer);
+  private final TraceMapperV0_4 traceMapper = new TraceMapperV0_4();
+
   @Override
   public void write(final List<DDSpan> trace) {
     final List<DDSpan> processedTrace = processor.onTraceComplete(trace);
+    if (!log.isInfoEnabled()) {
+      return;
+    }
     try {
-      log.info("write(trace): {}", TRACE_ADAPTER.toJson(processedTrace));
+      log.info("write(trace): {}", toJson(processedTrace));
     } catch (final Exception e) {
       log.error("error writing(trace): {}", processedTrace, e);
     }
   }
 
+  private synchronized String toJson(final List<DDSpan> trace) {
+    try {
+      jsonWriter.format(trace, traceMapper);
+      final ByteBuffer json = buffer.slice();
+      return new String(json.array(), json.arrayOffset(), json.remaining(), UTF_8);
+    } finally {
+      buffer.reset();
+    }
+  }
+
   @Override
   public void start() {
     log.info("start()");
@@ -5,18 +5,26 @@ import static datadog.trace.core.serialization.Util.integerToStringBuffer;
 import static datadog.trace.core.serialization.Util.writeLongAsString;
 import static java.nio.charset.StandardCharsets.ISO_8859_1;
 
+import datadog.trace.api.DDTags;
 import datadog.trace.bootstrap.instrumentation.api.InstrumentationTags;
+import datadog.trace.bootstrap.instrumentation.api.Tags;
 import datadog.trace.bootstrap.instrumentation.api.UTF8BytesString;
 import datadog.trace.core.CoreSpan;
 import datadog.trace.core.Metadata;
 import datadog.trace.core.MetadataConsumer;
+import datadog.trace.core.SharedTags;
+import datadog.trace.core.TagConsumer;
+import datadog.trace.core.serialization.EncodingCache;
+import datadog.trace.core.serialization.Utf8Cache;
 import datadog.trace.core.serialization.Writable;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.WritableByteChannel;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import okhttp3.RequestBody;
 
 public final class TraceMapperV0_4 implements TraceMapper {
@@ -36,9 +44,28 @@ public final class TraceMapperV0_4 implements TraceMapper {
 
   static final byte[] EMPTY = ByteBuffer.allocate(1).put((byte) 0x90).array();
 
+  /** Tags whose values are drawn from a small set, so their encoding is worth caching */
+  private static final Set<String> LOW_CARDINALITY_TAGS =
+      new HashSet<>(
+          Arrays.asList(
+              "env",
+              "version",
+              DDTags.LANGUAGE_TAG_KEY,
+              Tags.COMPONENT,
+              Tags.SPAN_KIND,
+              Tags.HTTP_METHOD,
+              Tags.DB_TYPE,
+              Tags.PEER_SERVICE));
+
+  /** Tag, baggage and metric names */
+  private static final EncodingCache KEY_CACHE = new Utf8Cache(256);
+  /** Service names, span types and the values of {@link #LOW_CARDINALITY_TAGS} */
+  private static final EncodingCache VALUE_CACHE = new Utf8Cache(256);
+
   private static final class MetaWriter extends MetadataConsumer {
 
     private final byte[] numberByteArray = integerToStringBuffer();
+    private final TagWriter tagWriter = new TagWriter();
     private Writable writable;
 
     MetaWriter withWritable(Writable writable) {
@@ -49,7 +76,7 @@ public final class TraceMapperV0_4 implements TraceMapper {
     @Override
     public void accept(Metadata metadata) {
       // since tags can "override" baggage, we need to count the non overlapping ones
-      int size = metadata.getTags().size() + 2;
+      int size = metadata.getTags().size() + metadata.getSharedTags().size() + 2;
       // assume we can't have more than 64 baggage items,
       // and that iteration order is stable to avoid looking
       // up in the tags more than necessary
@@ -57,7 +84,8 @@ public final class TraceMapperV0_4 implements TraceMapper {
       if (!metadata.getBaggage().isEmpty()) {
         int i = 0;
         for (Map.Entry<String, String> key : metadata.getBaggage().entrySet()) {
-          if (!metadata.getTags().containsKey(key.getKey())) {
+          if (!metadata.getTags().containsKey(key.getKey())
+              && !metadata.getSharedTags().containsKey(key.getKey())) {
             size++;
           } else {
             overlaps |= (1L << i);
@@ -70,7 +98,7 @@ public final class TraceMapperV0_4 implements TraceMapper {
       for (Map.Entry<String, String> entry : metadata.getBaggage().entrySet()) {
         // tags and baggage may intersect, but tags take priority
         if ((overlaps & (1L << i)) == 0) {
-          writable.writeString(entry.getKey(), null);
+          writable.writeString(entry.getKey(), KEY_CACHE);
           writable.writeString(entry.getValue(), null);
         }
         ++i;
@@ -79,17 +107,28 @@ public final class TraceMapperV0_4 implements TraceMapper {
       writable.writeUTF8(metadata.getThreadName());
       writable.writeUTF8(THREAD_ID);
       writeLongAsString(metadata.getThreadId(), writable, numberByteArray);
-      for (Map.Entry<String, Object> entry : metadata.getTags().entrySet()) {
-        writable.writeString(entry.getKey(), null);
-        if (entry.getValue() instanceof Long || entry.getValue() instanceof Integer) {
+      final SharedTags sharedTags = metadata.getSharedTags();
+      for (int j = 0; j < sharedTags.size(); ++j) {
+        writable.writeUTF8(sharedTags.encodedKey(j));
+        writable.writeUTF8(sharedTags.encodedValue(j));
+      }
+      metadata.forEachTag(tagWriter);
+    }
+
+    private final class TagWriter extends TagConsumer {
+      @Override
+      public void accept(String key, Object value) {
+        writable.writeString(key, KEY_CACHE);
+        if (value instanceof Long || value instanceof Integer) {
           // TODO it would be nice not to need to do this, either because
           //  the agent would accept variably typed tag values, or numeric
           //  tags get moved to the metrics
-          writeLongAsString(((Number) entry.getValue()).longValue(), writable, numberByteArray);
-        } else if (entry.getValue() instanceof UTF8BytesString) {
-          writable.writeUTF8((UTF8BytesString) entry.getValue());
+          writeLongAsString(((Number) value).longValue(), writable, numberByteArray);
+        } else if (value instanceof UTF8BytesString) {
+          writable.writeUTF8((UTF8BytesString) value);
         } else {
-          writable.writeString(String.valueOf(entry.getValue()), null);
+          writable.writeString(
+              String.valueOf(value), LOW_CARDINALITY_TAGS.contains(key) ? VALUE_CACHE : null);
         }
       }
     }
@@ -104,7 +143,7 @@ public final class TraceMapperV0_4 implements TraceMapper {
       writable.startMap(12);
       /* 1  */
       writable.writeUTF8(SERVICE);
-      writable.writeString(span.getServiceName(), null);
+      writable.writeString(span.getServiceName(), VALUE_CACHE);
       /* 2  */
       writable.writeUTF8(NAME);
       writable.writeObject(span.getOperationName(), null);
@@ -128,7 +167,7 @@ public final class TraceMapperV0_4 implements TraceMapper {
       writable.writeLong(span.getDurationNano());
       /* 9  */
       writable.writeUTF8(TYPE);
-      writable.writeString(span.getType(), null);
+      writable.writeString(span.getType(), VALUE_CACHE);
       /* 10 */
       writable.writeUTF8(ERROR);
       writable.writeInt(span.getError());
@@ -161,7 +200,7 @@ public final class TraceMapperV0_4 implements TraceMapper {
       writable.writeInt(1);
     }
     for (Map.Entry<CharSequence, Number> metric : metrics.entrySet()) {
-      writable.writeString(metric.getKey(), null);
+      writable.writeString(metric.getKey(), KEY_CACHE);
       writable.writeObject(metric.getValue(), null);
     }
   }
@@ -9,6 +9,8 @@ import datadog.trace.bootstrap.instrumentation.api.UTF8BytesString;
 import datadog.trace.core.CoreSpan;
 import datadog.trace.core.Metadata;
 import datadog.trace.core.MetadataConsumer;
+import datadog.trace.core.SharedTags;
+import datadog.trace.core.TagConsumer;
 import datadog.trace.core.serialization.GrowableBuffer;
 import datadog.trace.core.serialization.Mapper;
 import datadog.trace.core.serialization.Writable;
@@ -203,6 +205,7 @@ public final class TraceMapperV0_5 implements TraceMapper {
 
   private final class MetaWriter extends MetadataConsumer {
 
+    private final TagWriter tagWriter = new TagWriter();
     private Writable writable;
 
     MetaWriter withWritable(final Writable writable) {
@@ -213,7 +216,7 @@ public final class TraceMapperV0_5 implements TraceMapper {
     @Override
     public void accept(Metadata metadata) {
       // since tags can "override" baggage, we need to count the non overlapping ones
-      int size = metadata.getTags().size() + 2;
+      int size = metadata.getTags().size() + metadata.getSharedTags().size() + 2;
       // assume we can't have more than 64 baggage items,
       // and that iteration order is stable to avoid looking
       // up in the tags more than necessary
@@ -221,7 +224,8 @@ public final class TraceMapperV0_5 implements TraceMapper {
       if (!metadata.getBaggage().isEmpty()) {
         int i = 0;
         for (final Map.Entry<String, String> key : metadata.getBaggage().entrySet()) {
-          if (!metadata.getTags().containsKey(key.getKey())) {
+          if (!metadata.getTags().containsKey(key.getKey())
+              && !metadata.getSharedTags().containsKey(key.getKey())) {
             size++;
           } else {
             overlaps |= (1L << i);
@@ -243,9 +247,19 @@ public final class TraceMapperV0_5 implements TraceMapper {
       writeDictionaryEncoded(writable, metadata.getThreadName());
       writeDictionaryEncoded(writable, THREAD_ID);
       writeDictionaryEncoded(writable, String.valueOf(metadata.getThreadId()));
-      for (final Map.Entry<String, Object> entry : metadata.getTags().entrySet()) {
-        writeDictionaryEncoded(writable, entry.getKey());
-        writeDictionaryEncoded(writable, entry.getValue());
+      final SharedTags sharedTags = metadata.getSharedTags();
+      for (int j = 0; j < sharedTags.size(); ++j) {
+        writeDictionaryEncoded(writable, sharedTags.key(j));
+        writeDictionaryEncoded(writable, sharedTags.value(j));
+      }
+      metadata.forEachTag(tagWriter);
+    }
+
+    private final class TagWriter extends TagConsumer {
+      @Override
+      public void accept(final String key, final Object value) {
+        writeDictionaryEncoded(writable, key);
+        writeDictionaryEncoded(writable, value);
       }
     }
   }
@@ -39,12 +39,14 @@ import datadog.trace.core.propagation.TagContext;
 import datadog.trace.core.scopemanager.ContinuableScopeManager;
 import datadog.trace.core.taginterceptor.RuleFlags;
 import datadog.trace.core.taginterceptor.TagInterceptor;
+import datadog.trace.core.util.StackTraceRenderer;
 import datadog.trace.util.AgentTaskScheduler;
 import java.lang.ref.WeakReference;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -91,6 +93,14 @@ public class CoreTracer implements AgentTracer.TracerAPI {
   private final Map<String, String> localRootSpanTags;
   /** A set of tags that are added to every span */
   private final Map<String, String> defaultSpanTags;
+  /** The default span tags which can be referenced by spans instead of being copied */
+  private final SharedTags sharedSpanTags;
+  /** The default span tags which need to be intercepted on each span */
+  private final Map<String, Object> interceptedSpanTags;
+  /** The shared default span tags, merged with the local root span tags which can be shared */
+  private final SharedTags sharedRootSpanTags;
+  /** The local root span tags which need to be intercepted on each root span */
+  private final Map<String, Object> interceptedRootSpanTags;
   /** A configured mapping of service names to update with new values */
   private final Map<String, String> serviceNameMappings;
 
@@ -117,6 +127,9 @@ public class CoreTracer implements AgentTracer.TracerAPI {
    */
   private final TagInterceptor tagInterceptor;
 
+  /** Renders the error.stack tag of the spans, see {@link DDSpan#addThrowable}. */
+  private final StackTraceRenderer stackTraceRenderer;
+
   private final SortedSet<TraceInterceptor> interceptors =
       new ConcurrentSkipListSet<>(
           new Comparator<TraceInterceptor>() {
@@ -243,7 +256,7 @@ public class CoreTracer implements AgentTracer.TracerAPI {
 
     this.writer.start();
 
-    metricsAggregator = createMetricsAggregator(config);
+    metricsAggregator = createMetricsAggregator(config, monitoring);
     // Schedule the metrics aggregator to begin reporting after a random delay of 1 to 10 seconds
     // (using milliseconds granularity.) This avoids a fleet of traced applications starting at the
     // same time from sending metrics in sync.
@@ -261,6 +274,18 @@ public class CoreTracer implements AgentTracer.TracerAPI {
     this.tagInterceptor =
         null == tagInterceptor ? new TagInterceptor(new RuleFlags(config)) : tagInterceptor;
 
+    this.stackTraceRenderer =
+        new StackTraceRenderer(config.getErrorStackMaxFrames(), config.getErrorStackMaxLength());
+
+    this.interceptedSpanTags = new HashMap<>();
+    this.sharedSpanTags =
+        SharedTags.create(defaultSpanTags, this.tagInterceptor, this.interceptedSpanTags);
+    this.interceptedRootSpanTags = new HashMap<>();
+    this.sharedRootSpanTags =
+        sharedSpanTags.merge(
+            SharedTags.create(
+                localRootSpanTags, this.tagInterceptor, this.interceptedRootSpanTags));
+
     shutdownCallback = new ShutdownHook(this);
     try {
       Runtime.getRuntime().addShutdownHook(shutdownCallback);
@@ -360,6 +385,10 @@ public class CoreTracer implements AgentTracer.TracerAPI {
     return tagInterceptor;
   }
 
+  StackTraceRenderer getStackTraceRenderer() {
+    return stackTraceRenderer;
+  }
+
   @Override
   public AgentSpan activeSpan() {
     return scopeManager.activeSpan();
@@ -370,6 +399,16 @@ public class CoreTracer implements AgentTracer.TracerAPI {
     return scopeManager.active();
   }
 
+  @Override
+  public int checkpointScopes() {
+    return scopeManager.checkpoint();
+  }
+
+  @Override
+  public void restoreScopes(final int checkpoint) {
+    scopeManager.restore(checkpoint);
+  }
+
   @Override
   public AgentPropagation propagate() {
     return this;
@@ -380,6 +419,12 @@ public class CoreTracer implements AgentTracer.TracerAPI {
     return AgentTracer.NoopAgentSpan.INSTANCE;
   }
 
+  @Override
+  public AgentSpan.SharedTagLayer shareTags(final Map<String, ?> tags) {
+    final Map<String, Object> intercepted = new HashMap<>();
+    return new SpanTagLayer(SharedTags.create(tags, tagInterceptor, intercepted), intercepted);
+  }
+
   @Override
   public <C> void inject(final AgentSpan span, final C carrier, final Setter<C> setter) {
 
@@ -704,7 +749,8 @@ public class CoreTracer implements AgentTracer.TracerAPI {
       final int samplingPriority;
       final String origin;
       final Map<String, String> coreTags;
-      final Map<String, String> rootSpanTags;
+      final Map<String, Object> rootSpanTags;
+      final SharedTags sharedTags;
 
       final DDSpanContext context;
 
@@ -734,6 +780,7 @@ public class CoreTracer implements AgentTracer.TracerAPI {
         origin = null;
         coreTags = null;
         rootSpanTags = null;
+        sharedTags = sharedSpanTags;
         parentServiceName = ddsc.getServiceName();
         if (serviceName == null) {
           serviceName = parentServiceName;
@@ -764,7 +811,8 @@ public class CoreTracer implements AgentTracer.TracerAPI {
           origin = null;
         }
 
-        rootSpanTags = localRootSpanTags;
+        rootSpanTags = interceptedRootSpanTags;
+        sharedTags = sharedRootSpanTags;
 
         parentTrace = pendingTraceFactory.create(traceId);
       }
@@ -778,7 +826,7 @@ public class CoreTracer implements AgentTracer.TracerAPI {
 
       final int tagsSize =
           (null == tags ? 0 : tags.size())
-              + defaultSpanTags.size()
+              + interceptedSpanTags.size()
               + (null == coreTags ? 0 : coreTags.size())
               + (null == rootSpanTags ? 0 : rootSpanTags.size());
       // some attributes are inherited from the parent
@@ -797,17 +845,37 @@ public class CoreTracer implements AgentTracer.TracerAPI {
               errorFlag,
               spanType,
               tagsSize,
-              parentTrace);
+              parentTrace,
+              sharedTags);
 
       // By setting the tags on the context we apply decorators to any tags that have been set via
       // the builder. This is the order that the tags were added previously, but maybe the `tags`
       // set in the builder should come last, so that they override other tags.
-      context.setAllTags(defaultSpanTags);
+      context.setAllTags(interceptedSpanTags);
       context.setAllTags(tags);
       context.setAllTags(coreTags);
-      context.setAllTags(rootSpanTags);
+      if (null != rootSpanTags) {
+        if (overridesLocalRootSpanTags(tags) || overridesLocalRootSpanTags(coreTags)) {
+          // the local root span tags take precedence, including the shared ones
+          context.setAllTags(localRootSpanTags);
+        } else {
+          context.setAllTags(rootSpanTags);
+        }
+      }
       return context;
     }
+
+    /** @return true if the tags override any of the local root span tags */
+    private boolean overridesLocalRootSpanTags(final Map<String, ?> tags) {
+      if (null != tags && !localRootSpanTags.isEmpty()) {
+        for (final String key : tags.keySet()) {
+          if (localRootSpanTags.containsKey(key)) {
+            return true;
+          }
+        }
+      }
+      return false;
+    }
   }
 
   private static class ShutdownHook extends Thread {
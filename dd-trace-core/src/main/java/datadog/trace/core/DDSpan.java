@@ -5,8 +5,6 @@ import datadog.trace.api.DDTags;
 import datadog.trace.api.sampling.PrioritySampling;
 import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
 import datadog.trace.core.util.Clock;
-import java.io.PrintWriter;
-import java.io.StringWriter;
 import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
@@ -52,6 +50,9 @@ public class DDSpan implements AgentSpan, CoreSpan<DDSpan> {
    */
   private final AtomicLong durationNano = new AtomicLong();
 
+  /** The view of this span handed out by an API bridge, see {@link #setWrapper(Object)}. */
+  private volatile Object wrapper;
+
   /**
    * Spans should be constructed using the builder, not by calling the constructor directly.
    *
@@ -160,9 +161,8 @@ public class DDSpan implements AgentSpan, CoreSpan<DDSpan> {
     setTag(DDTags.ERROR_MSG, error.getMessage());
     setTag(DDTags.ERROR_TYPE, error.getClass().getName());
 
-    final StringWriter errorString = new StringWriter();
-    error.printStackTrace(new PrintWriter(errorString));
-    setTag(DDTags.ERROR_STACK, errorString.toString());
+    setTag(
+        DDTags.ERROR_STACK, context.getTrace().getTracer().getStackTraceRenderer().render(error));
 
     return this;
   }
@@ -383,6 +383,24 @@ public class DDSpan implements AgentSpan, CoreSpan<DDSpan> {
     return context.hasResourceName();
   }
 
+  @Override
+  public Object getWrapper() {
+    return wrapper;
+  }
+
+  @Override
+  public void setWrapper(final Object wrapper) {
+    this.wrapper = wrapper;
+  }
+
+  @Override
+  public DDSpan addSharedTags(final SharedTagLayer tags) {
+    if (tags instanceof SpanTagLayer) {
+      context.addSharedTags((SpanTagLayer) tags);
+    }
+    return this;
+  }
+
   @Override
   public Integer getSamplingPriority() {
     final int samplingPriority = context.getSamplingPriority();
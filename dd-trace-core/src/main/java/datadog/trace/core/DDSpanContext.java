@@ -55,13 +55,20 @@ public class DDSpanContext implements AgentSpan.Context {
   /**
    * Tags are associated to the current span, they will not propagate to the children span.
    *
-   * <p>The underlying assumption for using a normal Map with synchronized access instead of a
+   * <p>The underlying assumption for using a plain map with synchronized access instead of a
    * ConcurrentHashMap is that even though the tags can be accessed and modified from multiple
    * threads, they will rarely, if ever, be read and modified concurrently by multiple threads but
    * rather read and accessed in a serial fashion on thread after thread. The synchronization can
    * then be wrapped around bulk operations to minimize the costly atomic operations.
    */
-  private final Map<String, Object> unsafeTags;
+  private final TagMap unsafeTags;
+
+  /**
+   * Tags shared with other spans, which are only referenced by this span. They never overlap with
+   * {@link #unsafeTags}: once one of them is overridden or removed, the shared tags are copied into
+   * the span's own tags. Guarded by the {@link #unsafeTags} lock.
+   */
+  private SharedTags sharedTags;
 
   /** The service name is required, otherwise the span are dropped by the agent */
   private volatile String serviceName;
@@ -106,6 +113,40 @@ public class DDSpanContext implements AgentSpan.Context {
       final CharSequence spanType,
       final int tagsSize,
       final PendingTrace trace) {
+    this(
+        traceId,
+        spanId,
+        parentId,
+        parentServiceName,
+        serviceName,
+        operationName,
+        resourceName,
+        samplingPriority,
+        origin,
+        baggageItems,
+        errorFlag,
+        spanType,
+        tagsSize,
+        trace,
+        SharedTags.EMPTY);
+  }
+
+  public DDSpanContext(
+      final DDId traceId,
+      final DDId spanId,
+      final DDId parentId,
+      final CharSequence parentServiceName,
+      final String serviceName,
+      final CharSequence operationName,
+      final CharSequence resourceName,
+      final int samplingPriority,
+      final String origin,
+      final Map<String, String> baggageItems,
+      final boolean errorFlag,
+      final CharSequence spanType,
+      final int tagsSize,
+      final PendingTrace trace,
+      final SharedTags sharedTags) {
 
     assert trace != null;
     this.trace = trace;
@@ -124,10 +165,9 @@ public class DDSpanContext implements AgentSpan.Context {
       this.baggageItems = new ConcurrentHashMap<>(baggageItems);
     }
 
-    // The +1 is the magic number from the tags below that we set at the end,
-    // and "* 4 / 3" is to make sure that we don't resize immediately
-    final int capacity = Math.max((tagsSize <= 0 ? 3 : (tagsSize + 1)) * 4 / 3, 8);
-    this.unsafeTags = new HashMap<>(capacity);
+    // The +1 is the magic number from the tags below that we set at the end
+    this.unsafeTags = new TagMap(tagsSize <= 0 ? 3 : tagsSize + 1);
+    this.sharedTags = sharedTags;
 
     setServiceName(serviceName);
     this.operationName = operationName;
@@ -141,7 +181,7 @@ public class DDSpanContext implements AgentSpan.Context {
     }
 
     if (origin != null) {
-      this.unsafeTags.put(ORIGIN_KEY, origin);
+      unsafeSetTag(ORIGIN_KEY, origin);
     }
     // Additional Metadata
     final Thread current = Thread.currentThread();
@@ -373,6 +413,9 @@ public class DDSpanContext implements AgentSpan.Context {
   public void setTag(final String tag, final Object value) {
     if (null == value || "".equals(value)) {
       synchronized (unsafeTags) {
+        if (sharedTags.containsKey(tag)) {
+          unshareTags();
+        }
         unsafeTags.remove(tag);
       }
     } else if (!trace.getTracer().getTagInterceptor().interceptTag(this, tag, value)) {
@@ -397,10 +440,33 @@ public class DDSpanContext implements AgentSpan.Context {
     }
   }
 
+  void addSharedTags(final SpanTagLayer layer) {
+    synchronized (unsafeTags) {
+      if (!unsafeTags.isEmpty()) {
+        // the span's own tags and its shared tags must not overlap
+        final SharedTags tags = layer.tags;
+        for (int i = 0; i < tags.size(); ++i) {
+          unsafeTags.remove(tags.key(i));
+        }
+      }
+      sharedTags = layer.mergeOnto(sharedTags);
+    }
+    setAllTags(layer.intercepted);
+  }
+
   void unsafeSetTag(final String tag, final Object value) {
+    if (sharedTags.containsKey(tag)) {
+      unshareTags();
+    }
     unsafeTags.put(tag, value);
   }
 
+  /** Copies the shared tags into the span's own tags, so one of them can be changed. */
+  private void unshareTags() {
+    unsafeTags.putAll(sharedTags.asMap());
+    sharedTags = SharedTags.EMPTY;
+  }
+
   Object getTag(final String key) {
     switch (key) {
       case DDTags.THREAD_ID:
@@ -423,12 +489,14 @@ public class DDSpanContext implements AgentSpan.Context {
    * @return the value associated with the tag
    */
   public Object unsafeGetTag(final String tag) {
-    return unsafeTags.get(tag);
+    final Object value = unsafeTags.get(tag);
+    return null != value ? value : sharedTags.get(tag);
   }
 
   public Map<String, Object> getTags() {
     synchronized (unsafeTags) {
-      Map<String, Object> tags = new HashMap<>(unsafeTags);
+      Map<String, Object> tags = new HashMap<>(sharedTags.asMap());
+      tags.putAll(unsafeTags);
       tags.put(DDTags.THREAD_ID, threadId);
       tags.put(DDTags.THREAD_NAME, threadName.toString());
       return Collections.unmodifiableMap(tags);
@@ -437,7 +505,7 @@ public class DDSpanContext implements AgentSpan.Context {
 
   public void processTagsAndBaggage(final MetadataConsumer consumer) {
     synchronized (unsafeTags) {
-      consumer.accept(new Metadata(threadId, threadName, unsafeTags, baggageItems));
+      consumer.accept(new Metadata(threadId, threadName, unsafeTags, sharedTags, baggageItems));
     }
   }
 
@@ -7,6 +7,7 @@ public class Metadata {
   private final long threadId;
   private final UTF8BytesString threadName;
   private final Map<String, Object> tags;
+  private final SharedTags sharedTags;
   private final Map<String, String> baggage;
 
   public Metadata(
@@ -14,9 +15,19 @@ public class Metadata {
       UTF8BytesString threadName,
       Map<String, Object> tags,
       Map<String, String> baggage) {
+    this(threadId, threadName, tags, SharedTags.EMPTY, baggage);
+  }
+
+  public Metadata(
+      long threadId,
+      UTF8BytesString threadName,
+      Map<String, Object> tags,
+      SharedTags sharedTags,
+      Map<String, String> baggage) {
     this.threadId = threadId;
     this.threadName = threadName;
     this.tags = tags;
+    this.sharedTags = sharedTags;
     this.baggage = baggage;
   }
 
@@ -32,6 +43,22 @@ public class Metadata {
     return tags;
   }
 
+  /** Visits each of {@link #getTags()}, without allocating entries for a span's own tags. */
+  public void forEachTag(final TagConsumer consumer) {
+    if (tags instanceof TagMap) {
+      ((TagMap) tags).forEachTag(consumer);
+    } else {
+      for (final Map.Entry<String, Object> tag : tags.entrySet()) {
+        consumer.accept(tag.getKey(), tag.getValue());
+      }
+    }
+  }
+
+  /** @return the tags shared with other spans, which never overlap with {@link #getTags()} */
+  public SharedTags getSharedTags() {
+    return sharedTags;
+  }
+
   public Map<String, String> getBaggage() {
     return baggage;
   }
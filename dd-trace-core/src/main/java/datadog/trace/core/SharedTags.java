@@ -0,0 +1,119 @@
+package datadog.trace.core;
+
+import datadog.trace.bootstrap.instrumentation.api.UTF8BytesString;
+import datadog.trace.core.taginterceptor.TagInterceptor;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An immutable set of tags shared by many spans, such as the globally configured span tags and
+ * the local root span tags.
+ *
+ * <p>Spans only reference the shared tags instead of copying them into their own tags, and the keys
+ * and values are encoded once for serialization. Only tags which are not intercepted can be shared,
+ * since intercepting a tag may change the span it is set on.
+ */
+public final class SharedTags {
+
+  public static final SharedTags EMPTY = new SharedTags(Collections.<String, Object>emptyMap());
+
+  private final Map<String, Object> tags;
+  private final String[] keys;
+  private final Object[] values;
+  private final UTF8BytesString[] encodedKeys;
+  private final UTF8BytesString[] encodedValues;
+
+  private SharedTags(final Map<String, Object> tags) {
+    this.tags = Collections.unmodifiableMap(tags);
+    final int size = tags.size();
+    this.keys = new String[size];
+    this.values = new Object[size];
+    this.encodedKeys = new UTF8BytesString[size];
+    this.encodedValues = new UTF8BytesString[size];
+    int i = 0;
+    for (final Map.Entry<String, Object> tag : tags.entrySet()) {
+      keys[i] = tag.getKey();
+      values[i] = tag.getValue();
+      encodedKeys[i] = UTF8BytesString.create(tag.getKey());
+      encodedValues[i] = UTF8BytesString.create(String.valueOf(tag.getValue()));
+      ++i;
+    }
+  }
+
+  /**
+   * Splits tags into the ones which can be shared and the ones which need to be intercepted on
+   * each span.
+   *
+   * @param tags the tags to share
+   * @param tagInterceptor the interceptor the tags would be set through
+   * @param intercepted receives the tags which can't be shared
+   * @return the shareable tags
+   */
+  static SharedTags create(
+      final Map<String, ?> tags,
+      final TagInterceptor tagInterceptor,
+      final Map<String, Object> intercepted) {
+    final Map<String, Object> shared = new LinkedHashMap<>();
+    for (final Map.Entry<String, ?> tag : tags.entrySet()) {
+      if (tagInterceptor.needsIntercept(tag.getKey())) {
+        intercepted.put(tag.getKey(), tag.getValue());
+      } else {
+        shared.put(tag.getKey(), tag.getValue());
+      }
+    }
+    return shared.isEmpty() ? EMPTY : new SharedTags(shared);
+  }
+
+  /**
+   * @param overrides the tags to add, which take precedence over these tags
+   * @return the shared tags holding both these tags and the overrides
+   */
+  SharedTags merge(final SharedTags overrides) {
+    if (overrides.isEmpty()) {
+      return this;
+    }
+    if (isEmpty()) {
+      return overrides;
+    }
+    final Map<String, Object> merged = new LinkedHashMap<>(tags);
+    merged.putAll(overrides.tags);
+    return new SharedTags(merged);
+  }
+
+  public int size() {
+    return keys.length;
+  }
+
+  public boolean isEmpty() {
+    return keys.length == 0;
+  }
+
+  public boolean containsKey(final String key) {
+    return keys.length != 0 && tags.containsKey(key);
+  }
+
+  public Object get(final String key) {
+    return keys.length == 0 ? null : tags.get(key);
+  }
+
+  public Map<String, Object> asMap() {
+    return tags;
+  }
+
+  public String key(final int i) {
+    return keys[i];
+  }
+
+  public Object value(final int i) {
+    return values[i];
+  }
+
+  public UTF8BytesString encodedKey(final int i) {
+    return encodedKeys[i];
+  }
+
+  public UTF8BytesString encodedValue(final int i) {
+    return encodedValues[i];
+  }
+}
@@ -0,0 +1,38 @@
+package datadog.trace.core;
+
+import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tags added to many spans through {@link AgentSpan#addSharedTags}. The tags which can be shared
+ * are merged into the shared tags of each span, and the merged tags are kept for each of the few
+ * shared tags spans start with, so the spans reference the same merged tags instead of copying
+ * them.
+ */
+final class SpanTagLayer implements AgentSpan.SharedTagLayer {
+
+  // spans start with the span tags or the local root span tags of the tracer
+  private static final int MAX_MERGED = 8;
+
+  final SharedTags tags;
+  final Map<String, Object> intercepted;
+  private final ConcurrentHashMap<SharedTags, SharedTags> merged = new ConcurrentHashMap<>();
+
+  SpanTagLayer(final SharedTags tags, final Map<String, Object> intercepted) {
+    this.tags = tags;
+    this.intercepted = intercepted;
+  }
+
+  /** @return the shared tags holding both the base and these tags, which take precedence */
+  SharedTags mergeOnto(final SharedTags base) {
+    SharedTags result = merged.get(base);
+    if (null == result) {
+      result = base.merge(tags);
+      if (merged.size() < MAX_MERGED) {
+        merged.putIfAbsent(base, result);
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,5 @@
+package datadog.trace.core;
+
+public abstract class TagConsumer {
+  public abstract void accept(String key, Object value);
+}
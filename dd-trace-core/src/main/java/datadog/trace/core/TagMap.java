@@ -0,0 +1,215 @@
+package datadog.trace.core;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The tags of a span, stored in an open-addressed table with linear probing.
+ *
+ * <p>Unlike a {@link java.util.HashMap}, setting a tag doesn't allocate an entry: keys and values
+ * live in two parallel arrays, and removals shift the following entries back so no tombstones are
+ * left behind. Tag names are almost always constants, so comparing keys is usually an identity
+ * check on a cached hash code. This class is not thread-safe, {@link DDSpanContext} guards it.
+ */
+final class TagMap extends AbstractMap<String, Object> {
+
+  private static final int MIN_CAPACITY = 8;
+
+  private String[] keys;
+  private Object[] values;
+  private int size;
+
+  TagMap(final int expectedSize) {
+    int capacity = MIN_CAPACITY;
+    while (capacity * 3 < expectedSize * 4) {
+      capacity <<= 1;
+    }
+    keys = new String[capacity];
+    values = new Object[capacity];
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public boolean containsKey(final Object key) {
+    return key instanceof String && indexOf((String) key) >= 0;
+  }
+
+  @Override
+  public Object get(final Object key) {
+    if (!(key instanceof String)) {
+      return null;
+    }
+    final int index = indexOf((String) key);
+    return index >= 0 ? values[index] : null;
+  }
+
+  @Override
+  public Object put(final String key, final Object value) {
+    final int mask = keys.length - 1;
+    int index = slot(key, mask);
+    String existing;
+    while (null != (existing = keys[index])) {
+      if (existing == key || existing.equals(key)) {
+        final Object previous = values[index];
+        values[index] = value;
+        return previous;
+      }
+      index = (index + 1) & mask;
+    }
+    keys[index] = key;
+    values[index] = value;
+    if (++size * 4 > keys.length * 3) {
+      resize();
+    }
+    return null;
+  }
+
+  @Override
+  public Object remove(final Object key) {
+    if (!(key instanceof String)) {
+      return null;
+    }
+    final int index = indexOf((String) key);
+    if (index < 0) {
+      return null;
+    }
+    final Object previous = values[index];
+    removeAt(index);
+    return previous;
+  }
+
+  @Override
+  public void clear() {
+    for (int i = 0; i < keys.length; ++i) {
+      keys[i] = null;
+      values[i] = null;
+    }
+    size = 0;
+  }
+
+  @Override
+  public Set<Entry<String, Object>> entrySet() {
+    return new AbstractSet<Entry<String, Object>>() {
+      @Override
+      public Iterator<Entry<String, Object>> iterator() {
+        return new EntryIterator();
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  /** Visits every tag without allocating entries, unlike iterating over {@link #entrySet()}. */
+  void forEachTag(final TagConsumer consumer) {
+    for (int i = 0; i < keys.length; ++i) {
+      final String key = keys[i];
+      if (null != key) {
+        consumer.accept(key, values[i]);
+      }
+    }
+  }
+
+  private int indexOf(final String key) {
+    final int mask = keys.length - 1;
+    int index = slot(key, mask);
+    String existing;
+    while (null != (existing = keys[index])) {
+      if (existing == key || existing.equals(key)) {
+        return index;
+      }
+      index = (index + 1) & mask;
+    }
+    return -1;
+  }
+
+  private void removeAt(int index) {
+    // shift back the entries of the same probe sequence so lookups don't stop at the gap
+    final int mask = keys.length - 1;
+    int next = (index + 1) & mask;
+    String key;
+    while (null != (key = keys[next])) {
+      final int home = slot(key, mask);
+      // the entry can fill the gap unless its home slot lies cyclically in (index, next]
+      if (((next - home) & mask) >= ((next - index) & mask)) {
+        keys[index] = key;
+        values[index] = values[next];
+        index = next;
+      }
+      next = (next + 1) & mask;
+    }
+    keys[index] = null;
+    values[index] = null;
+    --size;
+  }
+
+  private void resize() {
+    final String[] oldKeys = keys;
+    final Object[] oldValues = values;
+    final int capacity = oldKeys.length << 1;
+    final int mask = capacity - 1;
+    keys = new String[capacity];
+    values = new Object[capacity];
+    for (int i = 0; i < oldKeys.length; ++i) {
+      final String key = oldKeys[i];
+      if (null != key) {
+        int index = slot(key, mask);
+        while (null != keys[index]) {
+          index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = oldValues[i];
+      }
+    }
+  }
+
+  private static int slot(final String key, final int mask) {
+    final int hash = key.hashCode();
+    return (hash ^ (hash >>> 16)) & mask;
+  }
+
+  private final class EntryIterator implements Iterator<Entry<String, Object>> {
+    private int index = advance(0);
+
+    @Override
+    public boolean hasNext() {
+      return index < keys.length;
+    }
+
+    @Override
+    public Entry<String, Object> next() {
+      if (index >= keys.length) {
+        throw new NoSuchElementException();
+      }
+      final Entry<String, Object> entry = new SimpleImmutableEntry<>(keys[index], values[index]);
+      index = advance(index + 1);
+      return entry;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    private int advance(int from) {
+      while (from < keys.length && null == keys[from]) {
+        ++from;
+      }
+      return from;
+    }
+  }
+}
@@ -13,8 +13,11 @@ import datadog.trace.common.writer.ddagent.DDAgentApi;
 import datadog.trace.core.DDSpan;
 import datadog.trace.util.AgentTaskScheduler;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import org.jctools.counters.CountersFactory;
 import org.jctools.counters.FixedSizeStripedLongCounter;
 
@@ -29,6 +32,9 @@ import org.jctools.counters.FixedSizeStripedLongCounter;
  *   <li>serializing
  *   <li>sending to agent
  * </ul>
+ *
+ * <p>Counts are aggregated locally and reported once per flush interval, so recording an event
+ * never formats or sends a metric on the calling thread.
  */
 public class HealthMetrics implements AutoCloseable {
 
@@ -71,6 +77,15 @@ public class HealthMetrics implements AutoCloseable {
 
   private final FixedSizeStripedLongCounter enqueuedSpans =
       CountersFactory.createFixedSizeStripedCounter(8);
+  private final FixedSizeStripedLongCounter enqueuedBytes =
+      CountersFactory.createFixedSizeStripedCounter(8);
+
+  // sends happen on the writer's dispatching thread only
+  private final AtomicLong apiRequests = new AtomicLong();
+  private final AtomicLong flushedTraces = new AtomicLong();
+  private final AtomicLong flushedBytes = new AtomicLong();
+  private final AtomicLong apiErrors = new AtomicLong();
+  private final ConcurrentHashMap<Integer, AtomicLong> apiResponses = new ConcurrentHashMap<>();
 
   private final StatsDClient statsd;
   private final long interval;
@@ -148,7 +163,7 @@ public class HealthMetrics implements AutoCloseable {
   public void onSerialize(final int serializedSizeInBytes) {
     // DQH - Because of Java tracer's 2 phase acceptance and serialization scheme, this doesn't
     // map precisely
-    statsd.count("queue.enqueued.bytes", serializedSizeInBytes, NO_TAGS);
+    enqueuedBytes.inc(serializedSizeInBytes);
   }
 
   public void onFailedSerialize(final List<DDSpan> trace, final Throwable optionalCause) {
@@ -168,19 +183,27 @@ public class HealthMetrics implements AutoCloseable {
 
   private void onSendAttempt(
       final int traceCount, final int sizeInBytes, final DDAgentApi.Response response) {
-    statsd.incrementCounter("api.requests.total", NO_TAGS);
-    statsd.count("flush.traces.total", traceCount, NO_TAGS);
+    apiRequests.incrementAndGet();
+    flushedTraces.addAndGet(traceCount);
     // TODO: missing queue.spans (# of spans being sent)
-    statsd.count("flush.bytes.total", sizeInBytes, NO_TAGS);
+    flushedBytes.addAndGet(sizeInBytes);
 
     if (response.exception() != null) {
       // covers communication errors -- both not receiving a response or
       // receiving malformed response (even when otherwise successful)
-      statsd.incrementCounter("api.errors.total", NO_TAGS);
+      apiErrors.incrementAndGet();
     }
 
     if (response.status() != null) {
-      statsd.incrementCounter("api.responses.total", statusTagsCache.get(response.status()));
+      AtomicLong responses = apiResponses.get(response.status());
+      if (null == responses) {
+        AtomicLong newResponses = new AtomicLong();
+        responses = apiResponses.putIfAbsent(response.status(), newResponses);
+        if (null == responses) {
+          responses = newResponses;
+        }
+      }
+      responses.incrementAndGet();
     }
   }
 
@@ -188,6 +211,8 @@ public class HealthMetrics implements AutoCloseable {
   public void close() {
     if (null != cancellation) {
       cancellation.cancel();
+      // report what was counted since the last scheduled flush
+      new Flush().run(this);
     }
   }
 
@@ -228,6 +253,18 @@ public class HealthMetrics implements AutoCloseable {
       reportIfChanged(
           target.statsd, "queue.dropped.traces", target.unsetPriorityDroppedTraces, UNSET_TAG);
       reportIfChanged(target.statsd, "queue.enqueued.spans", target.enqueuedSpans, NO_TAGS);
+      reportIfChanged(target.statsd, "queue.enqueued.bytes", target.enqueuedBytes, NO_TAGS);
+      reportIfChanged(target.statsd, "api.requests.total", target.apiRequests, NO_TAGS);
+      reportIfChanged(target.statsd, "flush.traces.total", target.flushedTraces, NO_TAGS);
+      reportIfChanged(target.statsd, "flush.bytes.total", target.flushedBytes, NO_TAGS);
+      reportIfChanged(target.statsd, "api.errors.total", target.apiErrors, NO_TAGS);
+      for (Map.Entry<Integer, AtomicLong> responses : target.apiResponses.entrySet()) {
+        reportIfChanged(
+            target.statsd,
+            "api.responses.total",
+            responses.getValue(),
+            target.statusTagsCache.get(responses.getKey()));
+      }
     }
 
     private void reportIfChanged(
@@ -240,5 +277,13 @@ public class HealthMetrics implements AutoCloseable {
         statsDClient.count(aspect, count, tags);
       }
     }
+
+    private void reportIfChanged(
+        StatsDClient statsDClient, String aspect, AtomicLong counter, String[] tags) {
+      long count = counter.getAndSet(0);
+      if (count > 0) {
+        statsDClient.count(aspect, count, tags);
+      }
+    }
   }
 }
@@ -79,10 +79,17 @@ class B3HttpCodec {
     private static final int SAMPLING_PRIORITY = 3;
     private static final int IGNORE = -1;
 
+    private static final String[] CONTEXT_KEYS = {TRACE_ID_KEY, SPAN_ID_KEY, SAMPLING_PRIORITY_KEY};
+
     private B3ContextInterpreter(Map<String, String> taggedHeaders) {
       super(taggedHeaders);
     }
 
+    @Override
+    protected String[] contextKeys() {
+      return CONTEXT_KEYS;
+    }
+
     @Override
     public boolean accept(String key, String value) {
       if (null == key || key.isEmpty()) {
@@ -62,6 +62,37 @@ public abstract class ContextInterpreter implements AgentPropagation.KeyClassifi
     return this;
   }
 
+  /** @return the keys holding the propagated context, which can be looked up by name */
+  protected abstract String[] contextKeys();
+
+  /** @return the prefix of baggage keys, which can only be found by visiting the keys, or null */
+  protected String baggagePrefix() {
+    return null;
+  }
+
+  /**
+   * Looks up the context keys and tagged headers by name, only visiting the carrier's keys when
+   * there may be baggage.
+   */
+  <C> void lookup(final C carrier, final AgentPropagation.KeyedContextVisitor<C> getter) {
+    for (final String key : contextKeys()) {
+      final String value = getter.get(carrier, key);
+      if (null != value && !accept(key, value)) {
+        return;
+      }
+    }
+    for (final String key : taggedHeaders.keySet()) {
+      final String value = getter.get(carrier, key);
+      if (null != value && !accept(key, value)) {
+        return;
+      }
+    }
+    final String baggagePrefix = baggagePrefix();
+    if (null != baggagePrefix) {
+      getter.forEachKeyWithPrefix(carrier, baggagePrefix, this);
+    }
+  }
+
   TagContext build() {
     if (valid) {
       if (!DDId.ZERO.equals(traceId)) {
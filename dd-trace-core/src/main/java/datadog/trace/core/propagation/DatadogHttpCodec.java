@@ -66,10 +66,24 @@ class DatadogHttpCodec {
     private static final int OT_BAGGAGE = 5;
     private static final int IGNORE = -1;
 
+    private static final String[] CONTEXT_KEYS = {
+      TRACE_ID_KEY, SPAN_ID_KEY, SAMPLING_PRIORITY_KEY, ORIGIN_KEY
+    };
+
     private DatadogContextInterpreter(Map<String, String> taggedHeaders) {
       super(taggedHeaders);
     }
 
+    @Override
+    protected String[] contextKeys() {
+      return CONTEXT_KEYS;
+    }
+
+    @Override
+    protected String baggagePrefix() {
+      return OT_BAGGAGE_PREFIX;
+    }
+
     @Override
     public boolean accept(String key, String value) {
       if (null == key || key.isEmpty()) {
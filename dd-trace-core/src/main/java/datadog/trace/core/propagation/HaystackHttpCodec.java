@@ -117,10 +117,22 @@ public class HaystackHttpCodec {
     private static final int BAGGAGE = 4;
     private static final int IGNORE = -1;
 
+    private static final String[] CONTEXT_KEYS = {TRACE_ID_KEY, SPAN_ID_KEY, PARENT_ID_KEY};
+
     private HaystackContextInterpreter(Map<String, String> taggedHeaders) {
       super(taggedHeaders);
     }
 
+    @Override
+    protected String[] contextKeys() {
+      return CONTEXT_KEYS;
+    }
+
+    @Override
+    protected String baggagePrefix() {
+      return BAGGAGE_PREFIX_LC;
+    }
+
     @Override
     public boolean accept(String key, String value) {
       if (null == key || key.isEmpty()) {
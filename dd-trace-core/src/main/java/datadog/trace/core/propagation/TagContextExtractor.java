@@ -24,7 +24,11 @@ public class TagContextExtractor implements HttpCodec.Extractor {
   @Override
   public <C> TagContext extract(final C carrier, final AgentPropagation.ContextVisitor<C> getter) {
     ContextInterpreter interpreter = this.ctxInterpreter.get().reset();
-    getter.forEachKey(carrier, interpreter);
+    if (getter instanceof AgentPropagation.KeyedContextVisitor) {
+      interpreter.lookup(carrier, (AgentPropagation.KeyedContextVisitor<C>) getter);
+    } else {
+      getter.forEachKey(carrier, interpreter);
+    }
     return interpreter.build();
   }
 }
@@ -18,6 +18,8 @@ import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import lombok.extern.slf4j.Slf4j;
+import org.jctools.counters.CountersFactory;
+import org.jctools.counters.FixedSizeStripedLongCounter;
 
 /**
  * The primary ScopeManager. This class has ownership of the core ThreadLocal containing the
@@ -121,14 +123,14 @@ public class ContinuableScopeManager implements AgentScopeManager {
   }
 
   private ContinuableScope handleSpan(
-      final Continuation continuation, final AgentSpan span, final byte source) {
+      final ContinuedScopeRelease continuation, final AgentSpan span, final byte source) {
     ContinuableScope active = inheritAsyncPropagation ? scopeStack().top() : null;
     return handleSpan(active, continuation, span, source, true, true);
   }
 
   private ContinuableScope handleSpan(
       final ContinuableScope active,
-      final Continuation continuation,
+      final ContinuedScopeRelease continuation,
       final AgentSpan span,
       final byte source,
       final boolean overrideAsyncPropagation,
@@ -156,6 +158,22 @@ public class ContinuableScopeManager implements AgentScopeManager {
     return active == null ? null : active.span();
   }
 
+  /**
+   * The checkpoint marks the last scope pushed on the stack: the ones pushed after it are unwound,
+   * even if scopes below were cleaned up in the meantime and the stack is back to the same depth.
+   */
+  @Override
+  public int checkpoint() {
+    return scopeStack().lastPushed();
+  }
+
+  @Override
+  public void restore(final int checkpoint) {
+    if (checkpoint != 0) {
+      scopeStack().unwind(checkpoint);
+    }
+  }
+
   /** Attach a listener to scope activation events */
   public void addScopeListener(final ScopeListener listener) {
     scopeListeners.add(listener);
@@ -174,7 +192,7 @@ public class ContinuableScopeManager implements AgentScopeManager {
     private final ContinuableScopeManager scopeManager;
 
     /** Continuation that created this scope. May be null. */
-    private final ContinuableScopeManager.Continuation continuation;
+    private final ContinuedScopeRelease continuation;
     /** Flag to propagate this scope across async boundaries. */
     private boolean isAsyncPropagating;
 
@@ -182,13 +200,16 @@ public class ContinuableScopeManager implements AgentScopeManager {
 
     private short referenceCount = 1;
 
+    /** Sequence number of the push of this scope on the stack of its thread. */
+    private int pushed;
+
     private final DDScopeEvent event;
 
     private final AgentSpan span;
 
     ContinuableScope(
         final ContinuableScopeManager scopeManager,
-        final ContinuableScopeManager.Continuation continuation,
+        final ContinuedScopeRelease continuation,
         final AgentSpan span,
         final byte source,
         final boolean isAsyncPropagating) {
@@ -248,6 +269,17 @@ public class ContinuableScopeManager implements AgentScopeManager {
       }
     }
 
+    /** Closes the scope regardless of its remaining references, when unwinding the stack. */
+    final void closeAbandoned() {
+      // scopes closed out of order already released their continuation
+      final boolean wasAlive = alive();
+      referenceCount = 0;
+      onProperClose();
+      if (wasAlive && null != continuation) {
+        continuation.cancelFromContinuedScopeClose();
+      }
+    }
+
     final void incrementReferences() {
       ++referenceCount;
     }
@@ -301,6 +333,16 @@ public class ContinuableScopeManager implements AgentScopeManager {
           : null;
     }
 
+    /**
+     * The continuation returned must be closed or activated or the trace will not finish.
+     *
+     * @return The shared continuation, or null if this scope is not async propagating.
+     */
+    @Override
+    public AgentScope.Continuation captureShared() {
+      return isAsyncPropagating ? scopeManager.scopeStack().captureShared(this) : null;
+    }
+
     @Override
     public String toString() {
       return super.toString() + "->" + span;
@@ -321,6 +363,14 @@ public class ContinuableScopeManager implements AgentScopeManager {
   static final class ScopeStack {
     private final ArrayDeque<ContinuableScope> stack = new ArrayDeque<>();
 
+    /** Sequence number of the last scope pushed on this stack. */
+    private int lastPushed = 1;
+
+    /** The scope the last shared continuation was captured from; only used for identity. */
+    private ContinuableScope sharedScope;
+    /** The group of tasks fanned out from that scope, once it captured more than one. */
+    private ContinuationGroup continuationGroup;
+
     /** top - accesses the top of the ScopeStack */
     final ContinuableScope top() {
       return stack.peek();
@@ -340,13 +390,71 @@ public class ContinuableScopeManager implements AgentScopeManager {
         // no longer alive -- trigger listener & null out
         curScope.onProperClose();
         stack.poll();
+        forgetSharedScope(curScope);
         changedTop = true;
         curScope = stack.peek();
       }
     }
 
+    /** Closes and removes all the scopes pushed after the given one */
+    final void unwind(final int lastPushed) {
+      ContinuableScope scope = stack.peek();
+      if (scope == null || scope.pushed - lastPushed <= 0) {
+        return;
+      }
+      do {
+        stack.poll();
+        scope.closeAbandoned();
+        forgetSharedScope(scope);
+        scope = stack.peek();
+      } while (scope != null && scope.pushed - lastPushed > 0);
+      if (scope != null) {
+        if (scope.alive()) {
+          scope.afterActivated();
+        } else {
+          cleanup();
+        }
+      }
+    }
+
+    final AgentScope.Continuation captureShared(final ContinuableScope scope) {
+      if (scope != stack.peek()) {
+        // the group is sealed when its scope is popped from this thread's stack
+        return new SingleContinuation(scope.scopeManager, scope.span, scope.source).register();
+      }
+      if (sharedScope != scope) {
+        sealContinuationGroup();
+        sharedScope = scope;
+        // a single task is not a fan-out
+        return new SingleContinuation(scope.scopeManager, scope.span, scope.source).register();
+      }
+      if (null == continuationGroup) {
+        continuationGroup = new ContinuationGroup(scope.scopeManager, scope.span, scope.source);
+      }
+      return continuationGroup.issue();
+    }
+
+    private void forgetSharedScope(final ContinuableScope scope) {
+      if (sharedScope == scope) {
+        sealContinuationGroup();
+        sharedScope = null;
+      }
+    }
+
+    private void sealContinuationGroup() {
+      if (null != continuationGroup) {
+        continuationGroup.seal();
+        continuationGroup = null;
+      }
+    }
+
     /** Pushes a new scope unto the stack */
     final void push(final ContinuableScope scope) {
+      if (++lastPushed == 0) {
+        // 0 is not a valid checkpoint
+        lastPushed = 1;
+      }
+      scope.pushed = lastPushed;
       stack.push(scope);
       scope.afterActivated();
     }
@@ -361,17 +469,29 @@ public class ContinuableScopeManager implements AgentScopeManager {
       return stack.size();
     }
 
+    /** Returns the sequence number of the last push, compared with wrap around; never 0 */
+    final int lastPushed() {
+      return lastPushed;
+    }
+
     // DQH - regrettably needed for pre-existing tests
     final void clear() {
       stack.clear();
     }
   }
 
+  /** Released by the scope activated from a continuation when that scope is closed. */
+  private interface ContinuedScopeRelease {
+    // Called by ContinuableScopeManager when a continued scope is closed
+    void cancelFromContinuedScopeClose();
+  }
+
   /**
    * This class must not be a nested class of ContinuableScope to avoid an unconstrained chain of
    * references (using too much memory).
    */
-  private abstract static class Continuation implements AgentScope.Continuation {
+  private abstract static class Continuation
+      implements AgentScope.Continuation, ContinuedScopeRelease {
 
     final ContinuableScopeManager scopeManager;
     final AgentSpan spanUnderScope;
@@ -391,9 +511,9 @@ public class ContinuableScopeManager implements AgentScopeManager {
       return this;
     }
 
-    // Called by ContinuableScopeManager when a continued scope is closed
     // Can't use cancel() for SingleContinuation because of the "used" check
-    abstract void cancelFromContinuedScopeClose();
+    @Override
+    public abstract void cancelFromContinuedScopeClose();
   }
 
   /**
@@ -433,7 +553,7 @@ public class ContinuableScopeManager implements AgentScopeManager {
     }
 
     @Override
-    void cancelFromContinuedScopeClose() {
+    public void cancelFromContinuedScopeClose() {
       trace.cancelContinuation(this);
     }
 
@@ -447,6 +567,104 @@ public class ContinuableScopeManager implements AgentScopeManager {
     }
   }
 
+  /**
+   * This class must not be a nested class of ContinuableScope to avoid an unconstrained chain of
+   * references (using too much memory).
+   *
+   * <p>The continuation handed to every task fanned out from the same scope on the same thread,
+   * for example when submitting work to an executor. It is not a {@link Continuation} owned by a
+   * single task: the whole group holds one pending reference on the trace, released once the scope
+   * it was captured from is closed and every task has completed, i.e. closed the scope it activated
+   * or canceled. Handing it out and activating it only touch plain fields, completions are counted
+   * on a striped counter.
+   */
+  private static final class ContinuationGroup
+      implements AgentScope.Continuation, ContinuedScopeRelease {
+    private static final AtomicIntegerFieldUpdater<ContinuationGroup> RELEASED =
+        AtomicIntegerFieldUpdater.newUpdater(ContinuationGroup.class, "released");
+
+    private final ContinuableScopeManager scopeManager;
+    private final AgentSpan spanUnderScope;
+    private final byte source;
+    private final AgentTrace trace;
+
+    private final FixedSizeStripedLongCounter completed =
+        CountersFactory.createFixedSizeStripedCounter(8);
+
+    /** Only accessed by the thread of the scope the group was captured from. */
+    private int issued;
+    /** The number of tasks in the group once it can no longer grow, -1 before. */
+    private volatile int expected = -1;
+
+    private volatile int released = 0;
+
+    private ContinuationGroup(
+        final ContinuableScopeManager scopeManager,
+        final AgentSpan spanUnderScope,
+        final byte source) {
+      this.scopeManager = scopeManager;
+      this.spanUnderScope = spanUnderScope;
+      this.source = source;
+      this.trace = spanUnderScope.context().getTrace();
+      trace.registerContinuation(this);
+    }
+
+    ContinuationGroup issue() {
+      ++issued;
+      return this;
+    }
+
+    /** Called by the capturing thread once no more tasks can join the group. */
+    void seal() {
+      expected = issued;
+      if (completed.get() >= issued) {
+        release();
+      }
+    }
+
+    private void complete() {
+      completed.inc();
+      final int expected = this.expected;
+      if (expected >= 0 && completed.get() >= expected) {
+        release();
+      }
+    }
+
+    private void release() {
+      if (RELEASED.compareAndSet(this, 0, 1)) {
+        trace.cancelContinuation(this);
+      }
+    }
+
+    @Override
+    public AgentScope activate() {
+      return scopeManager.handleSpan(this, spanUnderScope, source);
+    }
+
+    @Override
+    public void cancel() {
+      complete();
+    }
+
+    @Override
+    public void cancelFromContinuedScopeClose() {
+      complete();
+    }
+
+    @Override
+    public String toString() {
+      return getClass().getSimpleName()
+          + "@"
+          + Integer.toHexString(hashCode())
+          + "("
+          + completed.get()
+          + "/"
+          + (expected < 0 ? "?" : String.valueOf(expected))
+          + ")->"
+          + spanUnderScope;
+    }
+  }
+
   /**
    * This class must not be a nested class of ContinuableScope to avoid an unconstrained chain of
    * references (using too much memory).
@@ -516,7 +734,7 @@ public class ContinuableScopeManager implements AgentScopeManager {
     }
 
     @Override
-    void cancelFromContinuedScopeClose() {
+    public void cancelFromContinuedScopeClose() {
       cancel();
     }
 
@@ -106,7 +106,7 @@ public final class GrowableBuffer implements StreamingBuffer {
   }
 
   private void checkCapacity(int required) {
-    if (buffer.remaining() < required) {
+    while (buffer.remaining() < required) {
       resize();
     }
   }
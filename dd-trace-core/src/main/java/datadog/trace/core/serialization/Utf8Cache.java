@@ -0,0 +1,37 @@
+package datadog.trace.core.serialization;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import datadog.trace.api.Function;
+import datadog.trace.api.cache.DDCache;
+import datadog.trace.api.cache.DDCaches;
+
+/**
+ * A bounded cache of the UTF-8 encodings of strings which are serialized over and over again, such
+ * as tag names or the values of low cardinality tags. It is safe to share between threads; strings
+ * colliding in the cache simply replace each other.
+ *
+ * <p>Only {@link String}s are cached, other character sequences may be mutable and are left to the
+ * writer to encode.
+ */
+public final class Utf8Cache implements EncodingCache {
+
+  private static final Function<CharSequence, byte[]> ENCODE =
+      new Function<CharSequence, byte[]>() {
+        @Override
+        public byte[] apply(final CharSequence s) {
+          return ((String) s).getBytes(UTF_8);
+        }
+      };
+
+  private final DDCache<CharSequence, byte[]> cache;
+
+  public Utf8Cache(final int capacity) {
+    this.cache = DDCaches.newFixedSizeCache(capacity);
+  }
+
+  @Override
+  public byte[] encode(final CharSequence s) {
+    return s instanceof String ? cache.computeIfAbsent(s, ENCODE) : null;
+  }
+}
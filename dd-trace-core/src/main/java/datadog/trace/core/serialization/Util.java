@@ -35,6 +35,17 @@ public class Util {
 
   public static void writeLongAsString(
       final long value, final Writable destination, byte[] numberByteArray) {
+    int pos = formatLong(value, numberByteArray);
+    destination.writeUTF8(numberByteArray, pos, 20 - pos);
+  }
+
+  /**
+   * Writes the decimal digits of the value at the end of the buffer.
+   *
+   * @param numberByteArray a buffer from {@link #integerToStringBuffer()}
+   * @return the position of the first digit (or sign) in the buffer
+   */
+  public static int formatLong(final long value, byte[] numberByteArray) {
     int pos = 20; // start from the end
     long l = value;
     boolean negative = (l < 0);
@@ -77,8 +88,6 @@ public class Util {
     if (negative) {
       numberByteArray[--pos] = (byte) '-';
     }
-
-    int len = 20 - pos;
-    destination.writeUTF8(numberByteArray, pos, len);
+    return pos;
   }
 }
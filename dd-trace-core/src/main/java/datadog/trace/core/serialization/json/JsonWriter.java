@@ -0,0 +1,313 @@
+package datadog.trace.core.serialization.json;
+
+import static datadog.trace.core.serialization.Util.formatLong;
+import static datadog.trace.core.serialization.Util.integerToStringBuffer;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import datadog.trace.bootstrap.instrumentation.api.UTF8BytesString;
+import datadog.trace.core.serialization.Codec;
+import datadog.trace.core.serialization.EncodingCache;
+import datadog.trace.core.serialization.Mapper;
+import datadog.trace.core.serialization.StreamingBuffer;
+import datadog.trace.core.serialization.ValueWriter;
+import datadog.trace.core.serialization.WritableFormatter;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Writes JSON instead of msgpack, so the same {@link Mapper}s can be used for both.
+ *
+ * <p>{@link datadog.trace.core.serialization.Writable} announces the size of maps and arrays
+ * upfront and never ends them, so this keeps track of how many elements remain in each open
+ * container to place separators and close it after its last element. Binary values are written as
+ * strings. Not thread-safe (use one per thread).
+ */
+public final class JsonWriter implements WritableFormatter {
+
+  private static final byte[] NULL = "null".getBytes(ISO_8859_1);
+  private static final byte[] TRUE = "true".getBytes(ISO_8859_1);
+  private static final byte[] FALSE = "false".getBytes(ISO_8859_1);
+  private static final byte[] HEX = "0123456789abcdef".getBytes(ISO_8859_1);
+
+  private final Codec codec;
+  private final StreamingBuffer buffer;
+  private final byte[] numberByteArray = integerToStringBuffer();
+
+  // the open containers: how many values they expect and how many were written,
+  // map entries count as two values, a key and a value
+  private int[] expected = new int[8];
+  private int[] written = new int[8];
+  private boolean[] isMap = new boolean[8];
+  private int depth;
+
+  public JsonWriter(StreamingBuffer buffer) {
+    this(Codec.INSTANCE, buffer);
+  }
+
+  public JsonWriter(Codec codec, StreamingBuffer buffer) {
+    this.codec = codec;
+    this.buffer = buffer;
+  }
+
+  @Override
+  public void flush() {
+    if (buffer.isDirty()) {
+      buffer.flush();
+    }
+  }
+
+  @Override
+  public <T> boolean format(T message, Mapper<T> mapper) {
+    depth = 0;
+    mapper.map(message, this);
+    buffer.mark();
+    return true;
+  }
+
+  @Override
+  public void writeMap(Map<? extends CharSequence, ?> map, EncodingCache encodingCache) {
+    startMap(map.size());
+    for (Map.Entry<? extends CharSequence, ?> entry : map.entrySet()) {
+      writeString(entry.getKey(), encodingCache);
+      writeObject(entry.getValue(), encodingCache);
+    }
+  }
+
+  @Override
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  public void writeObject(Object value, EncodingCache encodingCache) {
+    if (value instanceof UTF8BytesString) {
+      writeUTF8((UTF8BytesString) value);
+    } else if (null == value) {
+      writeNull();
+    } else {
+      ValueWriter writer = codec.get(value.getClass());
+      writer.write(value, this, encodingCache);
+    }
+  }
+
+  @Override
+  public void writeNull() {
+    writeLiteral(NULL);
+  }
+
+  @Override
+  public void writeBoolean(boolean value) {
+    writeLiteral(value ? TRUE : FALSE);
+  }
+
+  @Override
+  public void writeString(CharSequence s, EncodingCache encodingCache) {
+    if (null == s) {
+      writeNull();
+    } else {
+      if (null != encodingCache) {
+        byte[] utf8 = encodingCache.encode(s);
+        if (null != utf8) {
+          writeUTF8(utf8);
+          return;
+        }
+      }
+      if (s instanceof UTF8BytesString) {
+        writeUTF8((UTF8BytesString) s);
+      } else {
+        writeUTF8(String.valueOf(s).getBytes(UTF_8));
+      }
+    }
+  }
+
+  @Override
+  public void writeUTF8(byte[] string, int offset, int length) {
+    beforeValue();
+    buffer.put((byte) '"');
+    int start = offset;
+    int end = offset + length;
+    for (int i = offset; i < end; ++i) {
+      byte b = string[i];
+      // multi-byte UTF-8 sequences only contain negative bytes and are copied as they are
+      if (b >= 0 && (b < 0x20 || b == '"' || b == '\\')) {
+        buffer.put(string, start, i - start);
+        escape(b);
+        start = i + 1;
+      }
+    }
+    buffer.put(string, start, end - start);
+    buffer.put((byte) '"');
+    afterValue();
+  }
+
+  @Override
+  public void writeUTF8(byte[] string) {
+    writeUTF8(string, 0, string.length);
+  }
+
+  @Override
+  public void writeUTF8(UTF8BytesString string) {
+    writeUTF8(string.getUtf8Bytes());
+  }
+
+  @Override
+  public void writeBinary(byte[] binary) {
+    writeUTF8(binary);
+  }
+
+  @Override
+  public void writeBinary(byte[] binary, int offset, int length) {
+    writeUTF8(binary, offset, length);
+  }
+
+  @Override
+  public void writeBinary(ByteBuffer binary) {
+    ByteBuffer slice = binary.slice();
+    byte[] bytes = new byte[slice.remaining()];
+    slice.get(bytes);
+    writeUTF8(bytes);
+  }
+
+  @Override
+  public void writeInt(int value) {
+    writeLong(value);
+  }
+
+  @Override
+  public void writeSignedInt(int value) {
+    writeLong(value);
+  }
+
+  @Override
+  public void writeLong(long value) {
+    int pos = formatLong(value, numberByteArray);
+    writeNumber(numberByteArray, pos, numberByteArray.length - pos);
+  }
+
+  @Override
+  public void writeSignedLong(long value) {
+    writeLong(value);
+  }
+
+  @Override
+  public void writeFloat(float value) {
+    writeDouble(value);
+  }
+
+  @Override
+  public void writeDouble(double value) {
+    if (Double.isNaN(value) || Double.isInfinite(value)) {
+      // not representable in JSON
+      writeNull();
+    } else if (value == (long) value) {
+      writeLong((long) value);
+    } else {
+      byte[] digits = Double.toString(value).getBytes(ISO_8859_1);
+      writeNumber(digits, 0, digits.length);
+    }
+  }
+
+  @Override
+  public void startMap(int elementCount) {
+    start((byte) '{', elementCount * 2, true);
+  }
+
+  @Override
+  public void startStruct(int elementCount) {
+    startArray(elementCount);
+  }
+
+  @Override
+  public void startArray(int elementCount) {
+    start((byte) '[', elementCount, false);
+  }
+
+  private void start(byte open, int values, boolean map) {
+    beforeValue();
+    buffer.put(open);
+    if (depth == expected.length) {
+      expected = Arrays.copyOf(expected, depth * 2);
+      written = Arrays.copyOf(written, depth * 2);
+      isMap = Arrays.copyOf(isMap, depth * 2);
+    }
+    expected[depth] = values;
+    written[depth] = 0;
+    isMap[depth] = map;
+    ++depth;
+    closeCompleted();
+  }
+
+  private void writeLiteral(byte[] literal) {
+    writeNumber(literal, 0, literal.length);
+  }
+
+  private void writeNumber(byte[] digits, int offset, int length) {
+    beforeValue();
+    // map keys must be strings
+    boolean key = isKey();
+    if (key) {
+      buffer.put((byte) '"');
+    }
+    buffer.put(digits, offset, length);
+    if (key) {
+      buffer.put((byte) '"');
+    }
+    afterValue();
+  }
+
+  private boolean isKey() {
+    return depth > 0 && isMap[depth - 1] && (written[depth - 1] & 1) == 0;
+  }
+
+  private void beforeValue() {
+    if (depth > 0 && written[depth - 1] > 0) {
+      int top = depth - 1;
+      if (isMap[top] && (written[top] & 1) == 1) {
+        buffer.put((byte) ':');
+      } else {
+        buffer.put((byte) ',');
+      }
+    }
+  }
+
+  private void afterValue() {
+    if (depth > 0) {
+      ++written[depth - 1];
+      closeCompleted();
+    }
+  }
+
+  private void closeCompleted() {
+    // a completed container is itself a value of its parent, which may complete too
+    while (depth > 0 && written[depth - 1] >= expected[depth - 1]) {
+      --depth;
+      buffer.put(isMap[depth] ? (byte) '}' : (byte) ']');
+      if (depth > 0) {
+        ++written[depth - 1];
+      }
+    }
+  }
+
+  private void escape(byte b) {
+    buffer.put((byte) '\\');
+    switch (b) {
+      case '"':
+      case '\\':
+        buffer.put(b);
+        break;
+      case '\n':
+        buffer.put((byte) 'n');
+        break;
+      case '\r':
+        buffer.put((byte) 'r');
+        break;
+      case '\t':
+        buffer.put((byte) 't');
+        break;
+      default:
+        buffer.put((byte) 'u');
+        buffer.put((byte) '0');
+        buffer.put((byte) '0');
+        buffer.put(HEX[b >> 4]);
+        buffer.put(HEX[b & 0xF]);
+    }
+  }
+}
@@ -18,14 +18,32 @@ import datadog.trace.api.env.CapturedEnvironment;
 import datadog.trace.bootstrap.instrumentation.api.InstrumentationTags;
 import datadog.trace.bootstrap.instrumentation.api.Tags;
 import datadog.trace.core.DDSpanContext;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Set;
 
 public class TagInterceptor {
 
+  /** The tags handled by {@link #interceptTag}, in addition to the split service tags */
+  private static final Set<String> INTERCEPTED_TAGS =
+      new HashSet<>(
+          Arrays.asList(
+              DDTags.RESOURCE_NAME,
+              Tags.DB_STATEMENT,
+              DDTags.SERVICE_NAME,
+              "service",
+              Tags.PEER_SERVICE,
+              DDTags.MANUAL_KEEP,
+              DDTags.MANUAL_DROP,
+              InstrumentationTags.SERVLET_CONTEXT,
+              SPAN_TYPE,
+              ANALYTICS_SAMPLE_RATE,
+              Tags.ERROR));
+
   private final RuleFlags ruleFlags;
   private final boolean isServiceNameSetByUser;
   private final String inferredServiceName;
-  private final Set<String> splitServiceTags;
+  private final Set<String> interceptedTags;
 
   public TagInterceptor(RuleFlags ruleFlags) {
     this(
@@ -42,11 +60,15 @@ public class TagInterceptor {
       RuleFlags ruleFlags) {
     this.isServiceNameSetByUser = isServiceNameSetByUser;
     this.inferredServiceName = inferredServiceName;
-    this.splitServiceTags = splitServiceTags;
     this.ruleFlags = ruleFlags;
+    this.interceptedTags = new HashSet<>(INTERCEPTED_TAGS);
+    this.interceptedTags.addAll(splitServiceTags);
   }
 
   public boolean interceptTag(DDSpanContext span, String tag, Object value) {
+    if (!needsIntercept(tag)) {
+      return false;
+    }
     switch (tag) {
       case DDTags.RESOURCE_NAME:
         return interceptResourceName(span, value);
@@ -70,16 +92,22 @@ public class TagInterceptor {
       case Tags.ERROR:
         return interceptError(span, value);
       default:
-        return intercept(span, tag, value);
+        return interceptSplitServiceTag(span, value);
     }
   }
 
-  private boolean intercept(DDSpanContext span, String tag, Object value) {
-    if (splitServiceTags.contains(tag)) {
-      span.setServiceName(String.valueOf(value));
-      return true;
-    }
-    return false;
+  /**
+   * @return false if {@link #interceptTag} is known to leave the span untouched for this tag, so
+   *     the tag can be stored without being intercepted
+   */
+  public boolean needsIntercept(String tag) {
+    return interceptedTags.contains(tag);
+  }
+
+  private boolean interceptSplitServiceTag(DDSpanContext span, Object value) {
+    // only the split service tags reach here, the other tags are filtered by needsIntercept
+    span.setServiceName(String.valueOf(value));
+    return true;
   }
 
   private boolean interceptResourceName(DDSpanContext span, Object value) {
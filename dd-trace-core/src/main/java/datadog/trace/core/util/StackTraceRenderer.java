@@ -0,0 +1,213 @@
+package datadog.trace.core.util;
+
+import datadog.trace.api.Function;
+import datadog.trace.api.cache.DDCache;
+import datadog.trace.api.cache.DDCaches;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Renders the stack trace of a throwable for the {@code error.stack} tag, in the same format as
+ * {@link Throwable#printStackTrace()} but bounded:
+ *
+ * <ul>
+ *   <li>at most {@code maxFrames} frames are rendered for each throwable of the chain
+ *   <li>consecutive identical frames, as left by deep recursion, are collapsed into one
+ *   <li>the text is cut at {@code maxLength} characters
+ * </ul>
+ *
+ * The same error tends to be thrown over and over again during an outage, so the rendered text is
+ * cached by the messages and frames of the whole chain and identical errors share one string.
+ */
+public final class StackTraceRenderer {
+
+  private static final int CACHE_SIZE = 64;
+
+  private final int maxFrames;
+  private final int maxLength;
+  private final DDCache<Chain, String> cache = DDCaches.newFixedSizeCache(CACHE_SIZE);
+  private final Function<Chain, String> render =
+      new Function<Chain, String>() {
+        @Override
+        public String apply(final Chain chain) {
+          return chain.render(maxFrames, maxLength);
+        }
+      };
+
+  public StackTraceRenderer(final int maxFrames, final int maxLength) {
+    this.maxFrames = maxFrames > 0 ? maxFrames : Integer.MAX_VALUE;
+    this.maxLength = maxLength > 0 ? maxLength : Integer.MAX_VALUE;
+  }
+
+  public String render(final Throwable error) {
+    return cache.computeIfAbsent(Chain.of(error), render);
+  }
+
+  /** One throwable of a chain, with what's needed to render it. */
+  private static final class Section {
+    final String prefix;
+    final String caption;
+    final String header;
+    final StackTraceElement[] trace;
+    final int framesInCommon;
+
+    Section(
+        final String prefix,
+        final String caption,
+        final String header,
+        final StackTraceElement[] trace,
+        final int framesInCommon) {
+      this.prefix = prefix;
+      this.caption = caption;
+      this.header = header;
+      this.trace = trace;
+      this.framesInCommon = framesInCommon;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (!(o instanceof Section)) {
+        return false;
+      }
+      final Section that = (Section) o;
+      return framesInCommon == that.framesInCommon
+          && prefix.equals(that.prefix)
+          && caption.equals(that.caption)
+          && header.equals(that.header)
+          && Arrays.equals(trace, that.trace);
+    }
+
+    @Override
+    public int hashCode() {
+      int hash = prefix.hashCode();
+      hash = 31 * hash + caption.hashCode();
+      hash = 31 * hash + header.hashCode();
+      hash = 31 * hash + Arrays.hashCode(trace);
+      return 31 * hash + framesInCommon;
+    }
+  }
+
+  /** The flattened chain of a throwable, its causes and suppressed throwables. */
+  private static final class Chain {
+    private final List<Section> sections;
+    private final int hash;
+
+    private Chain(final List<Section> sections) {
+      this.sections = sections;
+      this.hash = sections.hashCode();
+    }
+
+    static Chain of(final Throwable error) {
+      final List<Section> sections = new ArrayList<>();
+      final StackTraceElement[] trace = error.getStackTrace();
+      sections.add(new Section("", "", String.valueOf(error), trace, 0));
+      if (null != error.getCause() || error.getSuppressed().length > 0) {
+        final Set<Throwable> seen =
+            Collections.newSetFromMap(new IdentityHashMap<Throwable, Boolean>());
+        seen.add(error);
+        addEnclosed(sections, error, trace, "", seen);
+      }
+      return new Chain(sections);
+    }
+
+    private static void addEnclosed(
+        final List<Section> sections,
+        final Throwable error,
+        final StackTraceElement[] enclosingTrace,
+        final String prefix,
+        final Set<Throwable> seen) {
+      for (final Throwable suppressed : error.getSuppressed()) {
+        add(sections, suppressed, enclosingTrace, prefix + "\t", "Suppressed: ", seen);
+      }
+      final Throwable cause = error.getCause();
+      if (null != cause) {
+        add(sections, cause, enclosingTrace, prefix, "Caused by: ", seen);
+      }
+    }
+
+    private static void add(
+        final List<Section> sections,
+        final Throwable error,
+        final StackTraceElement[] enclosingTrace,
+        final String prefix,
+        final String caption,
+        final Set<Throwable> seen) {
+      if (!seen.add(error)) {
+        sections.add(
+            new Section(
+                prefix,
+                caption,
+                "[CIRCULAR REFERENCE: " + error + "]",
+                new StackTraceElement[0],
+                0));
+        return;
+      }
+      final StackTraceElement[] trace = error.getStackTrace();
+      int m = trace.length - 1;
+      int n = enclosingTrace.length - 1;
+      while (m >= 0 && n >= 0 && trace[m].equals(enclosingTrace[n])) {
+        m--;
+        n--;
+      }
+      sections.add(
+          new Section(prefix, caption, String.valueOf(error), trace, trace.length - 1 - m));
+      addEnclosed(sections, error, trace, prefix, seen);
+    }
+
+    String render(final int maxFrames, final int maxLength) {
+      final StringBuilder sb = new StringBuilder(Math.min(maxLength, 1024));
+      for (final Section section : sections) {
+        sb.append(section.prefix).append(section.caption).append(section.header).append('\n');
+        final int frames = section.trace.length - section.framesInCommon;
+        final int rendered = Math.min(frames, maxFrames);
+        int i = 0;
+        while (i < rendered && sb.length() < maxLength) {
+          final StackTraceElement frame = section.trace[i];
+          sb.append(section.prefix).append("\tat ").append(frame).append('\n');
+          int repeats = 0;
+          while (i + 1 + repeats < rendered && frame.equals(section.trace[i + 1 + repeats])) {
+            repeats++;
+          }
+          if (repeats > 0) {
+            sb.append(section.prefix)
+                .append("\t... repeated ")
+                .append(repeats)
+                .append(" more times\n");
+          }
+          i += 1 + repeats;
+        }
+        if (rendered < frames) {
+          sb.append(section.prefix)
+              .append("\t... ")
+              .append(frames - rendered)
+              .append(" frames omitted\n");
+        }
+        if (section.framesInCommon != 0) {
+          sb.append(section.prefix)
+              .append("\t... ")
+              .append(section.framesInCommon)
+              .append(" more\n");
+        }
+        if (sb.length() >= maxLength) {
+          sb.setLength(maxLength);
+          break;
+        }
+      }
+      return sb.toString();
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      return o instanceof Chain && hash == ((Chain) o).hash && sections.equals(((Chain) o).sections);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+}
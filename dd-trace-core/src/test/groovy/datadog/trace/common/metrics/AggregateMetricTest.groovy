@@ -68,6 +68,29 @@ class AggregateMetricTest extends DDSpecification {
     aggregate.getErrorCount() == 1
   }
 
+  def "batch takes as many durations as it has room for"() {
+    given:
+    AggregateMetric aggregate = new AggregateMetric()
+    Batch batch = new Batch().reset(new MetricKey("foo", "bar", "qux", "type", 0))
+    long[] durations = new long[100]
+    Arrays.fill(durations, 10L)
+    durations[99] = 10L | ERROR_TAG
+
+    when:
+    int first = batch.add(durations, 0, 60)
+    int second = batch.add(durations, 60, 40)
+    int third = batch.add(durations, 64, 36)
+    batch.contributeTo(aggregate)
+
+    then:
+    first == 60
+    second == 4
+    third == 0
+    aggregate.getHitCount() == 64
+    aggregate.getDuration() == 640
+    aggregate.getErrorCount() == 0
+  }
+
   def "ignore used batches"() {
     given:
     AggregateMetric aggregate = new AggregateMetric().recordDurations(10,
@@ -6,7 +6,11 @@ import datadog.trace.test.util.DDSpecification
 import spock.lang.Requires
 import spock.lang.Shared
 
+import java.util.concurrent.BlockingQueue
+import java.util.concurrent.ConcurrentHashMap
 import java.util.concurrent.CountDownLatch
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.atomic.AtomicLongArray
 
 import static datadog.trace.api.Platform.isJavaVersionAtLeast
 import static java.util.concurrent.TimeUnit.MILLISECONDS
@@ -107,6 +111,147 @@ class ConflatingMetricAggregatorTest extends DDSpecification {
     count << [10, 100]
   }
 
+  def "identical spans of a trace are tallied together"() {
+    setup:
+    MetricWriter writer = Mock(MetricWriter)
+    ConflatingMetricsAggregator aggregator = new ConflatingMetricsAggregator(
+      Stub(Sink), writer, 10, queueSize, reportingInterval, SECONDS)
+    long duration = 100
+    List<CoreSpan> trace = [
+      new SimpleSpan("service", "operation", "resource", "type", false, true, false, 0, duration * 10)
+    ]
+    for (int i = 0; i < count; ++i) {
+      trace.add(new SimpleSpan("service", "query", "select", "sql", true, false, i % 2 == 0, 0, duration))
+    }
+    aggregator.start()
+
+    when:
+    CountDownLatch latch = new CountDownLatch(1)
+    aggregator.publish(trace)
+    aggregator.report()
+    latch.await(2, SECONDS)
+
+    then:
+    1 * writer.finishBucket() >> { latch.countDown() }
+    1 * writer.startBucket(2, _, SECONDS.toNanos(reportingInterval))
+    1 * writer.add(new MetricKey("resource", "service", "operation", "type", 0), { AggregateMetric value ->
+      value.getHitCount() == 1 && value.getDuration() == duration * 10
+    })
+    1 * writer.add(new MetricKey("select", "service", "query", "sql", 0), { AggregateMetric value ->
+      value.getHitCount() == count && value.getErrorCount() == count / 2 && value.getDuration() == count * duration
+    })
+
+    cleanup:
+    aggregator.close()
+
+    where:
+    count << [2, 64, 300]
+  }
+
+  def "aggregates of all shards are reported in a single bucket"() {
+    setup:
+    MetricWriter writer = Mock(MetricWriter)
+    ConflatingMetricsAggregator aggregator = new ConflatingMetricsAggregator(
+      Stub(Sink), writer, 40, queueSize, reportingInterval, SECONDS, shards)
+    long duration = 100
+    aggregator.start()
+
+    when:
+    CountDownLatch latch = new CountDownLatch(1)
+    for (int i = 0; i < 20; ++i) {
+      aggregator.publish([new SimpleSpan("service", "operation", "resource" + i, "type", true, false, false, 0, duration)])
+    }
+    aggregator.report()
+    latch.await(2, SECONDS)
+
+    then:
+    1 * writer.startBucket(20, _, SECONDS.toNanos(reportingInterval))
+    20 * writer.add(_, { AggregateMetric value -> value.getHitCount() == 1 && value.getDuration() == duration })
+    1 * writer.finishBucket() >> { latch.countDown() }
+
+    cleanup:
+    aggregator.close()
+
+    where:
+    shards << [1, 2, 4]
+  }
+
+  def "the aggregates of a shard are reported when the other shards miss the report"() {
+    setup:
+    MetricWriter writer = Mock(MetricWriter)
+    BlockingQueue<Aggregator.Snapshot> snapshots = new LinkedBlockingQueue<>()
+    Queue<AggregateMetric> aggregatePool = new LinkedBlockingQueue<>()
+    BlockingQueue<Batch> inbox = new LinkedBlockingQueue<>()
+    Aggregator shard = new Aggregator(new LinkedBlockingQueue<Batch>(), aggregatePool, inbox,
+      new ConcurrentHashMap<MetricKey, Batch>(), 10, snapshots)
+    Thread shardThread = new Thread(shard)
+    Thread reporterThread = new Thread(new Reporter(writer, snapshots, aggregatePool, 2, 100, MILLISECONDS))
+    shardThread.start()
+    reporterThread.start()
+
+    when: "only one of the two shards receives the poison pill"
+    CountDownLatch latch = new CountDownLatch(1)
+    Batch batch = new Batch(new MetricKey("resource", "service", "operation", "type", 0))
+    batch.add(0L, 100L)
+    inbox.offer(batch)
+    inbox.offer(ConflatingMetricsAggregator.POISON_PILL)
+    shardThread.join(2000)
+    latch.await(2, SECONDS)
+
+    then: "the shard is not held up by the reporter"
+    !shardThread.isAlive()
+    1 * writer.startBucket(1, _, MILLISECONDS.toNanos(100))
+    1 * writer.add(_, { AggregateMetric value -> value.getHitCount() == 1 && value.getDuration() == 100 })
+    1 * writer.finishBucket() >> { latch.countDown() }
+    0 * _
+
+    cleanup:
+    reporterThread.interrupt()
+    reporterThread.join(2000)
+  }
+
+  def "a snapshot arriving after its report was written is reported on its own exactly once"() {
+    setup:
+    MetricWriter writer = Mock(MetricWriter)
+    BlockingQueue<Aggregator.Snapshot> snapshots = new LinkedBlockingQueue<>()
+    Thread reporterThread = new Thread(new Reporter(writer, snapshots, new LinkedBlockingQueue<AggregateMetric>(), 2, 100, MILLISECONDS))
+    reporterThread.start()
+    MetricKey first = new MetricKey("resource", "service", "operation", "type", 0)
+    MetricKey second = new MetricKey("resource2", "service", "operation", "type", 0)
+
+    when: "the first shard reports and the second shard misses the report"
+    snapshots.offer(snapshot(1, false, first))
+    Thread.sleep(300)
+
+    then:
+    1 * writer.startBucket(1, _, _)
+    1 * writer.add(first, _)
+    1 * writer.finishBucket()
+    0 * _
+
+    when: "the second shard reports late, then both shards report the next round"
+    snapshots.offer(snapshot(1, false, second))
+    snapshots.offer(snapshot(2, true, first))
+    snapshots.offer(snapshot(2, true, second))
+    reporterThread.join(2000)
+
+    then: "the late snapshot is written on its own, then the next round in a single bucket"
+    !reporterThread.isAlive()
+    1 * writer.startBucket(1, _, _)
+    1 * writer.add(second, _)
+    1 * writer.finishBucket()
+
+    then:
+    1 * writer.startBucket(2, _, _)
+    1 * writer.add(first, _)
+    1 * writer.add(second, _)
+    1 * writer.finishBucket()
+    0 * _
+
+    cleanup:
+    reporterThread.interrupt()
+  }
+
   def "test least recently written to aggregate flushed when size limit exceeded"(){
     setup:
     int maxAggregates = 10
@@ -262,8 +407,14 @@ class ConflatingMetricAggregatorTest extends DDSpecification {
 
   def waitUntilEmpty(ConflatingMetricsAggregator aggregator) {
     int i = 0
-    while (!aggregator.inbox.isEmpty() && i++ < 100) {
+    while (aggregator.inboxes.any { !it.isEmpty() } && i++ < 100) {
       Thread.sleep(10)
     }
   }
+
+  static Aggregator.Snapshot snapshot(long round, boolean last, MetricKey key) {
+    AggregateMetric aggregate = new AggregateMetric()
+    aggregate.recordDurations(1, new AtomicLongArray([100L] as long[]))
+    return new Aggregator.Snapshot(round, last, [key] as MetricKey[], [aggregate] as AggregateMetric[], 1)
+  }
 }
@@ -1,5 +1,6 @@
 package datadog.trace.common.metrics
 
+import datadog.trace.core.monitor.Counter
 import datadog.trace.test.util.DDSpecification
 import okhttp3.Call
 import okhttp3.MediaType
@@ -8,6 +9,8 @@ import okhttp3.Protocol
 import okhttp3.Request
 import okhttp3.Response
 import okhttp3.ResponseBody
+import okio.Buffer
+import okio.GzipSource
 import spock.lang.Requires
 
 import java.nio.ByteBuffer
@@ -98,6 +101,116 @@ class OkHttpSinkTest extends DDSpecification {
     !sink.isInDegradedMode()
   }
 
+  def "failed payloads are retried until the agent accepts them"() {
+    setup:
+    String agentUrl = "http://localhost:8126"
+    String path = "v0.5/stats"
+    CountDownLatch latch = new CountDownLatch(3)
+    BlockingListener listener = new BlockingListener(latch)
+    OkHttpClient client = Mock(OkHttpClient)
+    OkHttpSink sink = new OkHttpSink(client, agentUrl, path, TimeUnit.SECONDS.toNanos(1), true, compressed)
+    sink.register(listener)
+    List<String> bodies = new CopyOnWriteArrayList<>()
+    List<String> encodings = new CopyOnWriteArrayList<>()
+
+    when: "the agent fails twice before accepting the payload"
+    sink.accept(1, ByteBuffer.wrap("payload".getBytes("UTF-8")))
+    latch.await(10, TimeUnit.SECONDS)
+
+    then:
+    3 * client.newCall(_) >> { Request request ->
+      Buffer body = new Buffer()
+      request.body().writeTo(body)
+      if (compressed) {
+        Buffer uncompressed = new Buffer()
+        uncompressed.writeAll(new GzipSource(body))
+        body = uncompressed
+      }
+      bodies.add(body.readUtf8())
+      encodings.add(String.valueOf(request.header("Content-Encoding")))
+      respond(request, bodies.size() < 3 ? 500 : 200)
+    }
+    listener.events == [ERROR, ERROR, OK]
+    bodies == ["payload", "payload", "payload"]
+    encodings.unique() == [compressed ? "gzip" : "null"]
+
+    where:
+    compressed << [false, true]
+  }
+
+  def "payloads are kept while the agent is down for longer than the first backoffs"() {
+    setup:
+    String agentUrl = "http://localhost:8126"
+    String path = "v0.5/stats"
+    CountDownLatch latch = new CountDownLatch(6)
+    BlockingListener listener = new BlockingListener(latch)
+    OkHttpClient client = Mock(OkHttpClient)
+    Counter droppedPayloads = Mock(Counter)
+    OkHttpSink sink = new OkHttpSink(client, agentUrl, path, TimeUnit.SECONDS.toNanos(1), true, false, droppedPayloads)
+    sink.register(listener)
+    List<String> bodies = new CopyOnWriteArrayList<>()
+
+    when: "the agent refuses connections, then fails while restarting, for 16 seconds"
+    sink.accept(1, ByteBuffer.wrap("payload".getBytes("UTF-8")))
+    latch.await(30, TimeUnit.SECONDS)
+
+    then:
+    6 * client.newCall(_) >> { Request request ->
+      Buffer body = new Buffer()
+      request.body().writeTo(body)
+      bodies.add(body.readUtf8())
+      bodies.size() < 4 ? error(request) : respond(request, bodies.size() < 6 ? 503 : 200)
+    }
+    0 * droppedPayloads.increment(_)
+    listener.events == [ERROR] * 5 + [OK]
+    bodies == ["payload"] * 6
+  }
+
+  def "the oldest payload is dropped when the queue fills up while the agent is down"() {
+    setup:
+    String agentUrl = "http://localhost:8126"
+    String path = "v0.5/stats"
+    // the capacity of the queue is rounded up to a power of two
+    int capacity = 16
+    CountDownLatch dropped = new CountDownLatch(1)
+    CountDownLatch sent = new CountDownLatch(capacity)
+    EventListener listener = Stub(EventListener) {
+      onEvent(OK, _) >> { sent.countDown() }
+    }
+    OkHttpClient client = Mock(OkHttpClient)
+    Counter droppedPayloads = Stub(Counter) {
+      increment(1) >> { dropped.countDown() }
+    }
+    OkHttpSink sink = new OkHttpSink(client, agentUrl, path, TimeUnit.SECONDS.toNanos(1), true, false, droppedPayloads)
+    sink.register(listener)
+    AtomicBoolean agentUp = new AtomicBoolean(false)
+    List<String> accepted = new CopyOnWriteArrayList<>()
+    client.newCall(_) >> { Request request ->
+      if (!agentUp.get()) {
+        return error(request)
+      }
+      Buffer body = new Buffer()
+      request.body().writeTo(body)
+      accepted.add(body.readUtf8())
+      respond(request, 200)
+    }
+
+    when: "the queue is full and the agent still fails"
+    (0..<capacity).each { sink.accept(1, ByteBuffer.wrap("$it".getBytes("UTF-8"))) }
+    dropped.await(10, TimeUnit.SECONDS)
+
+    then:
+    dropped.count == 0
+
+    when: "the agent comes back after another payload was enqueued"
+    sink.accept(1, ByteBuffer.wrap("$capacity".getBytes("UTF-8")))
+    agentUp.set(true)
+    sent.await(10, TimeUnit.SECONDS)
+
+    then:
+    accepted == (1..capacity).collect { "$it".toString() }
+  }
+
   def respond(Request request, int code) {
     if (0 == code) {
       return error(request)
@@ -17,7 +17,7 @@ class RateByServiceSamplerTest extends DDCoreSpecification {
     String response = '{"rate_by_service": {"service:,env:":' + rate + '}}'
     serviceSampler.onResponse("traces", serializer.fromJson(response))
     expect:
-    serviceSampler.serviceRates.getSampler(RateByServiceSampler.EnvAndService.DEFAULT).sampleRate == expectedRate
+    serviceSampler.serviceRates.getSampler("", "").sampleRate == expectedRate
 
     where:
     rate | expectedRate
@@ -7,6 +7,7 @@ import datadog.trace.core.test.DDCoreSpecification
 import static datadog.trace.api.config.TracerConfig.TRACE_RATE_LIMIT
 import static datadog.trace.api.config.TracerConfig.TRACE_SAMPLE_RATE
 import static datadog.trace.api.config.TracerConfig.TRACE_SAMPLING_OPERATION_RULES
+import static datadog.trace.api.config.TracerConfig.TRACE_SAMPLING_RULES
 import static datadog.trace.api.config.TracerConfig.TRACE_SAMPLING_SERVICE_RULES
 import static datadog.trace.api.sampling.PrioritySampling.SAMPLER_DROP
 import static datadog.trace.api.sampling.PrioritySampling.SAMPLER_KEEP
@@ -213,4 +214,64 @@ class RuleBasedSamplingTest extends DDCoreSpecification {
     cleanup:
     tracer.close()
   }
+
+  def "json sampling rules #rules"() {
+    given:
+    Properties properties = new Properties()
+    properties.setProperty(TRACE_SAMPLING_RULES, rules)
+    if (serviceRules != null) {
+      properties.setProperty(TRACE_SAMPLING_SERVICE_RULES, serviceRules)
+    }
+    properties.setProperty(TRACE_RATE_LIMIT, "50")
+    def tracer = tracerBuilder().writer(new ListWriter()).build()
+    Sampler sampler = Sampler.Builder.forConfig(properties)
+
+    when:
+    // the second evaluation goes through the memoized candidates
+    def spans = (1..2).collect {
+      DDSpan span = tracer.buildSpan("operation")
+        .withServiceName("service")
+        .withResourceName("GET /health")
+        .withTag("env", "bar")
+        .withTag("http.status_code", 200)
+        .ignoreActiveSpan().start()
+      ((PrioritySampler) sampler).setSamplingPriority(span)
+      span
+    }
+
+    then:
+    sampler instanceof RuleBasedSampler
+    spans.every {
+      it.getUnsafeMetrics().get(RuleBasedSampler.SAMPLING_RULE_RATE) == expectedRuleRate &&
+        it.getUnsafeMetrics().get(RateByServiceSampler.SAMPLING_AGENT_RATE) == expectedAgentRate &&
+        it.getSamplingPriority() == expectedPriority
+    }
+
+    cleanup:
+    tracer.close()
+
+    where:
+    rules                                                                      | serviceRules | expectedRuleRate | expectedAgentRate | expectedPriority
+    '[{"service": "service", "sample_rate": 0}]'                               | null         | 0                | null              | SAMPLER_DROP
+    '[{"service": "serv*", "sample_rate": 0}]'                                 | null         | 0                | null              | SAMPLER_DROP
+    '[{"service": "s?rvice", "name": "op*", "sample_rate": 0}]'                | null         | 0                | null              | SAMPLER_DROP
+    '[{"service": "*ice", "name": "other", "sample_rate": 0}]'                 | null         | null             | 1.0               | SAMPLER_KEEP
+    '[{"resource": "GET /health*", "sample_rate": 0}]'                         | null         | 0                | null              | SAMPLER_DROP
+    '[{"resource": "POST *", "sample_rate": 0}]'                               | null         | null             | 1.0               | SAMPLER_KEEP
+    '[{"tags": {"env": "b*"}, "sample_rate": 0}]'                              | null         | 0                | null              | SAMPLER_DROP
+    '[{"tags": {"http.status_code": "2??"}, "sample_rate": 0}]'                | null         | 0                | null              | SAMPLER_DROP
+    '[{"tags": {"http.status_code": 200}, "sample_rate": 0}]'                  | null         | 0                | null              | SAMPLER_DROP
+    '[{"tags": {"http.status_code": 500}, "sample_rate": 0}]'                  | null         | null             | 1.0               | SAMPLER_KEEP
+    '[{"tags": {"env": "prod"}, "sample_rate": 0}]'                            | null         | null             | 1.0               | SAMPLER_KEEP
+    '[{"tags": {"missing": "*"}, "sample_rate": 0}]'                           | null         | null             | 1.0               | SAMPLER_KEEP
+    // first matching rule wins
+    '[{"resource": "POST *", "sample_rate": 0}, {"service": "*", "sample_rate": 1}]' | null   | 1.0              | null              | SAMPLER_KEEP
+    '[{"service": "*", "sample_rate": 1}, {"resource": "GET *", "sample_rate": 0}]'  | null   | 1.0              | null              | SAMPLER_KEEP
+    // json rules take precedence over service rules
+    '[{"service": "service", "sample_rate": 0}]'                               | "service:1"  | 0                | null              | SAMPLER_DROP
+    '[{"service": "other", "sample_rate": 0}]'                                 | "service:1"  | 1.0              | null              | SAMPLER_KEEP
+    // invalid rules are ignored
+    '[{"service": "service"}]'                                                 | "service:1"  | 1.0              | null              | SAMPLER_KEEP
+    'not json'                                                                 | "service:1"  | 1.0              | null              | SAMPLER_KEEP
+  }
 }
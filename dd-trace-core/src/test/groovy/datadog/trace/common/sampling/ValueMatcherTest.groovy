@@ -0,0 +1,60 @@
+package datadog.trace.common.sampling
+
+import datadog.trace.bootstrap.instrumentation.api.UTF8BytesString
+import datadog.trace.test.util.DDSpecification
+
+class ValueMatcherTest extends DDSpecification {
+
+  def "glob '#glob' matches '#value': #expected"() {
+    expect:
+    ValueMatcher.glob(glob).matches(value) == expected
+    ValueMatcher.glob(glob).matches(UTF8BytesString.create(value)) == expected
+
+    where:
+    glob          | value          | expected
+    "*"           | ""             | true
+    "*"           | "anything"     | true
+    "service"     | "service"      | true
+    "service"     | "servic"       | false
+    "service"     | "service2"     | false
+    "serv*"       | "service"      | true
+    "serv*"       | "serv"         | true
+    "serv*"       | "ser"          | false
+    "*ice"        | "service"      | true
+    "*ice"        | "servic"       | false
+    "s?rvice"     | "service"      | true
+    "s?rvice"     | "srvice"       | false
+    "*.request"   | "http.request" | true
+    "a*b*c"       | "abc"          | true
+    "a*b*c"       | "axxbyyc"      | true
+    "a*b*c"       | "axxbyycd"     | false
+    "a*b*c"       | "acb"          | false
+    "a*bc"        | "abcbc"        | true
+    "**a"         | "bba"          | true
+    "GET /h*"     | "GET /health"  | true
+    "GET /h*"     | "POST /health" | false
+  }
+
+  def "regex '#regex' matches '#value': #expected"() {
+    expect:
+    ValueMatcher.regex(regex).matches(value) == expected
+
+    where:
+    regex    | value     | expected
+    "a.c"    | "abc"     | true
+    "s.*"    | "service" | true
+    "[a-z]+" | "service" | true
+    "[a-z]+" | "s3rvice" | false
+    "abc"    | "abc"     | true
+    "abc"    | "abcd"    | false
+  }
+
+  def "absent values only match any"() {
+    expect:
+    ValueMatcher.ANY.matches(null)
+    ValueMatcher.glob(null).matches(null)
+    !ValueMatcher.glob("a*").matches(null)
+    !ValueMatcher.glob("abc").matches(null)
+    !ValueMatcher.regex("a.*").matches(null)
+  }
+}
@@ -253,6 +253,49 @@ class CoreTracerTest extends DDCoreSpecification {
     tracer.close()
   }
 
+  def "shared root tags take precedence over the tags of the root span"() {
+    setup:
+    def tracer = tracerBuilder()
+      .defaultSpanTags(['default': 'value', 'overridden': 'default'])
+      .localRootSpanTags(['only_root': 'value', 'overridden': 'root'])
+      .build()
+    def root = tracer.buildSpan('my_root').start()
+    def overriding = tracer.buildSpan('my_root').withTag('only_root', 'span').start()
+    def child = tracer.buildSpan('my_child').asChildOf(root).start()
+
+    expect:
+    root.context().tags.subMap(['default', 'only_root', 'overridden']) == ['default': 'value', 'only_root': 'value', 'overridden': 'root']
+    overriding.context().tags.subMap(['default', 'only_root', 'overridden']) == ['default': 'value', 'only_root': 'value', 'overridden': 'root']
+    child.context().tags.subMap(['default', 'only_root', 'overridden']) == ['default': 'value', 'overridden': 'default']
+
+    cleanup:
+    child.finish()
+    overriding.finish()
+    root.finish()
+    tracer.close()
+  }
+
+  def "spans adding the same shared tags reference the same merged tags"() {
+    setup:
+    def tracer = tracerBuilder()
+      .defaultSpanTags(['default': 'value'])
+      .build()
+    def layer = tracer.shareTags(['ci.key': 'ci', 'overridden': 'ci'])
+    def first = tracer.buildSpan('test').withTag('overridden', 'span').start().addSharedTags(layer)
+    def second = tracer.buildSpan('test').start().addSharedTags(layer)
+
+    expect:
+    first.context().tags.subMap(['default', 'ci.key', 'overridden']) == ['default': 'value', 'ci.key': 'ci', 'overridden': 'ci']
+    second.context().tags.subMap(['default', 'ci.key', 'overridden']) == ['default': 'value', 'ci.key': 'ci', 'overridden': 'ci']
+    first.context().@sharedTags.is(second.context().@sharedTags)
+    !first.context().@unsafeTags.containsKey('overridden')
+
+    cleanup:
+    first.finish()
+    second.finish()
+    tracer.close()
+  }
+
   def "priority sampling when span finishes"() {
     given:
     def writer = new ListWriter()
@@ -100,6 +100,40 @@ class DDSpanContextTest extends DDCoreSpecification {
     "tag_with_float" | 0.321
   }
 
+  def "default span tags are shared until changed on the span"() {
+    setup:
+    def sharingTracer = tracerBuilder().writer(writer)
+      .defaultSpanTags(["team": "a", "region": "b", (DDTags.SPAN_TYPE): "shared-type"])
+      .build()
+    def context = sharingTracer.buildSpan("fakeOperation").start().context()
+    def metadata = null
+    context.processTagsAndBaggage(new MetadataConsumer() {
+        @Override
+        void accept(Metadata m) {
+          metadata = m
+        }
+      })
+
+    expect:
+    metadata.sharedTags.asMap() == ["team": "a", "region": "b"]
+    !metadata.tags.containsKey("team")
+    context.getTag("team") == "a"
+    context.spanType == "shared-type"
+    context.tags["region"] == "b"
+
+    when:
+    context.setTag("team", "c")
+    context.setTag("region", null)
+
+    then:
+    context.getTag("team") == "c"
+    context.getTag("region") == null
+    !context.tags.containsKey("region")
+
+    cleanup:
+    sharingTracer.close()
+  }
+
   def "metrics use the expected types"() {
     // floats should be converted to doubles.
     setup:
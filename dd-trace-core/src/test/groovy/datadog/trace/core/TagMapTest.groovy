@@ -0,0 +1,88 @@
+package datadog.trace.core
+
+import datadog.trace.test.util.DDSpecification
+
+class TagMapTest extends DDSpecification {
+
+  def "behaves like a hash map"() {
+    setup:
+    def random = new Random(seed)
+    def tags = new TagMap(0)
+    def expected = new HashMap<String, Object>()
+
+    when:
+    for (int i = 0; i < 1000; ++i) {
+      def key = "tag" + random.nextInt(50)
+      switch (random.nextInt(3)) {
+        case 0:
+          assert tags.put(key, i) == expected.put(key, i)
+          break
+        case 1:
+          assert tags.remove(key) == expected.remove(key)
+          break
+        default:
+          assert tags.get(key) == expected.get(key)
+          assert tags.containsKey(key) == expected.containsKey(key)
+      }
+      assert tags.size() == expected.size()
+    }
+
+    then:
+    new HashMap<>(tags) == expected
+
+    where:
+    seed << [0, 1, 2, 3]
+  }
+
+  def "keeps entries reachable after removing colliding keys"() {
+    setup:
+    // "Aa" and "BB" have the same hash code
+    def tags = new TagMap(8)
+    tags.put("Aa", 1)
+    tags.put("BB", 2)
+    tags.put("AaAa", 3)
+    tags.put("BBBB", 4)
+
+    when:
+    tags.remove("Aa")
+    tags.remove("AaAa")
+
+    then:
+    tags.size() == 2
+    tags.get("BB") == 2
+    tags.get("BBBB") == 4
+    !tags.containsKey("Aa")
+  }
+
+  def "grows past the expected size"() {
+    setup:
+    def tags = new TagMap(2)
+
+    when:
+    (0..<100).each { tags.put("tag" + it, it) }
+
+    then:
+    tags.size() == 100
+    (0..<100).every { tags.get("tag" + it) == it }
+  }
+
+  def "visits every tag"() {
+    setup:
+    def tags = new TagMap(4)
+    (0..<20).each { tags.put("tag" + it, it) }
+    tags.remove("tag3")
+    def visited = [:]
+
+    when:
+    tags.forEachTag(new TagConsumer() {
+        @Override
+        void accept(String key, Object value) {
+          visited.put(key, value)
+        }
+      })
+
+    then:
+    visited == new HashMap<>(tags)
+    visited.size() == 19
+  }
+}
@@ -105,17 +105,47 @@ class HealthMetricsTest extends DDSpecification {
   }
 
   def "test onSerialize"() {
+    setup:
+    def statsD = Mock(StatsDClient)
+    def healthMetrics = new HealthMetrics(statsD, 100, TimeUnit.MILLISECONDS)
+    healthMetrics.start()
+
     when:
     healthMetrics.onSerialize(bytes)
+    healthMetrics.onSerialize(bytes)
+    Thread.sleep(110)
 
     then:
-    1 * statsD.count('queue.enqueued.bytes', bytes)
+    1 * statsD.count('queue.enqueued.bytes', 2 * bytes)
     0 * _
 
+    cleanup:
+    healthMetrics.close()
+
     where:
     bytes = ThreadLocalRandom.current().nextInt(10000)
   }
 
+  def "test close flushes the remaining counts"() {
+    setup:
+    def statsD = Mock(StatsDClient)
+    def healthMetrics = new HealthMetrics(statsD, 1, TimeUnit.HOURS)
+    healthMetrics.start()
+    healthMetrics.onSerialize(bytes)
+    healthMetrics.onFailedPublish(PrioritySampling.USER_DROP)
+
+    when:
+    healthMetrics.close()
+
+    then:
+    1 * statsD.count('queue.enqueued.bytes', bytes)
+    1 * statsD.count('queue.dropped.traces', 1, "priority:user_drop")
+    0 * _
+
+    where:
+    bytes = ThreadLocalRandom.current().nextInt(1, 10000)
+  }
+
   def "test onFailedSerialize"() {
     when:
     healthMetrics.onFailedSerialize(null, null)
@@ -125,21 +155,31 @@ class HealthMetricsTest extends DDSpecification {
   }
 
   def "test onSend"() {
+    setup:
+    def statsD = Mock(StatsDClient)
+    def healthMetrics = new HealthMetrics(statsD, 100, TimeUnit.MILLISECONDS)
+    healthMetrics.start()
+
     when:
     healthMetrics.onSend(traceCount, sendSize, response)
+    healthMetrics.onSend(traceCount, sendSize, response)
+    Thread.sleep(110)
 
     then:
-    1 * statsD.incrementCounter('api.requests.total')
-    1 * statsD.count('flush.traces.total', traceCount)
-    1 * statsD.count('flush.bytes.total', sendSize)
+    1 * statsD.count('api.requests.total', 2)
+    1 * statsD.count('flush.traces.total', 2 * traceCount)
+    1 * statsD.count('flush.bytes.total', 2 * sendSize)
     if (response.exception()) {
-      1 * statsD.incrementCounter('api.errors.total')
+      1 * statsD.count('api.errors.total', 2)
     }
     if (response.status()) {
-      1 * statsD.incrementCounter('api.responses.total', ["status:${response.status()}"])
+      1 * statsD.count('api.responses.total', 2, ["status:${response.status()}"])
     }
     0 * _
 
+    cleanup:
+    healthMetrics.close()
+
     where:
     response << [
       DDAgentApi.Response.success(ThreadLocalRandom.current().nextInt(1, 100)),
@@ -153,21 +193,31 @@ class HealthMetricsTest extends DDSpecification {
   }
 
   def "test onFailedSend"() {
+    setup:
+    def statsD = Mock(StatsDClient)
+    def healthMetrics = new HealthMetrics(statsD, 100, TimeUnit.MILLISECONDS)
+    healthMetrics.start()
+
     when:
     healthMetrics.onFailedSend(traceCount, sendSize, response)
+    healthMetrics.onFailedSend(traceCount, sendSize, response)
+    Thread.sleep(110)
 
     then:
-    1 * statsD.incrementCounter('api.requests.total')
-    1 * statsD.count('flush.traces.total', traceCount)
-    1 * statsD.count('flush.bytes.total', sendSize)
+    1 * statsD.count('api.requests.total', 2)
+    1 * statsD.count('flush.traces.total', 2 * traceCount)
+    1 * statsD.count('flush.bytes.total', 2 * sendSize)
     if (response.exception()) {
-      1 * statsD.incrementCounter('api.errors.total')
+      1 * statsD.count('api.errors.total', 2)
     }
     if (response.status()) {
-      1 * statsD.incrementCounter('api.responses.total', ["status:${response.status()}"])
+      1 * statsD.count('api.responses.total', 2, ["status:${response.status()}"])
     }
     0 * _
 
+    cleanup:
+    healthMetrics.close()
+
     where:
     response << [
       DDAgentApi.Response.success(ThreadLocalRandom.current().nextInt(1, 100)),
@@ -54,6 +54,32 @@ class DatadogHttpExtractorTest extends DDSpecification {
     "${TRACE_ID_MAX - 1}" | "$TRACE_ID_MAX"       | PrioritySampling.SAMPLER_KEEP | "saipan"
   }
 
+  def "extract http headers by key"() {
+    setup:
+    def headers = [
+      "unrelated-header"                      : "unrelated",
+      (TRACE_ID_KEY.toUpperCase())            : "1",
+      (SPAN_ID_KEY.toUpperCase())             : "2",
+      (SAMPLING_PRIORITY_KEY)                 : "1",
+      (ORIGIN_KEY)                            : "saipan",
+      (OT_BAGGAGE_PREFIX.toUpperCase() + "k1"): "v1",
+      SOME_HEADER                             : "my-interesting-info",
+    ]
+    def getter = new KeyedMapGetter()
+
+    when:
+    final ExtractedContext context = extractor.extract(headers, getter)
+
+    then:
+    context.traceId == DDId.from("1")
+    context.spanId == DDId.from("2")
+    context.baggage == ["k1": "v1"]
+    context.tags == ["some-tag": "my-interesting-info"]
+    context.samplingPriority == PrioritySampling.SAMPLER_KEEP
+    context.origin == "saipan"
+    !getter.visited.contains("unrelated-header")
+  }
+
   def "extract header tags with no propagation"() {
     when:
     TagContext context = extractor.extract(headers, ContextVisitors.stringValuesMap())
@@ -0,0 +1,34 @@
+package datadog.trace.core.propagation
+
+import datadog.trace.bootstrap.instrumentation.api.AgentPropagation
+
+/** Records which keys are accessed, to check codecs only look at the keys they need. */
+class KeyedMapGetter implements AgentPropagation.KeyedContextVisitor<Map<String, String>> {
+  final List<String> visited = []
+
+  @Override
+  void forEachKey(Map<String, String> carrier, AgentPropagation.KeyClassifier classifier) {
+    throw new UnsupportedOperationException("keyed carriers should not be iterated")
+  }
+
+  @Override
+  String get(Map<String, String> carrier, String key) {
+    def entry = carrier.find { it.key.equalsIgnoreCase(key) }
+    if (entry != null) {
+      visited << entry.key
+    }
+    return entry?.value
+  }
+
+  @Override
+  void forEachKeyWithPrefix(Map<String, String> carrier, String prefix, AgentPropagation.KeyClassifier classifier) {
+    for (def entry : carrier.entrySet()) {
+      if (entry.key.toLowerCase().startsWith(prefix.toLowerCase())) {
+        visited << entry.key
+        if (!classifier.accept(entry.key, entry.value)) {
+          return
+        }
+      }
+    }
+  }
+}
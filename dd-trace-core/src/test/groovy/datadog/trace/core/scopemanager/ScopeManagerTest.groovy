@@ -6,6 +6,7 @@ import datadog.trace.api.interceptor.MutableSpan
 import datadog.trace.api.interceptor.TraceInterceptor
 import datadog.trace.bootstrap.instrumentation.api.AgentScope
 import datadog.trace.bootstrap.instrumentation.api.AgentSpan
+import datadog.trace.bootstrap.instrumentation.api.AgentTrace
 import datadog.trace.bootstrap.instrumentation.api.AgentTracer.NoopAgentSpan
 import datadog.trace.bootstrap.instrumentation.api.ScopeSource
 import datadog.trace.common.writer.ListWriter
@@ -13,9 +14,12 @@ import datadog.trace.context.ScopeListener
 import datadog.trace.context.TraceScope
 import datadog.trace.core.CoreTracer
 import datadog.trace.core.DDSpan
+import datadog.trace.core.jfr.DDNoopScopeEventFactory
 import datadog.trace.core.test.DDCoreSpecification
+import groovy.transform.CompileStatic
 import spock.lang.Shared
 
+import java.lang.management.ManagementFactory
 import java.lang.ref.WeakReference
 import java.util.concurrent.TimeUnit
 import java.util.concurrent.atomic.AtomicInteger
@@ -259,6 +263,149 @@ class ScopeManagerTest extends DDCoreSpecification {
     false     | false
   }
 
+  def "shared continuations fan out on a single pending reference"() {
+    when:
+    def span = tracer.buildSpan("test").start()
+    def scope = tracer.activateSpan(span)
+    scope.setAsyncPropagation(true)
+    def trace = span.context().trace
+    def single = scope.captureShared()
+    def continuations = (1..10).collect { scope.captureShared() }
+
+    then:
+    !continuations.first().is(single)
+    continuations.toSet().size() == 1
+    trace.pendingReferenceCount.get() == 3
+
+    when:
+    single.cancel()
+    continuations.take(5).each { it.activate().close() }
+    continuations.drop(5).each { it.cancel() }
+
+    then: "the group is kept until its scope is closed"
+    trace.pendingReferenceCount.get() == 2
+
+    when:
+    scope.close()
+    span.finish()
+    writer.waitForTraces(1)
+
+    then:
+    trace.pendingReferenceCount.get() == 0
+    writer == [[span]]
+  }
+
+  def "shared continuation is released once every task completed"() {
+    when:
+    def span = tracer.buildSpan("test").start()
+    def scope = tracer.activateSpan(span)
+    scope.setAsyncPropagation(true)
+    def trace = span.context().trace
+    scope.captureShared().cancel()
+    def continuations = (1..3).collect { scope.captureShared() }
+    scope.close()
+    span.finish()
+    continuations[0].activate().close()
+    continuations[1].cancel()
+
+    then:
+    trace.pendingReferenceCount.get() == 1
+    writer == []
+
+    when:
+    continuations[2].activate().close()
+    writer.waitForTraces(1)
+
+    then:
+    trace.pendingReferenceCount.get() == 0
+    writer == [[span]]
+  }
+
+  def "shared continuation is not reused once its scope is closed"() {
+    when:
+    def span = tracer.buildSpan("test").start()
+    def scope = tracer.activateSpan(span)
+    scope.setAsyncPropagation(true)
+    def first = (1..2).collect { scope.captureShared() }
+    def childScope = tracer.activateSpan(tracer.buildSpan("child").start())
+    childScope.setAsyncPropagation(true)
+    def child = (1..2).collect { childScope.captureShared() }
+    def notOnTop = (1..2).collect { scope.captureShared() }
+    childScope.close()
+    def second = (1..2).collect { scope.captureShared() }
+
+    then:
+    !child[1].is(first[1])
+    !notOnTop[0].is(notOnTop[1])
+    !second[1].is(first[1])
+
+    cleanup:
+    [first, child, notOnTop, second].each { it?.each { it.cancel() } }
+  }
+
+  def "shared continuations allocate less and update the trace less than individual ones"() {
+    setup:
+    def trace = new CountingTrace()
+    def manager = new ContinuableScopeManager(0, DDNoopScopeEventFactory.INSTANCE, statsDClient, false, true)
+    def span = Stub(AgentSpan) {
+      context() >> Stub(AgentSpan.Context) {
+        getTrace() >> trace
+      }
+    }
+    // warm up both paths before measuring
+    fanOut(manager, span, 1000, false)
+    fanOut(manager, span, 1000, true)
+    trace.updates.set(0)
+
+    when:
+    def individualBytes = fanOut(manager, span, 1000, false)
+    def individualUpdates = trace.updates.getAndSet(0)
+    def sharedBytes = fanOut(manager, span, 1000, true)
+    def sharedUpdates = trace.updates.getAndSet(0)
+
+    then:
+    individualUpdates == 2000
+    // one individual continuation for the first task, then one group for the others
+    sharedUpdates == 4
+    sharedBytes < individualBytes
+    trace.pending.get() == 0
+  }
+
+  @CompileStatic
+  private static long fanOut(
+    ContinuableScopeManager manager, AgentSpan span, int tasks, boolean shared) {
+    def threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()
+    def threadId = Thread.currentThread().id
+    def continuations = new TraceScope.Continuation[tasks]
+    def before = threads.getThreadAllocatedBytes(threadId)
+    def scope = manager.activate(span, ScopeSource.INSTRUMENTATION, true)
+    for (int i = 0; i < tasks; i++) {
+      continuations[i] = shared ? scope.captureShared() : scope.capture()
+    }
+    scope.close()
+    for (int i = 0; i < tasks; i++) {
+      continuations[i].activate().close()
+    }
+    return threads.getThreadAllocatedBytes(threadId) - before
+  }
+
+  static class CountingTrace implements AgentTrace {
+    final AtomicInteger pending = new AtomicInteger()
+    final AtomicInteger updates = new AtomicInteger()
+
+    @Override
+    void registerContinuation(AgentScope.Continuation continuation) {
+      pending.incrementAndGet()
+      updates.incrementAndGet()
+    }
+
+    @Override
+    void cancelContinuation(AgentScope.Continuation continuation) {
+      pending.decrementAndGet()
+      updates.incrementAndGet()
+    }
+  }
+
   def "continuation restores trace"() {
     when:
     def parentSpan = tracer.buildSpan("parent").start()
@@ -430,6 +577,92 @@ class ScopeManagerTest extends DDCoreSpecification {
     eventCountingListener.events == [ACTIVATE, ACTIVATE, CLOSE, ACTIVATE, CLOSE]
   }
 
+  def "restoring a checkpoint closes all scopes activated since"() {
+    when:
+    AgentSpan span = tracer.buildSpan("foo").start()
+    AgentScope scope = tracer.activateSpan(span)
+    int checkpoint = tracer.checkpointScopes()
+
+    AgentSpan childSpan = tracer.buildSpan("foo").start()
+    AgentScope childScope = tracer.activateSpan(childSpan)
+    // activated twice, so a single close would not remove it
+    tracer.activateSpan(childSpan)
+    AgentSpan leakedSpan = tracer.buildSpan("foo").start()
+    tracer.activateSpan(leakedSpan)
+
+    then:
+    checkpoint > 0
+    scopeManager.active().span() == leakedSpan
+    eventCountingListener.events == [ACTIVATE, ACTIVATE, ACTIVATE]
+
+    when:
+    tracer.restoreScopes(checkpoint)
+
+    then:
+    scopeManager.active() == scope
+    scopeManager.scopeStack().depth() == 1
+    eventCountingListener.events == [ACTIVATE, ACTIVATE, ACTIVATE, CLOSE, CLOSE, ACTIVATE]
+
+    when:
+    // restoring again or to a checkpoint of 0 does nothing
+    tracer.restoreScopes(checkpoint)
+    tracer.restoreScopes(0)
+
+    then:
+    scopeManager.active() == scope
+    eventCountingListener.events == [ACTIVATE, ACTIVATE, ACTIVATE, CLOSE, CLOSE, ACTIVATE]
+
+    when:
+    childScope.close()
+    scope.close()
+    span.finish()
+
+    then:
+    scopeManager.active() == null
+    1 * statsDClient.incrementCounter("scope.close.error")
+  }
+
+  def "restoring a checkpoint closes the scopes activated since after scopes below were closed out of order"() {
+    when:
+    AgentScope rootScope = tracer.activateSpan(tracer.buildSpan("root").start())
+    AgentScope lowerScope = tracer.activateSpan(tracer.buildSpan("lower").start())
+    AgentScope topScope = tracer.activateSpan(tracer.buildSpan("top").start())
+    int checkpoint = tracer.checkpointScopes()
+    // closed out of order, then cleaned up with the scope above it
+    lowerScope.close()
+    topScope.close()
+    // back to the depth of the checkpoint
+    tracer.activateSpan(tracer.buildSpan("leaked").start())
+    tracer.activateSpan(tracer.buildSpan("leaked").start())
+
+    then:
+    scopeManager.scopeStack().depth() == 3
+
+    when:
+    tracer.restoreScopes(checkpoint)
+
+    then:
+    scopeManager.active() == rootScope
+    scopeManager.scopeStack().depth() == 1
+
+    cleanup:
+    rootScope.close()
+  }
+
+  def "restoring an empty checkpoint closes all scopes"() {
+    when:
+    int checkpoint = tracer.checkpointScopes()
+    AgentSpan span = tracer.buildSpan("foo").start()
+    tracer.activateSpan(span)
+    tracer.activateSpan(tracer.buildSpan("bar").start())
+    tracer.restoreScopes(checkpoint)
+
+    then:
+    scopeManager.active() == null
+    scopeManager.scopeStack().depth() == 0
+    eventCountingListener.events == [ACTIVATE, ACTIVATE, CLOSE, CLOSE]
+  }
+
   def "closing scope out of order - simple"() {
     when:
     AgentSpan firstSpan = tracer.buildSpan("foo").start()
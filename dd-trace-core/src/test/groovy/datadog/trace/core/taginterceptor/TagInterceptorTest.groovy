@@ -165,6 +165,31 @@ class TagInterceptorTest extends DDCoreSpecification {
     mapping = [(serviceName): "new-service"]
   }
 
+  def "#tag needs to be intercepted: #expected"() {
+    setup:
+    def interceptor = new TagInterceptor(true, "my-service", Collections.singleton("sn.tag1"), new RuleFlags())
+
+    expect:
+    interceptor.needsIntercept(tag) == expected
+    expected || !interceptor.interceptTag(null, tag, "value")
+
+    where:
+    tag                   | expected
+    DDTags.RESOURCE_NAME  | true
+    Tags.DB_STATEMENT     | true
+    DDTags.SERVICE_NAME   | true
+    "service"             | true
+    Tags.PEER_SERVICE     | true
+    DDTags.MANUAL_KEEP    | true
+    DDTags.MANUAL_DROP    | true
+    DDTags.SPAN_TYPE      | true
+    ANALYTICS_SAMPLE_RATE | true
+    Tags.ERROR            | true
+    "sn.tag1"             | true
+    "sn.tag2"             | false
+    "custom"              | false
+  }
+
   def createSplittingTracer(tag) {
     return tracerBuilder()
       .serviceName("my-service")
@@ -0,0 +1,92 @@
+package datadog.trace.core.util
+
+import datadog.trace.test.util.DDSpecification
+
+class StackTraceRendererTest extends DDSpecification {
+
+  def "renders like printStackTrace when within bounds"() {
+    setup:
+    def cause = withFrames(new IOException("inner"), 6)
+    cause.stackTrace = [new StackTraceElement("Io", "read", "Io.java", 7)] + cause.stackTrace.drop(2)
+    def error = withFrames(new IllegalStateException("outer", cause), 6)
+    error.addSuppressed(withFrames(new RuntimeException("suppressed"), 3))
+    def expected = new StringWriter()
+    error.printStackTrace(new PrintWriter(expected))
+
+    expect:
+    new StackTraceRenderer(0, 0).render(error) == expected.toString().replace(System.lineSeparator(), "\n")
+  }
+
+  def "limits the number of frames of each throwable"() {
+    setup:
+    def error = withFrames(new RuntimeException("boom"), 10)
+
+    when:
+    def rendered = new StackTraceRenderer(3, 0).render(error)
+
+    then:
+    rendered.readLines() == [
+      "java.lang.RuntimeException: boom",
+      "\tat Frame.method0(Frame.java:0)",
+      "\tat Frame.method1(Frame.java:1)",
+      "\tat Frame.method2(Frame.java:2)",
+      "\t... 7 frames omitted"
+    ]
+  }
+
+  def "collapses repeated frames"() {
+    setup:
+    def error = new StackOverflowError()
+    def frame = new StackTraceElement("Recursive", "call", "Recursive.java", 42)
+    error.stackTrace = [frame] * 1000 + [new StackTraceElement("Main", "main", "Main.java", 1)]
+
+    when:
+    def rendered = new StackTraceRenderer(0, 0).render(error)
+
+    then:
+    rendered.readLines() == [
+      "java.lang.StackOverflowError",
+      "\tat Recursive.call(Recursive.java:42)",
+      "\t... repeated 999 more times",
+      "\tat Main.main(Main.java:1)"
+    ]
+  }
+
+  def "truncates the text to the maximum length"() {
+    setup:
+    def error = withFrames(new RuntimeException("boom"), 1000)
+
+    expect:
+    new StackTraceRenderer(0, 100).render(error).length() == 100
+  }
+
+  def "does not loop on circular causes"() {
+    setup:
+    def first = new RuntimeException("first")
+    def second = new RuntimeException("second", first)
+    first.initCause(second)
+
+    when:
+    def rendered = new StackTraceRenderer(0, 0).render(first)
+
+    then:
+    rendered.contains("Caused by: java.lang.RuntimeException: second")
+    rendered.contains("Caused by: [CIRCULAR REFERENCE: java.lang.RuntimeException: first]")
+  }
+
+  def "identical stack traces share the rendered text"() {
+    setup:
+    def renderer = new StackTraceRenderer(0, 0)
+
+    expect:
+    renderer.render(withFrames(new RuntimeException("boom"), 5)).is(renderer.render(withFrames(new RuntimeException("boom"), 5)))
+    renderer.render(withFrames(new RuntimeException("boom"), 5)) != renderer.render(withFrames(new RuntimeException("bang"), 5))
+  }
+
+  static Throwable withFrames(Throwable error, int frames) {
+    error.stackTrace = (0..<frames).collect {
+      new StackTraceElement("Frame", "method" + it, "Frame.java", it)
+    }
+    return error
+  }
+}
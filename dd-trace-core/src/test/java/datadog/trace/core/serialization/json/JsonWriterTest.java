@@ -0,0 +1,103 @@
+package datadog.trace.core.serialization.json;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+
+import com.squareup.moshi.Moshi;
+import datadog.trace.core.serialization.GrowableBuffer;
+import datadog.trace.core.serialization.Mapper;
+import datadog.trace.core.serialization.Writable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class JsonWriterTest {
+
+  private final GrowableBuffer buffer = new GrowableBuffer(8);
+  private final JsonWriter writer = new JsonWriter(buffer);
+
+  @Test
+  public void testNestedContainers() throws IOException {
+    final Map<String, Object> map = new LinkedHashMap<>();
+    map.put("int", 1);
+    map.put("empty", new HashMap<String, Object>());
+    map.put("list", Arrays.<Object>asList(1.5, "x", Collections.emptyList(), true));
+    map.put("nested", Collections.singletonMap("key", "value"));
+    String json =
+        write(
+            new Mapper<Map<String, Object>>() {
+              @Override
+              public void map(Map<String, Object> data, Writable writable) {
+                writable.startArray(3);
+                writable.writeMap(data, null);
+                writable.startMap(0);
+                writable.writeNull();
+              }
+            },
+            map);
+    assertEquals(
+        "[{\"int\":1,\"empty\":{},\"list\":[1.5,\"x\",[],true],\"nested\":{\"key\":\"value\"}},{},null]",
+        json);
+    assertEquals(
+        Arrays.asList(
+            new LinkedHashMap<String, Object>() {
+              {
+                put("int", 1.0);
+                put("empty", Collections.emptyMap());
+                put("list", Arrays.<Object>asList(1.5, "x", Collections.emptyList(), true));
+                put("nested", Collections.singletonMap("key", "value"));
+              }
+            },
+            Collections.emptyMap(),
+            null),
+        new Moshi.Builder().build().adapter(List.class).fromJson(json));
+  }
+
+  @Test
+  public void testStringsAreEscaped() {
+    String json =
+        write(
+            new Mapper<String>() {
+              @Override
+              public void map(String data, Writable writable) {
+                writable.writeString(data, null);
+              }
+            },
+            "\"quoted\" \\ line\nbreak \u0001 h\u00e9llo");
+    assertEquals("\"\\\"quoted\\\" \\\\ line\\nbreak \\u0001 h\u00e9llo\"", json);
+  }
+
+  @Test
+  public void testNumericKeysAreQuoted() {
+    String json =
+        write(
+            new Mapper<long[]>() {
+              @Override
+              public void map(long[] data, Writable writable) {
+                writable.startMap(data.length);
+                for (long value : data) {
+                  writable.writeLong(value);
+                  writable.writeDouble(Double.NaN);
+                }
+              }
+            },
+            new long[] {Long.MIN_VALUE, 42});
+    assertEquals("{\"-9223372036854775808\":null,\"42\":null}", json);
+  }
+
+  private <T> String write(Mapper<T> mapper, T data) {
+    writer.format(data, mapper);
+    ByteBuffer json = buffer.slice();
+    try {
+      return new String(json.array(), json.arrayOffset(), json.remaining(), UTF_8);
+    } finally {
+      buffer.reset();
+    }
+  }
+}
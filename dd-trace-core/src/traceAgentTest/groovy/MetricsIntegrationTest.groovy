@@ -26,7 +26,7 @@ class MetricsIntegrationTest extends DDSpecification {
     setup:
     def latch = new CountDownLatch(1)
     def listener = new BlockingListener(latch)
-    OkHttpSink sink = new OkHttpSink("http://localhost:8126", 5000L, true)
+    OkHttpSink sink = new OkHttpSink("http://localhost:8126", 5000L, true, false)
     sink.register(listener)
 
     when:
@@ -3,11 +3,13 @@ package datadog.opentracing;
 import datadog.trace.bootstrap.instrumentation.api.AgentScope;
 import datadog.trace.bootstrap.instrumentation.api.AgentScopeManager;
 import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
+import datadog.trace.bootstrap.instrumentation.api.AgentTracer;
 import datadog.trace.bootstrap.instrumentation.api.ScopeSource;
 import datadog.trace.context.TraceScope;
 import io.opentracing.Scope;
 import io.opentracing.ScopeManager;
 import io.opentracing.Span;
+import java.util.ArrayDeque;
 import java.util.Objects;
 
 /**
@@ -28,6 +30,17 @@ import java.util.Objects;
 class CustomScopeManagerWrapper implements AgentScopeManager {
   private final ScopeManager delegate;
   private final TypeConverter converter;
+  /**
+   * The scope stack of the custom scope manager is not visible, so each checkpoint activates a
+   * sentinel scope instead and restoring closes the active scopes until the sentinel is reached.
+   */
+  private final ThreadLocal<ArrayDeque<Scope>> sentinels =
+      new ThreadLocal<ArrayDeque<Scope>>() {
+        @Override
+        protected ArrayDeque<Scope> initialValue() {
+          return new ArrayDeque<>();
+        }
+      };
 
   CustomScopeManagerWrapper(final ScopeManager scopeManager, final TypeConverter converter) {
     delegate = scopeManager;
@@ -71,6 +84,34 @@ class CustomScopeManagerWrapper implements AgentScopeManager {
     }
   }
 
+  @Override
+  public int checkpoint() {
+    final ArrayDeque<Scope> stack = sentinels.get();
+    stack.push(delegate.activate(converter.toSpan(new AgentTracer.NoopAgentSpan())));
+    return stack.size();
+  }
+
+  @Override
+  public void restore(final int checkpoint) {
+    final ArrayDeque<Scope> stack = sentinels.get();
+    if (checkpoint <= 0 || stack.size() < checkpoint) {
+      return;
+    }
+    Scope sentinel;
+    do {
+      sentinel = stack.pop();
+    } while (stack.size() >= checkpoint);
+    Scope active = delegate.active();
+    while (active != null && !sentinel.equals(active)) {
+      active.close();
+      active = delegate.active();
+    }
+    while (sentinel.equals(active)) {
+      sentinel.close();
+      active = delegate.active();
+    }
+  }
+
   class CustomScopeManagerScope implements AgentScope, TraceScope {
     private final Scope delegate;
     private final boolean traceScope;
@@ -117,6 +158,11 @@ class CustomScopeManagerWrapper implements AgentScopeManager {
       }
     }
 
+    @Override
+    public TraceScope.Continuation captureShared() {
+      return capture();
+    }
+
     @Override
     public void close() {
       delegate.close();
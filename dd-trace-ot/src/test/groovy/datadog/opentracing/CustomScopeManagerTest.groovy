@@ -207,6 +207,41 @@ class CustomScopeManagerTest extends DDSpecification {
     where:
     concurrent << [false, true]
   }
+
+  def "restoring a checkpoint closes the scopes activated since"() {
+    given:
+    CoreTracer coreTracer = tracer.tracer
+    Span outerSpan = tracer.buildSpan("outer").start()
+    Scope outerScope = tracer.scopeManager().activate(outerSpan)
+
+    when:
+    int checkpoint = coreTracer.checkpointScopes()
+    tracer.scopeManager().activate(tracer.buildSpan("leaked").start())
+    int nestedCheckpoint = coreTracer.checkpointScopes()
+    tracer.scopeManager().activate(tracer.buildSpan("nested").start())
+
+    then:
+    checkpoint > 0
+    nestedCheckpoint > checkpoint
+
+    when:
+    coreTracer.restoreScopes(checkpoint)
+
+    then:
+    scopeManager.active() == outerScope
+    tracer.activeSpan() == outerSpan
+
+    when:
+    coreTracer.restoreScopes(nestedCheckpoint)
+    coreTracer.restoreScopes(0)
+
+    then:
+    scopeManager.active() == outerScope
+
+    cleanup:
+    outerScope.close()
+    outerSpan.finish()
+  }
 }
 
 class TestScopeManager implements ScopeManager {
@@ -0,0 +1,77 @@
+package datadog.trace.api.sampling;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import datadog.trace.util.AgentTaskScheduler;
+import datadog.trace.util.AgentThreadFactory.AgentThread;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of a sampling decision when the event rate is much higher than the target
+ * number of samples, ie. when almost all events are rejected.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Fork(value = 1)
+public class AdaptiveSamplerBenchmark {
+
+  @Param({"100", "10000"})
+  int samplesPerWindow;
+
+  private AgentTaskScheduler scheduler;
+  private AdaptiveSampler sampler;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    scheduler = new AgentTaskScheduler(AgentThread.TASK_SCHEDULER);
+    // the window is long enough to never be rolled automatically during the benchmark
+    sampler = new AdaptiveSampler(1, TimeUnit.HOURS, samplesPerWindow, 30, 4, scheduler);
+    // train the sampler with a high event rate
+    for (int subWindow = 0; subWindow < 40; subWindow++) {
+      for (int i = 0; i < 10_000_000; i++) {
+        sampler.sample();
+      }
+      sampler.rollSubWindow();
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    scheduler.shutdown(10, TimeUnit.MILLISECONDS);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public boolean sample1() {
+    return sampler.sample();
+  }
+
+  @Benchmark
+  @Threads(8)
+  public boolean sample8() {
+    return sampler.sample();
+  }
+
+  @Benchmark
+  @Threads(32)
+  public boolean sample32() {
+    return sampler.sample();
+  }
+}
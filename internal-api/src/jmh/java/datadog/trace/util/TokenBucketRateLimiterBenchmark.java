@@ -0,0 +1,57 @@
+package datadog.trace.util;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of acquiring a token from a shared rate limiter from many threads, both when
+ * almost all attempts are rejected and when the limit is never reached.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Fork(value = 1)
+public class TokenBucketRateLimiterBenchmark {
+
+  @Param({"100", "1000000000"})
+  long rate;
+
+  private TokenBucketRateLimiter limiter;
+
+  @Setup
+  public void setup() {
+    limiter = new TokenBucketRateLimiter(rate);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public boolean tryAcquire1() {
+    return limiter.tryAcquire();
+  }
+
+  @Benchmark
+  @Threads(8)
+  public boolean tryAcquire8() {
+    return limiter.tryAcquire();
+  }
+
+  @Benchmark
+  @Threads(64)
+  public boolean tryAcquire64() {
+    return limiter.tryAcquire();
+  }
+}
@@ -0,0 +1,211 @@
+package datadog.trace.api.sampling;
+
+import datadog.trace.util.AgentTaskScheduler;
+import datadog.trace.util.AgentTaskScheduler.Task;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An adaptive streaming (non-remembering) sampler.
+ *
+ * <p>The sampler attempts to generate at most N samples per fixed time window in randomized
+ * fashion. The window is split into a number of sub-windows and at the end of each sub-window the
+ * sampling probability is recomputed from the observed rate of incoming events (proportional part)
+ * and the number of samples missing from the target in the recent past (integral part). This
+ * allows the sampler to react to changes in the event rate well before the whole window has
+ * elapsed.
+ *
+ * <p>The sampling decisions are made by each thread independently. Instead of testing every single
+ * event against the sampling probability a thread draws the number of events to skip until the next
+ * sample candidate from the geometric distribution, which is equivalent to testing each event
+ * independently. Rejecting an event is therefore just a decrement of a thread local counter and
+ * does not touch any shared state. Only the sample candidates are counted and checked against the
+ * sub-window budget. The number of incoming events is estimated from the number of sample
+ * candidates and the probability they were drawn with, so there is no need to count them.
+ *
+ * <p>The sampler is suitable for any event sampled feature - eg. exception sampling or rate
+ * limiting.
+ */
+public final class AdaptiveSampler {
+
+  /*
+   * Maximum number of windows worth of missing samples which can be carried over.
+   */
+  private static final int CARRIED_OVER_BUDGET_LOOK_BACK = 16;
+
+  private static final int DEFAULT_SUB_WINDOWS = 4;
+
+  /** Per thread state - the number of events to skip before the next sample candidate. */
+  private static final class Countdown {
+    long generation = -1;
+    long remaining;
+  }
+
+  private final ThreadLocal<Countdown> countdowns =
+      new ThreadLocal<Countdown>() {
+        @Override
+        protected Countdown initialValue() {
+          return new Countdown();
+        }
+      };
+
+  private final double samplesPerSubWindow;
+  private final int carriedOverSubWindows;
+  private final double emaAlpha;
+
+  // only touched when a sample candidate is drawn
+  private final AtomicLong candidates = new AtomicLong();
+  private final AtomicLong samples = new AtomicLong();
+
+  // these attributes need to be volatile since they are accessed from user threads as well as the
+  // maintenance one; a new generation forces all threads to draw a new countdown
+  private volatile long generation = 0;
+  private volatile double probability = 1d;
+  private volatile long budget;
+
+  // these attributes are accessed solely from the window maintenance thread
+  private double eventsRunningAverage = Double.NaN;
+  private double missingSamples = 0d;
+
+  /**
+   * Create a new sampler instance
+   *
+   * @param windowDuration the sampling window duration
+   * @param unit the time unit of the sampling window duration
+   * @param samplesPerWindow the maximum number of samples in the sampling window
+   * @param lookback the number of windows to consider in averaging the event rate
+   * @param subWindows the number of sub-windows the probability is recomputed in
+   * @param taskScheduler agent task scheduler to use for periodic rolls
+   */
+  public AdaptiveSampler(
+      final long windowDuration,
+      final TimeUnit unit,
+      final int samplesPerWindow,
+      final int lookback,
+      final int subWindows,
+      final AgentTaskScheduler taskScheduler) {
+    if (subWindows <= 0) {
+      throw new IllegalArgumentException("subWindows must be positive");
+    }
+    samplesPerSubWindow = samplesPerWindow / (double) subWindows;
+    carriedOverSubWindows = CARRIED_OVER_BUDGET_LOOK_BACK * subWindows;
+    emaAlpha = computeIntervalAlpha(lookback * subWindows);
+    budget = (long) Math.ceil(samplesPerSubWindow);
+
+    final long subWindowNanos = unit.toNanos(windowDuration) / subWindows;
+    taskScheduler.weakScheduleAtFixedRate(
+        RollSubWindowTask.INSTANCE,
+        this,
+        subWindowNanos,
+        subWindowNanos,
+        TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Create a new sampler instance with automatic window roll.
+   *
+   * @param windowDuration the sampling window duration
+   * @param unit the time unit of the sampling window duration
+   * @param samplesPerWindow the maximum number of samples in the sampling window
+   * @param lookback the number of windows to consider in averaging the event rate
+   */
+  public AdaptiveSampler(
+      final long windowDuration,
+      final TimeUnit unit,
+      final int samplesPerWindow,
+      final int lookback) {
+    this(
+        windowDuration,
+        unit,
+        samplesPerWindow,
+        lookback,
+        DEFAULT_SUB_WINDOWS,
+        AgentTaskScheduler.INSTANCE);
+  }
+
+  /**
+   * Provides binary answer whether the current event is to be sampled
+   *
+   * @return {@literal true} if the event should be sampled
+   */
+  public boolean sample() {
+    final Countdown countdown = countdowns.get();
+    final long currentGeneration = generation;
+    if (countdown.generation != currentGeneration) {
+      countdown.generation = currentGeneration;
+      countdown.remaining = skipCount(probability);
+    }
+    if (--countdown.remaining > 0) {
+      return false;
+    }
+    countdown.remaining = skipCount(probability);
+    candidates.incrementAndGet();
+    return samples.incrementAndGet() <= budget;
+  }
+
+  /** @return the currently used sampling probability */
+  public double getProbability() {
+    return probability;
+  }
+
+  // visible for testing
+  void rollSubWindow() {
+    final double usedProbability = probability;
+    final long limit = budget;
+    final long candidateCount = candidates.getAndSet(0);
+    final long sampleCount = Math.min(samples.getAndSet(0), limit);
+
+    // estimate the number of incoming events from the number of drawn candidates
+    final double events = usedProbability > 0 ? candidateCount / usedProbability : 0;
+    eventsRunningAverage =
+        Double.isNaN(eventsRunningAverage)
+            ? events
+            : eventsRunningAverage + emaAlpha * (events - eventsRunningAverage);
+
+    // accumulate the samples missing from the target to be used in the following sub-windows,
+    // bounded so that a long quiet period can not turn into an unbounded burst of samples
+    missingSamples =
+        Math.min(
+            Math.max(missingSamples + (samplesPerSubWindow - sampleCount), 0d),
+            samplesPerSubWindow * carriedOverSubWindows);
+
+    final double target = samplesPerSubWindow + missingSamples;
+    budget = (long) Math.ceil(target);
+    probability = eventsRunningAverage <= 0 ? 1d : Math.min(target / eventsRunningAverage, 1d);
+    generation = generation + 1;
+  }
+
+  /**
+   * Draws the number of events until the next sample candidate from the geometric distribution
+   * with success probability {@code p}.
+   */
+  private static long skipCount(final double p) {
+    if (p >= 1d) {
+      return 1;
+    }
+    if (p <= 0d) {
+      return Long.MAX_VALUE;
+    }
+    final double u = 1d - ThreadLocalRandom.current().nextDouble(); // (0, 1]
+    final double skip = Math.floor(Math.log(u) / Math.log1p(-p));
+    return skip >= Long.MAX_VALUE - 1 ? Long.MAX_VALUE : 1 + (long) skip;
+  }
+
+  private static double computeIntervalAlpha(final int lookback) {
+    return 1 - Math.pow(lookback, -1d / lookback);
+  }
+
+  /*
+   * Important to use explicit class to avoid implicit hard references to AdaptiveSampler from within scheduler
+   */
+  private static class RollSubWindowTask implements Task<AdaptiveSampler> {
+
+    static final RollSubWindowTask INSTANCE = new RollSubWindowTask();
+
+    @Override
+    public void run(final AdaptiveSampler target) {
+      target.rollSubWindow();
+    }
+  }
+}
@@ -24,4 +24,17 @@ public interface AgentPropagation {
   interface ContextVisitor<C> {
     void forEachKey(C carrier, KeyClassifier classifier);
   }
+
+  /**
+   * A {@link ContextVisitor} for carriers supporting efficient access by key. Codecs look up the
+   * keys they know by name and only visit the keys matching a prefix, instead of classifying every
+   * key in the carrier.
+   */
+  interface KeyedContextVisitor<C> extends ContextVisitor<C> {
+    /** @return the value of the key, compared ignoring case, or null if it is absent */
+    String get(C carrier, String key);
+
+    /** Visits the keys starting with the prefix, compared ignoring case. */
+    void forEachKeyWithPrefix(C carrier, String prefix, KeyClassifier classifier);
+  }
 }
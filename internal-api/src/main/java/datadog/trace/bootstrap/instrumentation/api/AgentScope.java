@@ -12,5 +12,14 @@ public interface AgentScope extends TraceScope, Closeable {
   @Override
   void close();
 
+  /**
+   * Like {@link #capture()}, but the tasks fanned out from this scope on the thread it is active on
+   * may all be handed the same continuation, holding a single pending reference on the trace until
+   * this scope is closed and every task has completed. Each capture must be matched by exactly one
+   * activation (and close of the returned scope) or cancellation; unlike {@link #capture()} reusing
+   * the returned continuation is not detected.
+   */
+  TraceScope.Continuation captureShared();
+
   interface Continuation extends TraceScope.Continuation {}
 }
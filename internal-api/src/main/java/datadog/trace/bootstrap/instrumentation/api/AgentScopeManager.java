@@ -16,4 +16,18 @@ public interface AgentScopeManager {
   AgentSpan activeSpan();
 
   TraceScope.Continuation captureSpan(AgentSpan span, ScopeSource source);
+
+  /**
+   * Takes a checkpoint of the scopes active on the current thread. Scope managers that can't see
+   * their scope stack activate a sentinel scope to restore to instead.
+   *
+   * @return an opaque checkpoint to pass to {@link #restore}, or 0 if not supported
+   */
+  int checkpoint();
+
+  /**
+   * Closes all scopes activated on the current thread since the checkpoint was taken, regardless of
+   * how many times they were activated. Restoring to a checkpoint of 0 does nothing.
+   */
+  void restore(int checkpoint);
 }
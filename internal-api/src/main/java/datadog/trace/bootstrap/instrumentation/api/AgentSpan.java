@@ -73,6 +73,29 @@ public interface AgentSpan extends MutableSpan {
   @Override
   AgentSpan setResourceName(final CharSequence resourceName);
 
+  /**
+   * @return the view of this span last attached by an API bridge, or null if there is none
+   * @see #setWrapper(Object)
+   */
+  Object getWrapper();
+
+  /**
+   * Attaches the view of this span exposed through another tracing API (such as OpenTelemetry) so
+   * the bridge can hand out the same instance on every conversion instead of allocating a new one.
+   */
+  void setWrapper(Object wrapper);
+
+  /**
+   * Adds tags shared by many spans, which the span references instead of copying them. Tags
+   * already set on the span with the same keys are replaced.
+   *
+   * @param tags created by {@link AgentTracer.TracerAPI#shareTags(Map)}
+   */
+  AgentSpan addSharedTags(SharedTagLayer tags);
+
+  /** An immutable set of tags created once and added to many spans. */
+  interface SharedTagLayer {}
+
   interface Context {
     DDId getTraceId();
 
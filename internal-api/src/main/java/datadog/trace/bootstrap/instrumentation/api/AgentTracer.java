@@ -54,6 +54,16 @@ public class AgentTracer {
     return get().activeScope();
   }
 
+  /** @see AgentScopeManager#checkpoint() */
+  public static int checkpointScopes() {
+    return get().checkpointScopes();
+  }
+
+  /** @see AgentScopeManager#restore(int) */
+  public static void restoreScopes(final int checkpoint) {
+    get().restoreScopes(checkpoint);
+  }
+
   public static AgentPropagation propagate() {
     return get().propagate();
   }
@@ -106,10 +116,20 @@ public class AgentTracer {
 
     TraceScope activeScope();
 
+    int checkpointScopes();
+
+    void restoreScopes(int checkpoint);
+
     AgentPropagation propagate();
 
     AgentSpan noopSpan();
 
+    /**
+     * @param tags the tags to add to many spans through {@link AgentSpan#addSharedTags}
+     * @return the tags, prepared to be shared by the spans of this tracer
+     */
+    AgentSpan.SharedTagLayer shareTags(Map<String, ?> tags);
+
     SpanBuilder buildSpan(CharSequence spanName);
 
     void close();
@@ -194,6 +214,14 @@ public class AgentTracer {
       return null;
     }
 
+    @Override
+    public int checkpointScopes() {
+      return 0;
+    }
+
+    @Override
+    public void restoreScopes(final int checkpoint) {}
+
     @Override
     public AgentPropagation propagate() {
       return NoopAgentPropagation.INSTANCE;
@@ -204,6 +232,11 @@ public class AgentTracer {
       return NoopAgentSpan.INSTANCE;
     }
 
+    @Override
+    public AgentSpan.SharedTagLayer shareTags(final Map<String, ?> tags) {
+      return NoopSharedTagLayer.INSTANCE;
+    }
+
     @Override
     public SpanBuilder buildSpan(final CharSequence spanName) {
       return null;
@@ -458,6 +491,19 @@ public class AgentTracer {
     public boolean hasResourceName() {
       return false;
     }
+
+    @Override
+    public Object getWrapper() {
+      return null;
+    }
+
+    @Override
+    public void setWrapper(final Object wrapper) {}
+
+    @Override
+    public AgentSpan addSharedTags(final SharedTagLayer tags) {
+      return this;
+    }
   }
 
   public static class NoopAgentScope implements AgentScope, TraceScope {
@@ -481,6 +527,11 @@ public class AgentTracer {
       return NoopContinuation.INSTANCE;
     }
 
+    @Override
+    public AgentScope.Continuation captureShared() {
+      return NoopContinuation.INSTANCE;
+    }
+
     @Override
     public void close() {}
 
@@ -522,6 +573,10 @@ public class AgentTracer {
     public void cancel() {}
   }
 
+  static class NoopSharedTagLayer implements AgentSpan.SharedTagLayer {
+    static final NoopSharedTagLayer INSTANCE = new NoopSharedTagLayer();
+  }
+
   public static class NoopContext implements Context {
     public static final NoopContext INSTANCE = new NoopContext();
 
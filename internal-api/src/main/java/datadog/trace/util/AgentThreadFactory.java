@@ -17,7 +17,10 @@ public final class AgentThreadFactory implements ThreadFactory {
     TRACE_PROCESSOR("dd-trace-processor"),
     TRACE_CASSANDRA_ASYNC_SESSION("dd-cassandra-session-executor"),
 
+    LOG_WRITER("dd-log-writer"),
+
     METRICS_AGGREGATOR("dd-metrics-aggregator"),
+    METRICS_REPORTER("dd-metrics-reporter"),
 
     JMX_STARTUP("dd-agent-startup-jmxfetch"),
     JMX_COLLECTOR("dd-jmx-collector"),
@@ -0,0 +1,115 @@
+package datadog.trace.util;
+
+import datadog.trace.api.time.SystemTimeSource;
+import datadog.trace.api.time.TimeSource;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Rate limiter that only supports non-blocking retrieval of a single token at a minimum rate of 1
+ * per second. Tokens are refilled continuously and up to one second worth of tokens can be
+ * accumulated.
+ *
+ * <p>To avoid all threads contending on the same counters the tokens are split into a number of
+ * striped reservoirs, each one refilled at its share of the rate. A thread always takes tokens from
+ * its own reservoir first and only borrows from the others when its reservoir is empty, which keeps
+ * the limit global. Once all the reservoirs were found empty the time at which the next token
+ * becomes available is remembered, so subsequent rejections do not need to check every reservoir.
+ *
+ * <p>Each reservoir is implemented as a generic cell rate algorithm, keeping only the theoretical
+ * arrival time of the next token.
+ */
+public final class TokenBucketRateLimiter {
+  private static final long ONE_SECOND = TimeUnit.SECONDS.toNanos(1);
+  /** Keeps the reservoirs on separate cache lines. */
+  private static final int PADDING = 8;
+  /** Small rates are not worth splitting. */
+  private static final long MIN_RESERVOIR_RATE = 16;
+
+  private final TimeSource timeSource;
+  private final int mask;
+  private final AtomicLongArray theoreticalArrivalTimes;
+  private final long[] emissionIntervals;
+
+  /** The earliest time any reservoir can have a token; only a hint for the borrowing logic. */
+  private volatile long nextAvailable;
+
+  public TokenBucketRateLimiter(final long rate) {
+    this(rate, SystemTimeSource.INSTANCE, Runtime.getRuntime().availableProcessors());
+  }
+
+  TokenBucketRateLimiter(final long rate, final TimeSource timeSource, final int parallelism) {
+    this.timeSource = timeSource;
+    final long capacity = Math.max(1, rate);
+    final int reservoirs =
+        (int)
+            Math.min(
+                Integer.highestOneBit(Math.max(1, Math.min(parallelism, 64))),
+                Long.highestOneBit(Math.max(1, capacity / MIN_RESERVOIR_RATE)));
+    mask = reservoirs - 1;
+    emissionIntervals = new long[reservoirs];
+    theoreticalArrivalTimes = new AtomicLongArray((reservoirs + 1) * PADDING);
+    final long now = timeSource.getNanoTime();
+    for (int i = 0; i < reservoirs; i++) {
+      final long reservoirRate = capacity / reservoirs + (i < capacity % reservoirs ? 1 : 0);
+      emissionIntervals[i] = Math.max(1, ONE_SECOND / reservoirRate);
+      theoreticalArrivalTimes.set(slot(i), now);
+    }
+    nextAvailable = now;
+  }
+
+  public boolean tryAcquire() {
+    final long now = timeSource.getNanoTime();
+    final int local = (int) Thread.currentThread().getId() & mask;
+    if (tryAcquire(local, now)) {
+      return true;
+    }
+    if (mask == 0 || now - nextAvailable < 0) {
+      return false;
+    }
+    // borrow from the other reservoirs, remembering when the next token will be available
+    long earliest = nextTokenTime(local);
+    for (int i = 1; i <= mask; i++) {
+      final int reservoir = (local + i) & mask;
+      if (tryAcquire(reservoir, now)) {
+        return true;
+      }
+      final long next = nextTokenTime(reservoir);
+      if (next - earliest < 0) {
+        earliest = next;
+      }
+    }
+    nextAvailable = earliest;
+    return false;
+  }
+
+  private boolean tryAcquire(final int reservoir, final long now) {
+    final int slot = slot(reservoir);
+    final long emissionInterval = emissionIntervals[reservoir];
+    while (true) {
+      final long arrivalTime = theoreticalArrivalTimes.get(slot);
+      final long next = (arrivalTime - now > 0 ? arrivalTime : now) + emissionInterval;
+      if (next - now > ONE_SECOND) {
+        return false;
+      }
+      if (theoreticalArrivalTimes.compareAndSet(slot, arrivalTime, next)) {
+        return true;
+      }
+    }
+  }
+
+  private long nextTokenTime(final int reservoir) {
+    return theoreticalArrivalTimes.get(slot(reservoir))
+        + emissionIntervals[reservoir]
+        - ONE_SECOND;
+  }
+
+  private static int slot(final int reservoir) {
+    return (reservoir + 1) * PADDING;
+  }
+
+  // visible for testing
+  int reservoirs() {
+    return mask + 1;
+  }
+}
@@ -0,0 +1,131 @@
+package datadog.trace.api.sampling
+
+import datadog.trace.test.util.DDSpecification
+import datadog.trace.util.AgentTaskScheduler
+
+import java.util.concurrent.CyclicBarrier
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+
+import static datadog.trace.util.AgentThreadFactory.AgentThread.TASK_SCHEDULER
+import static java.util.concurrent.TimeUnit.MILLISECONDS
+
+class AdaptiveSamplerTest extends DDSpecification {
+
+  static final int WINDOWS = 120
+  static final int SAMPLES_PER_WINDOW = 100
+  static final int LOOKBACK = 30
+  static final int SUB_WINDOWS = 4
+
+  AgentTaskScheduler scheduler
+
+  def setup() {
+    scheduler = new AgentTaskScheduler(TASK_SCHEDULER)
+  }
+
+  def cleanup() {
+    scheduler.shutdown(10, MILLISECONDS)
+  }
+
+  def "sampler converges to the target number of samples: #name"() {
+    setup:
+    // the window is long enough to never be rolled automatically during the test
+    def sampler = new AdaptiveSampler(1, TimeUnit.HOURS, SAMPLES_PER_WINDOW, LOOKBACK, SUB_WINDOWS, scheduler)
+    long allEvents = 0
+    long allSamples = 0
+
+    when:
+    for (int w = 0; w < WINDOWS; w++) {
+      int events = windowEvents[w % windowEvents.size()]
+      allEvents += events
+      for (int s = 0; s < SUB_WINDOWS; s++) {
+        int subWindowEvents = events.intdiv(SUB_WINDOWS) + (s < events % SUB_WINDOWS ? 1 : 0)
+        for (int i = 0; i < subWindowEvents; i++) {
+          if (sampler.sample()) {
+            allSamples++
+          }
+        }
+        sampler.rollSubWindow()
+      }
+    }
+    long targetSamples = Math.min(allEvents, WINDOWS * SAMPLES_PER_WINDOW)
+
+    then:
+    allSamples <= targetSamples
+    Math.abs(targetSamples - allSamples) * 100 <= targetSamples * maxErrorPercent
+
+    where:
+    name                   | windowEvents                                                   | maxErrorPercent
+    "constant very low"    | [1]                                                            | 0
+    "constant low"         | [153]                                                          | 5
+    "constant medium"      | [713]                                                          | 5
+    "constant high"        | [5211]                                                         | 5
+    "repeating semi random"| [180, 200, 0, 0, 0, 1500, 1000, 430, 200, 115, 115, 900]       | 10
+    "starting with burst"  | [1000, 0, 1000, 0, 1000, 0]                                    | 10
+    "starting with low"    | [0, 1000, 0, 1000, 0, 1000]                                    | 10
+    "rare bursts"          | [5, 5, 5, 5, 5, 5, 5, 5, 5, 5000]                              | 20
+    "frequent bursts"      | [5000, 5000, 5000, 5, 5000]                                    | 10
+  }
+
+  def "sampler converges to the target number of samples with #threadCount threads"() {
+    setup:
+    def sampler = new AdaptiveSampler(1, TimeUnit.HOURS, SAMPLES_PER_WINDOW, LOOKBACK, SUB_WINDOWS, scheduler)
+    def allSamples = new AtomicLong()
+    def startBarrier = new CyclicBarrier(threadCount)
+    def endBarrier = new CyclicBarrier(threadCount, { sampler.rollSubWindow() })
+    int eventsPerThread = 2000.intdiv(threadCount * SUB_WINDOWS)
+    def threads = (1..threadCount).collect {
+      new Thread({
+        for (int w = 0; w < WINDOWS * SUB_WINDOWS; w++) {
+          startBarrier.await(10, TimeUnit.SECONDS)
+          for (int i = 0; i < eventsPerThread; i++) {
+            if (sampler.sample()) {
+              allSamples.incrementAndGet()
+            }
+          }
+          endBarrier.await(10, TimeUnit.SECONDS)
+        }
+      })
+    }
+
+    when:
+    threads*.start()
+    threads*.join()
+    long targetSamples = WINDOWS * SAMPLES_PER_WINDOW
+
+    then:
+    allSamples.get() <= targetSamples
+    Math.abs(targetSamples - allSamples.get()) * 100 <= targetSamples * 5
+
+    where:
+    threadCount << [1, 2, 4, 8, 16]
+  }
+
+  def "probability adapts to the event rate"() {
+    setup:
+    def sampler = new AdaptiveSampler(1, TimeUnit.HOURS, SAMPLES_PER_WINDOW, LOOKBACK, SUB_WINDOWS, scheduler)
+
+    expect:
+    sampler.probability == 1d
+
+    when:
+    for (int s = 0; s < SUB_WINDOWS * 10; s++) {
+      for (int i = 0; i < 10_000; i++) {
+        sampler.sample()
+      }
+      sampler.rollSubWindow()
+    }
+
+    then:
+    sampler.probability < 0.05d
+
+    when:
+    for (int s = 0; s < SUB_WINDOWS * LOOKBACK * 4; s++) {
+      sampler.sample()
+      sampler.rollSubWindow()
+    }
+
+    then:
+    sampler.probability == 1d
+  }
+}
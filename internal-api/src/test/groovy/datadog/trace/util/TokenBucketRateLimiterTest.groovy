@@ -0,0 +1,123 @@
+package datadog.trace.util
+
+import datadog.trace.api.time.ControllableTimeSource
+import datadog.trace.test.util.DDSpecification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class TokenBucketRateLimiterTest extends DDSpecification {
+  def "initial rate available at creation"() {
+    setup:
+    def timeSource = new ControllableTimeSource()
+    def limiter = new TokenBucketRateLimiter(rate, timeSource, parallelism)
+
+    when:
+    rate.times {
+      assert limiter.tryAcquire(): "failed for $it"
+    }
+
+    then:
+    assert !limiter.tryAcquire()
+
+    where:
+    rate | parallelism
+    10   | 1
+    100  | 1
+    1000 | 1
+    10   | 16
+    100  | 16
+    1000 | 16
+  }
+
+  def "tokens never go beyond rate"() {
+    setup:
+    def timeSource = new ControllableTimeSource()
+    def limiter = new TokenBucketRateLimiter(rate, timeSource, parallelism)
+
+    when:
+    timeSource.advance(TimeUnit.SECONDS.toNanos(5))
+    rate.times {
+      assert limiter.tryAcquire(): "failed for $it"
+    }
+
+    then:
+    assert !limiter.tryAcquire()
+
+    where:
+    rate | parallelism
+    10   | 1
+    100  | 1
+    1000 | 1
+    10   | 16
+    100  | 16
+    1000 | 16
+  }
+
+  def "tokens are refilled continuously"() {
+    setup:
+    def timeSource = new ControllableTimeSource()
+    def limiter = new TokenBucketRateLimiter(rate, timeSource, 1)
+    rate.times {
+      limiter.tryAcquire()
+    }
+
+    expect:
+    !limiter.tryAcquire()
+
+    when:
+    timeSource.advance(TimeUnit.MILLISECONDS.toNanos(100))
+    int acquired = 0
+    while (limiter.tryAcquire()) {
+      acquired++
+    }
+
+    then:
+    acquired == rate.intdiv(10)
+
+    where:
+    rate << [10, 100, 1000]
+  }
+
+  def "small rates are not split"() {
+    expect:
+    new TokenBucketRateLimiter(rate, new ControllableTimeSource(), parallelism).reservoirs() == reservoirs
+
+    where:
+    rate | parallelism | reservoirs
+    1    | 64          | 1
+    10   | 64          | 1
+    100  | 64          | 4
+    1000 | 2           | 2
+    1000 | 64          | 32
+    5000 | 64          | 64
+    5000 | 128         | 64
+  }
+
+  def "tokens are shared across threads"() {
+    setup:
+    def timeSource = new ControllableTimeSource()
+    def limiter = new TokenBucketRateLimiter(1000, timeSource, 16)
+    def acquired = new AtomicInteger()
+    def latch = new CountDownLatch(1)
+    def threads = (1..8).collect {
+      new Thread({
+        latch.await()
+        for (int i = 0; i < 1000; i++) {
+          if (limiter.tryAcquire()) {
+            acquired.incrementAndGet()
+          }
+        }
+      })
+    }
+
+    when:
+    threads*.start()
+    latch.countDown()
+    threads*.join()
+
+    then:
+    acquired.get() == 1000
+  }
+}